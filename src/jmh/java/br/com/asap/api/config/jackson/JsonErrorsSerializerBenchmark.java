@@ -0,0 +1,50 @@
+package br.com.asap.api.config.jackson;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes the errors of a rejected client, as a 422 response does.
+ *
+ * Run with {@code ./gradlew jmh -PjmhInclude=JsonErrorsSerializer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonErrorsSerializerBenchmark {
+
+    private final OutputStream sink = new JsonPageSerializerBenchmark.NullOutputStream();
+
+    private List<ObjectError> errors;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+        errors = Arrays.asList(
+            new FieldError("client", "name", null, false,
+                new String[]{"NotEmpty.client.name", "NotEmpty.name", "NotEmpty"}, null, "Nome é obrigatório"),
+            new FieldError("client", "cpf", "123", false,
+                new String[]{"CPF.client.cpf", "CPF.cpf", "CPF"}, null, "CPF inválido"),
+            new FieldError("client", "city", null, false,
+                new String[]{"NotEmpty.client.city", "NotEmpty.city", "NotEmpty"}, null, "Cidade é obrigatória"),
+            new FieldError("client", "uf", null, false,
+                new String[]{"NotEmpty.client.uf", "NotEmpty.uf", "NotEmpty"}, null, "Estado é obrigatório"));
+        writer = new JacksonAdapter().jacksonBuilder().build().writerFor(List.class);
+    }
+
+    @Benchmark
+    public void errors() throws IOException {
+        writer.writeValue(sink, errors);
+    }
+}
@@ -0,0 +1,123 @@
+package br.com.asap.api.config.jackson;
+
+import br.com.asap.api.models.Client;
+import br.com.asap.api.models.Policy;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the streaming Page serializer with the previous one, which built an ObjectMapper
+ * per page and copied the content through an intermediate String.
+ *
+ * Run with {@code ./gradlew jmh}; SampleTime reports p99 and the gc profiler the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonPageSerializerBenchmark {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private final OutputStream sink = new NullOutputStream();
+
+    private Page<Policy> page;
+    private ObjectWriter streaming;
+    private ObjectWriter legacy;
+
+    @Setup
+    public void setUp() {
+        final Client client = new Client().setName("Cicero").setCpf("03957835348").setCity("Fortaleza").setUf("CE");
+        client.setId("600c6c9db16df808354b113f");
+
+        final List<Policy> content = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            final Policy policy = new Policy()
+                .setNumber(i)
+                .setVehiclePlate("ABC-" + (1000 + i))
+                .setEffectiveDateStartAt(LocalDateTime.of(2020, 2, 1, 0, 0))
+                .setEffectiveDateEndAt(LocalDateTime.of(2030, 2, 25, 23, 59, 59))
+                .setClient(client);
+            policy.setId(String.format("600e0668f09f2a7d4d5c%04x", i));
+            content.add(policy);
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+
+        streaming = new JacksonAdapter().jacksonBuilder().build()
+            .writerWithView(JsonViews.Show.class);
+        legacy = new JacksonAdapter().jacksonBuilder()
+            .serializerByType(Page.class, new LegacyJsonPageSerializer())
+            .build()
+            .writerWithView(JsonViews.Show.class);
+    }
+
+    @Benchmark
+    public void streaming() throws IOException {
+        streaming.writeValue(sink, page);
+    }
+
+    @Benchmark
+    public void legacy() throws IOException {
+        legacy.writeValue(sink, page);
+    }
+
+    static class NullOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
+    static class LegacyJsonPageSerializer extends JsonSerializer<Page<?>> {
+
+        @Override
+        public void serialize(Page<?> page, JsonGenerator jsonGen, SerializerProvider serializerProvider) throws IOException {
+            final ObjectMapper om = new ObjectMapper().disable(MapperFeature.DEFAULT_VIEW_INCLUSION)
+                .setFilterProvider(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()));
+
+            jsonGen.writeStartObject();
+            jsonGen.writeFieldName("size");
+            jsonGen.writeNumber(page.getSize());
+            jsonGen.writeFieldName("number");
+            jsonGen.writeNumber(page.getNumber());
+            jsonGen.writeFieldName("totalElements");
+            jsonGen.writeNumber(page.getTotalElements());
+            jsonGen.writeFieldName("last");
+            jsonGen.writeBoolean(page.isLast());
+            jsonGen.writeFieldName("totalPages");
+            jsonGen.writeNumber(page.getTotalPages());
+            jsonGen.writeObjectField("sort", page.getSort());
+            jsonGen.writeFieldName("first");
+            jsonGen.writeBoolean(page.isFirst());
+            jsonGen.writeFieldName("numberOfElements");
+            jsonGen.writeNumber(page.getNumberOfElements());
+            jsonGen.writeFieldName("content");
+            jsonGen.writeRawValue(om.writerWithView(serializerProvider.getActiveView()).writeValueAsString(page.getContent()));
+            jsonGen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package br.com.asap.api.config.jackson;
+
+import br.com.asap.api.models.Client;
+import br.com.asap.api.models.Policy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encodes a page of policies as the list endpoints do, and decodes it as a consumer would, in
+ * JSON, gzipped JSON, Smile and CBOR. The payload size of each format is printed after setup.
+ *
+ * Run with {@code ./gradlew jmh -PjmhInclude=PayloadFormatBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadFormatBenchmark {
+
+    @Param({"json", "json-gzip", "smile", "cbor"})
+    public String format;
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 * 1024);
+
+    private Page<Policy> page;
+    private boolean gzip;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        final Client client = new Client().setName("Cicero").setCpf("03957835348").setCity("Fortaleza").setUf("CE");
+        client.setId("600c6c9db16df808354b113f");
+
+        final List<Policy> content = new ArrayList<>();
+        for (int i = 0; i < pageSize; i++) {
+            final Policy policy = new Policy()
+                .setNumber(i)
+                .setVehiclePlate("ABC-" + (1000 + i))
+                .setEffectiveDateStartAt(LocalDateTime.of(2020, 2, 1, 0, 0))
+                .setEffectiveDateEndAt(LocalDateTime.of(2030, 2, 25, 23, 59, 59))
+                .setClient(client);
+            policy.setId(String.format("600e0668f09f2a7d4d5c%04x", i));
+            content.add(policy);
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+
+        final JacksonAdapter adapter = new JacksonAdapter();
+        final ObjectMapper mapper;
+        switch (format) {
+            case "smile":
+                mapper = adapter.mapperFor(new SmileFactory());
+                break;
+            case "cbor":
+                mapper = adapter.mapperFor(new CBORFactory());
+                break;
+            default:
+                mapper = adapter.jacksonBuilder().build();
+        }
+        gzip = format.endsWith("gzip");
+        writer = mapper.writerWithView(JsonViews.Show.class);
+        reader = mapper.readerFor(PolicyPage.class);
+
+        encoded = encode();
+        System.out.printf("%n%s page of %d policies: %d bytes%n", format, pageSize, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        buffer.reset();
+        writer.writeValue(gzip ? new GZIPOutputStream(buffer) : buffer, page);
+        return buffer.toByteArray();
+    }
+
+    @Benchmark
+    public PolicyPage decode() throws IOException {
+        final InputStream in = new ByteArrayInputStream(encoded);
+        return reader.readValue(gzip ? new GZIPInputStream(in) : in);
+    }
+
+    public static class PolicyPage {
+
+        public long totalElements;
+
+        public List<Policy> content;
+    }
+}
@@ -0,0 +1,61 @@
+package br.com.asap.api.config.jackson;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes one value with each of the date and time serializers into a generator kept open
+ * across invocations, so only the formatting and the write are measured.
+ *
+ * Run with {@code ./gradlew jmh -PjmhInclude=TemporalSerializers}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemporalSerializersBenchmark {
+
+    private final LocalDateTime dateTime = LocalDateTime.of(2020, 2, 25, 23, 59, 59);
+    private final LocalDate date = dateTime.toLocalDate();
+    private final LocalTime time = dateTime.toLocalTime();
+
+    private final LocalDateTimeSerializer localDateTimeSerializer = new LocalDateTimeSerializer();
+    private final LocalDateSerializer localDateSerializer = new LocalDateSerializer();
+    private final LocalTimeSerializer localTimeSerializer = new LocalTimeSerializer();
+
+    private JsonGenerator generator;
+
+    @Setup
+    public void setUp() throws IOException {
+        generator = new JsonFactory().createGenerator(new JsonPageSerializerBenchmark.NullOutputStream());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        generator.close();
+    }
+
+    @Benchmark
+    public void localDateTime() throws IOException {
+        localDateTimeSerializer.serialize(dateTime, generator, null);
+    }
+
+    @Benchmark
+    public void localDate() throws IOException {
+        localDateSerializer.serialize(date, generator, null);
+    }
+
+    @Benchmark
+    public void localTime() throws IOException {
+        localTimeSerializer.serialize(time, generator, null);
+    }
+}
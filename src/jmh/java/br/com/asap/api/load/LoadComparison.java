@@ -0,0 +1,113 @@
+package br.com.asap.api.load;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Closed-loop load against a running instance: {@code concurrency} clients, each with its own
+ * connection, send the next request as soon as the previous one answers, for {@code duration}
+ * seconds after a warm up. Prints throughput, errors and latency percentiles.
+ *
+ * Used to compare the default thread pool with {@code asap.experimental.threads.virtual=true}:
+ * {@code ./gradlew loadTest -Pconcurrency=1000 -Pduration=30 -PloadPath=/api/policies?size=20}
+ */
+public class LoadComparison {
+
+    public static void main(String[] args) {
+        final String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        final String path = args.length > 1 ? args[1] : "/api/policies?size=20";
+        final int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        final int duration = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        final int warmUp = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+
+        final ConnectionProvider connections = ConnectionProvider.builder("load")
+            .maxConnections(concurrency)
+            .pendingAcquireMaxCount(-1)
+            .pendingAcquireTimeout(Duration.ofMinutes(5))
+            .build();
+        final WebClient client = WebClient.builder()
+            .baseUrl(baseUrl)
+            .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 60_000)
+                .responseTimeout(Duration.ofSeconds(60))))
+            .build();
+
+        System.out.printf("%s%s, %d clients, %ds warm up, %ds measured%n", baseUrl, path, concurrency, warmUp, duration);
+        run(client, path, concurrency, warmUp, new Histogram());
+
+        final Histogram histogram = new Histogram();
+        final long startedAt = System.nanoTime();
+        run(client, path, concurrency, duration, histogram);
+        final double elapsed = (System.nanoTime() - startedAt) / 1e9;
+
+        System.out.printf("requests %d, errors %d, %.0f req/s%n", histogram.count(), histogram.errors.get(),
+            histogram.count() / elapsed);
+        System.out.printf("latency ms p50 %.1f, p90 %.1f, p99 %.1f, max %.1f%n",
+            histogram.percentile(50), histogram.percentile(90), histogram.percentile(99), histogram.percentile(100));
+        connections.dispose();
+    }
+
+    private static void run(WebClient client, String path, int concurrency, int seconds, Histogram histogram) {
+        final long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        Flux.range(0, concurrency)
+            .flatMap(i -> Mono.defer(() -> {
+                final long sentAt = System.nanoTime();
+                return client.get().uri(path)
+                    .exchangeToMono(response -> response.releaseBody().thenReturn(response.rawStatusCode()))
+                    .doOnNext(status -> {
+                        if (status >= 400) {
+                            histogram.errors.incrementAndGet();
+                        } else {
+                            histogram.record(System.nanoTime() - sentAt);
+                        }
+                    })
+                    .onErrorResume(e -> {
+                        histogram.errors.incrementAndGet();
+                        return Mono.empty();
+                    });
+            }).repeat(() -> System.nanoTime() < deadline), concurrency)
+            .blockLast();
+    }
+
+    /**
+     * Latencies in 0.1 ms buckets up to 60 s.
+     */
+    static class Histogram {
+
+        private static final int BUCKETS = 600_000;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+
+        void record(long nanos) {
+            buckets.incrementAndGet((int) Math.min(BUCKETS - 1, nanos / 100_000));
+            count.incrementAndGet();
+        }
+
+        long count() {
+            return count.get();
+        }
+
+        double percentile(double percentile) {
+            final long target = (long) Math.ceil(count.get() * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= Math.max(1, target)) {
+                    return (i + 1) / 10.0;
+                }
+            }
+            return Double.NaN;
+        }
+    }
+}
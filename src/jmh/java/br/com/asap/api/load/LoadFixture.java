@@ -0,0 +1,106 @@
+package br.com.asap.api.load;
+
+import br.com.asap.api.models.Client;
+import br.com.asap.api.models.Policy;
+import br.com.asap.api.services.entities_services.ClientsService;
+import br.com.asap.api.services.entities_services.PoliciesService;
+import org.springframework.context.ApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The records a {@link LoadSuite} run works on: the clients and policies seeded before it starts,
+ * which are read and updated but never deleted, and the ones created during the run, which are
+ * the only ones deleted.
+ */
+class LoadFixture {
+
+    private static final int SEED_BATCH = 1000;
+
+    final List<String> clientIds = new ArrayList<>();
+    final List<String> clientCpfs = new ArrayList<>();
+    final List<String> policyIds = new ArrayList<>();
+    final List<Integer> policyNumbers = new ArrayList<>();
+    final Queue<String> createdClientIds = new ConcurrentLinkedQueue<>();
+    final Queue<String> createdPolicyIds = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong cpfSequence = new AtomicLong(100_000_000);
+
+    /**
+     * Stores {@code clients} clients and {@code policies} policies spread over them, through the
+     * services' bulk inserts.
+     */
+    static LoadFixture seed(ApplicationContext context, int clients, int policies) {
+        final ClientsService clientsService = context.getBean(ClientsService.class);
+        final PoliciesService policiesService = context.getBean(PoliciesService.class);
+        final LoadFixture fixture = new LoadFixture();
+
+        for (int seeded = 0; seeded < clients; seeded += SEED_BATCH) {
+            final List<Client> batch = new ArrayList<>();
+            for (int i = seeded; i < Math.min(clients, seeded + SEED_BATCH); i++) {
+                batch.add(new Client().setName("Cliente " + i).setCpf(fixture.nextCpf()).setCity("Fortaleza").setUf("CE"));
+            }
+            clientsService.createAll(batch);
+            batch.forEach(client -> {
+                fixture.clientIds.add(client.getId());
+                fixture.clientCpfs.add(client.getCpf());
+            });
+        }
+
+        for (int seeded = 0; seeded < policies && !fixture.clientIds.isEmpty(); seeded += SEED_BATCH) {
+            final List<Policy> batch = new ArrayList<>();
+            for (int i = seeded; i < Math.min(policies, seeded + SEED_BATCH); i++) {
+                final Client client = new Client();
+                client.setId(fixture.clientIds.get(i % fixture.clientIds.size()));
+                final LocalDateTime endAt = LocalDateTime.now().plusDays(i % 730 - 365);
+                batch.add(new Policy()
+                    .setNumber(policiesService.generateNumber())
+                    .setEffectiveDateStartAt(endAt.minusYears(1))
+                    .setEffectiveDateEndAt(endAt)
+                    .setVehiclePlate(String.format("LOD-%04d", i % 10_000))
+                    .setClient(client));
+            }
+            policiesService.createAll(batch);
+            batch.forEach(policy -> {
+                fixture.policyIds.add(policy.getId());
+                fixture.policyNumbers.add(policy.getNumber());
+            });
+        }
+        return fixture;
+    }
+
+    int randomClient() {
+        return ThreadLocalRandom.current().nextInt(clientIds.size());
+    }
+
+    int randomPolicy() {
+        return ThreadLocalRandom.current().nextInt(policyIds.size());
+    }
+
+    /**
+     * A valid cpf not used before in this run.
+     */
+    String nextCpf() {
+        String base;
+        do {
+            base = String.format("%09d", cpfSequence.getAndIncrement() % 1_000_000_000);
+        } while (base.chars().distinct().count() == 1);
+        final int first = checkDigit(base);
+        return base + first + checkDigit(base + first);
+    }
+
+    private static int checkDigit(String digits) {
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            sum += (digits.charAt(i) - '0') * (digits.length() + 1 - i);
+        }
+        final int remainder = sum % 11;
+        return remainder < 2 ? 0 : 11 - remainder;
+    }
+}
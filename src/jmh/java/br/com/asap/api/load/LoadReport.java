@@ -0,0 +1,88 @@
+package br.com.asap.api.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Throughput and latency percentiles of each endpoint of a {@link LoadSuite} run, printed and
+ * written as load.json and load.html.
+ */
+class LoadReport {
+
+    private static final double[] PERCENTILES = {50, 95, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p95", "p99", "p999"};
+
+    private final Map<String, String> options;
+    private final List<Map<String, Object>> endpoints = new ArrayList<>();
+
+    LoadReport(Map<String, String> options, Map<String, LoadSuite.EndpointResult> results) {
+        this.options = options;
+        results.forEach((name, result) -> {
+            final Map<String, Object> endpoint = new LinkedHashMap<>();
+            endpoint.put("endpoint", name);
+            endpoint.put("targetRate", round(result.rate));
+            endpoint.put("requests", result.histogram.count());
+            endpoint.put("errors", result.histogram.errors.get());
+            endpoint.put("skipped", result.skipped.get());
+            endpoint.put("throughput", round(result.histogram.count() / result.elapsed));
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                endpoint.put(PERCENTILE_NAMES[i], result.histogram.percentile(PERCENTILES[i]));
+            }
+            endpoint.put("max", result.histogram.percentile(100));
+            endpoints.add(endpoint);
+        });
+    }
+
+    void print() {
+        System.out.printf("%-24s %9s %8s %8s %9s %9s %9s %9s %9s%n",
+            "endpoint", "req/s", "errors", "skipped", "p50 ms", "p95 ms", "p99 ms", "p999 ms", "max ms");
+        endpoints.forEach(endpoint -> System.out.printf("%-24s %9.1f %8d %8d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+            endpoint.get("endpoint"), endpoint.get("throughput"), endpoint.get("errors"), endpoint.get("skipped"),
+            endpoint.get("p50"), endpoint.get("p95"), endpoint.get("p99"), endpoint.get("p999"), endpoint.get("max")));
+    }
+
+    void write(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        final Map<String, Object> json = new LinkedHashMap<>();
+        json.put("options", options);
+        json.put("endpoints", endpoints);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(directory, "load.json"), json);
+
+        try (PrintWriter html = new PrintWriter(new File(directory, "load.html"), StandardCharsets.UTF_8.name())) {
+            html.println("<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>Load suite</title>");
+            html.println("<style>body{font-family:sans-serif}td,th{padding:4px 12px;text-align:right}"
+                + "td:first-child,th:first-child{text-align:left}</style></head><body>");
+            html.println("<h1>Load suite</h1><p>");
+            options.forEach((name, value) -> html.printf("%s = %s<br>%n", name, escape(value)));
+            html.println("</p><table><tr><th>endpoint</th><th>target req/s</th><th>req/s</th><th>requests</th>"
+                + "<th>errors</th><th>skipped</th><th>p50 ms</th><th>p95 ms</th><th>p99 ms</th><th>p999 ms</th>"
+                + "<th>max ms</th></tr>");
+            endpoints.forEach(endpoint -> {
+                html.print("<tr>");
+                endpoint.values().forEach(value -> html.printf("<td>%s</td>", escape(String.valueOf(value))));
+                html.println("</tr>");
+            });
+            html.println("</table></body></html>");
+        }
+        System.out.printf("Report written to %s%n", directory.getAbsolutePath());
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
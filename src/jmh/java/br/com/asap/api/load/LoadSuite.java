@@ -0,0 +1,247 @@
+package br.com.asap.api.load;
+
+import br.com.asap.api.ApiApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load on both controllers: boots {@link ApiApplication} against embedded Mongo, seeds
+ * it, then sends a weighted mix of requests at a fixed total arrival rate for {@code duration}
+ * seconds after a warm up. Requests are sent on schedule whether or not earlier ones have
+ * answered, and latency is measured from the scheduled time, so a slow server shows up in the
+ * percentiles instead of lowering the load.
+ *
+ * Writes the latency percentiles and throughput of each endpoint to {@code report}/load.json and
+ * load.html: {@code ./gradlew loadSuite -Prate=500 -Pduration=60 -Pmix=clients.show:50,policies.list:50}
+ */
+public class LoadSuite {
+
+    private static final String DEFAULT_MIX = "clients.list:10,clients.show:20,clients.create:5,clients.update:5,"
+        + "clients.delete:2,policies.list:10,policies.show:20,policies.showByNumber:15,policies.create:5,"
+        + "policies.update:5,policies.delete:3";
+
+    private static final Map<String, Endpoint> ENDPOINTS = new LinkedHashMap<>();
+
+    static {
+        ENDPOINTS.put("clients.list", (client, fixture) -> status(client.get().uri("/api/clients?size=20")));
+        ENDPOINTS.put("clients.show", (client, fixture) ->
+            status(client.get().uri("/api/clients/{id}", fixture.clientIds.get(fixture.randomClient()))));
+        ENDPOINTS.put("clients.create", (client, fixture) ->
+            created(client.post().uri("/api/clients").bodyValue(clientJson(fixture.nextCpf())), fixture.createdClientIds));
+        ENDPOINTS.put("clients.update", (client, fixture) -> {
+            final int index = fixture.randomClient();
+            return status(client.put().uri("/api/clients/{id}", fixture.clientIds.get(index))
+                .bodyValue(clientJson(fixture.clientCpfs.get(index))));
+        });
+        ENDPOINTS.put("clients.delete", (client, fixture) -> delete(client, "/api/clients/{id}", fixture.createdClientIds));
+        ENDPOINTS.put("policies.list", (client, fixture) -> status(client.get().uri("/api/policies?size=20")));
+        ENDPOINTS.put("policies.show", (client, fixture) ->
+            status(client.get().uri("/api/policies/{id}", fixture.policyIds.get(fixture.randomPolicy()))));
+        ENDPOINTS.put("policies.showByNumber", (client, fixture) ->
+            status(client.get().uri("/api/policies/number/{number}", fixture.policyNumbers.get(fixture.randomPolicy()))));
+        ENDPOINTS.put("policies.create", (client, fixture) ->
+            created(client.post().uri("/api/policies").bodyValue(policyJson(fixture)), fixture.createdPolicyIds));
+        ENDPOINTS.put("policies.update", (client, fixture) ->
+            status(client.put().uri("/api/policies/{id}", fixture.policyIds.get(fixture.randomPolicy()))
+                .bodyValue(policyJson(fixture))));
+        ENDPOINTS.put("policies.delete", (client, fixture) -> delete(client, "/api/policies/{id}", fixture.createdPolicyIds));
+    }
+
+    public static void main(String[] args) throws IOException {
+        final Map<String, String> options = new LinkedHashMap<>();
+        options.put("clients", "10000");
+        options.put("policies", "50000");
+        options.put("rate", "200");
+        options.put("duration", "60");
+        options.put("warmUp", "10");
+        options.put("connections", "500");
+        options.put("mix", DEFAULT_MIX);
+        options.put("report", "build/reports/load");
+        for (String arg : args) {
+            final int separator = arg.indexOf('=');
+            if (separator < 0 || !options.containsKey(arg.substring(0, separator))) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected one of " + options.keySet());
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        final Map<String, Integer> mix = parseMix(options.get("mix"));
+        final int rate = Integer.parseInt(options.get("rate"));
+
+        final ConfigurableApplicationContext context = new SpringApplicationBuilder(ApiApplication.class)
+            .properties("server.port=0", "logging.level.root=WARN")
+            .run();
+        final ConnectionProvider connections = ConnectionProvider.builder("load-suite")
+            .maxConnections(Integer.parseInt(options.get("connections")))
+            .pendingAcquireMaxCount(-1)
+            .pendingAcquireTimeout(Duration.ofMinutes(5))
+            .build();
+        try {
+            final LoadFixture fixture = LoadFixture.seed(context,
+                Integer.parseInt(options.get("clients")), Integer.parseInt(options.get("policies")));
+            final WebClient client = WebClient.builder()
+                .baseUrl("http://localhost:" + context.getEnvironment().getProperty("local.server.port"))
+                .defaultHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)
+                    .responseTimeout(Duration.ofSeconds(60))))
+                .build();
+
+            System.out.printf("%s at %d req/s, %ds warm up, %ds measured%n", mix, rate,
+                Integer.parseInt(options.get("warmUp")), Integer.parseInt(options.get("duration")));
+            run(client, fixture, mix, rate, Integer.parseInt(options.get("warmUp")));
+            final Map<String, EndpointResult> results = run(client, fixture, mix, rate,
+                Integer.parseInt(options.get("duration")));
+
+            final LoadReport report = new LoadReport(options, results);
+            report.print();
+            report.write(new File(options.get("report")));
+        } finally {
+            connections.dispose();
+            context.close();
+        }
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        final Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            final String[] weight = entry.trim().split(":");
+            if (weight.length != 2 || !ENDPOINTS.containsKey(weight[0])) {
+                throw new IllegalArgumentException("Unknown mix entry " + entry + ", expected one of " + ENDPOINTS.keySet());
+            }
+            weights.put(weight[0], Integer.parseInt(weight[1]));
+        }
+        return weights;
+    }
+
+    /**
+     * Sends each endpoint its share of {@code rate} for {@code seconds}, then waits for the
+     * requests still in flight.
+     */
+    private static Map<String, EndpointResult> run(WebClient client, LoadFixture fixture, Map<String, Integer> mix,
+                                                   int rate, int seconds) {
+        final int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+        final Map<String, EndpointResult> results = new LinkedHashMap<>();
+        mix.forEach((name, weight) -> results.put(name, new EndpointResult((double) rate * weight / totalWeight)));
+
+        final AtomicInteger inFlight = new AtomicInteger();
+        final long startedAt = System.nanoTime();
+        final long end = startedAt + TimeUnit.SECONDS.toNanos(seconds);
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            for (Map.Entry<String, EndpointResult> entry : results.entrySet()) {
+                final EndpointResult result = entry.getValue();
+                // request k is due at k / rate seconds
+                final long due = (long) ((now - startedAt) / 1e9 * result.rate) + 1;
+                while (result.sent < due) {
+                    final long scheduledAt = startedAt + (long) (result.sent++ / result.rate * 1e9);
+                    inFlight.incrementAndGet();
+                    ENDPOINTS.get(entry.getKey()).send(client, fixture)
+                        .doOnNext(status -> {
+                            if (status >= 400) {
+                                result.histogram.errors.incrementAndGet();
+                            } else {
+                                result.histogram.record(System.nanoTime() - scheduledAt);
+                            }
+                        })
+                        .switchIfEmpty(Mono.fromRunnable(result.skipped::incrementAndGet))
+                        .onErrorResume(e -> {
+                            result.histogram.errors.incrementAndGet();
+                            return Mono.empty();
+                        })
+                        .doFinally(signal -> inFlight.decrementAndGet())
+                        .subscribe();
+                }
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        final long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        final double elapsed = (System.nanoTime() - startedAt) / 1e9;
+        results.values().forEach(result -> result.elapsed = elapsed);
+        return results;
+    }
+
+    private static Mono<Integer> status(WebClient.RequestHeadersSpec<?> request) {
+        return request.exchangeToMono(LoadSuite::releaseAndReturnStatus);
+    }
+
+    /**
+     * Keeps the id of each record created, for the deletes to remove.
+     */
+    private static Mono<Integer> created(WebClient.RequestHeadersSpec<?> request, Queue<String> createdIds) {
+        return request.exchangeToMono(response -> response.statusCode().is2xxSuccessful()
+            ? response.bodyToMono(JsonNode.class)
+                .doOnNext(body -> createdIds.add(body.get("id").asText()))
+                .thenReturn(response.rawStatusCode())
+            : releaseAndReturnStatus(response));
+    }
+
+    /**
+     * Removes a record created earlier in the run; empty, and counted as skipped, when none is left.
+     */
+    private static Mono<Integer> delete(WebClient client, String uri, Queue<String> createdIds) {
+        final String id = createdIds.poll();
+        return id == null ? Mono.empty() : status(client.delete().uri(uri, id));
+    }
+
+    private static Mono<Integer> releaseAndReturnStatus(ClientResponse response) {
+        return response.releaseBody().thenReturn(response.rawStatusCode());
+    }
+
+    private static String clientJson(String cpf) {
+        return "{\"name\": \"Cliente " + cpf + "\", \"cpf\": \"" + cpf + "\", \"city\": \"Fortaleza\", \"uf\": \"CE\"}";
+    }
+
+    private static String policyJson(LoadFixture fixture) {
+        final LocalDateTime endAt = LocalDateTime.now().withNano(0).plusDays(ThreadLocalRandom.current().nextInt(-365, 365));
+        return "{\"effectiveDateStartAt\": \"" + endAt.minusYears(1).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + "\", "
+            + "\"effectiveDateEndAt\": \"" + endAt.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + "\", "
+            + "\"vehiclePlate\": \"LOD-0001\", "
+            + "\"client\": {\"id\": \"" + fixture.clientIds.get(fixture.randomClient()) + "\"}}";
+    }
+
+    interface Endpoint {
+
+        /**
+         * The response status, or empty when there is nothing to send.
+         */
+        Mono<Integer> send(WebClient client, LoadFixture fixture);
+    }
+
+    static class EndpointResult {
+
+        final double rate;
+        final LoadComparison.Histogram histogram = new LoadComparison.Histogram();
+        final AtomicLong skipped = new AtomicLong();
+        long sent;
+        double elapsed;
+
+        EndpointResult(double rate) {
+            this.rate = rate;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package br.com.asap.api.models;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cpf normalization on {@link Client#setCpf}, run for every client read from a request or the database.
+ *
+ * Run with {@code ./gradlew jmh -PjmhInclude=ClientBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientBenchmark {
+
+    @Param({"728.687.544-22", "72868754422"})
+    public String cpf;
+
+    private final Client client = new Client();
+
+    @Benchmark
+    public Client setCpf() {
+        return client.setCpf(cpf);
+    }
+}
@@ -0,0 +1,49 @@
+package br.com.asap.api.models;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The expiration getters, computed from the clock on every call while a policy is serialized.
+ *
+ * Run with {@code ./gradlew jmh -PjmhInclude=PolicyBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolicyBenchmark {
+
+    private Policy policy;
+
+    @Setup
+    public void setUp() {
+        policy = new Policy()
+            .setEffectiveDateStartAt(LocalDateTime.of(2020, 2, 1, 0, 0))
+            .setEffectiveDateEndAt(LocalDateTime.of(2030, 2, 25, 23, 59, 59));
+    }
+
+    @Benchmark
+    public boolean expired() {
+        return policy.getExpired();
+    }
+
+    @Benchmark
+    public boolean notExpired() {
+        return policy.getNotExpired();
+    }
+
+    @Benchmark
+    public Long daysToExpire() {
+        return policy.getDaysToExpire();
+    }
+
+    @Benchmark
+    public Long daysExpired() {
+        return policy.getDaysExpired();
+    }
+}
@@ -0,0 +1,100 @@
+package br.com.asap.api.services.entities_services;
+
+import br.com.asap.api.ApiApplication;
+import br.com.asap.api.models.Client;
+import br.com.asap.api.services.repositories.MongoIndexes;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Cpf lookups through the unique index on the cpf string, as clients were indexed before, and
+ * through the one on the packed {@code cpfNumber}, over {@code clients} clients in embedded Mongo.
+ * The size of both indexes is printed after seeding.
+ *
+ * Run with {@code ./gradlew jmh -PjmhInclude=ClientCpfIndexBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientCpfIndexBenchmark {
+
+    private static final String STRING_INDEX = "cpf_string";
+    private static final int SEED_BATCH = 1000;
+
+    @Param({"100000"})
+    public int clients;
+
+    private ConfigurableApplicationContext context;
+    private MongoTemplate mongoTemplate;
+    private String[] cpfs;
+    private long[] cpfNumbers;
+
+    @Setup(Level.Trial)
+    public void seed() {
+        context = new SpringApplicationBuilder(ApiApplication.class)
+            .properties("server.port=0", "logging.level.root=WARN")
+            .run();
+        mongoTemplate = context.getBean(MongoTemplate.class);
+        mongoTemplate.dropCollection(Client.class);
+        context.getBean(MongoIndexes.class).ensure();
+        mongoTemplate.indexOps(Client.class)
+            .ensureIndex(new Index("cpf", Sort.Direction.ASC).unique().named(STRING_INDEX));
+
+        final ClientsService clientsService = context.getBean(ClientsService.class);
+        cpfs = new String[clients];
+        cpfNumbers = new long[clients];
+        for (int seeded = 0; seeded < clients; seeded += SEED_BATCH) {
+            final List<Client> batch = new ArrayList<>();
+            for (int i = seeded; i < Math.min(clients, seeded + SEED_BATCH); i++) {
+                final Client client = new Client()
+                    .setName("Cliente " + i)
+                    .setCpf(String.format("%011d", i * 7919L))
+                    .setCity("Fortaleza")
+                    .setUf("CE");
+                cpfs[i] = client.getCpf();
+                cpfNumbers[i] = client.getCpfNumber();
+                batch.add(client);
+            }
+            clientsService.createAll(batch);
+        }
+
+        final Document indexSizes = mongoTemplate.getDb()
+            .runCommand(new Document("collStats", mongoTemplate.getCollectionName(Client.class)))
+            .get("indexSizes", new Document());
+        System.out.printf("%nIndex sizes over %d clients: cpf string %s bytes, cpfNumber %s bytes%n",
+            clients, indexSizes.get(STRING_INDEX), indexSizes.get("cpfNumber"));
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        context.close();
+    }
+
+    @Benchmark
+    public Client findByCpfString() {
+        final String cpf = cpfs[ThreadLocalRandom.current().nextInt(clients)];
+        return mongoTemplate.findOne(Query.query(where("cpf").is(cpf)), Client.class);
+    }
+
+    @Benchmark
+    public Client findByCpfNumber() {
+        final long cpfNumber = cpfNumbers[ThreadLocalRandom.current().nextInt(clients)];
+        return mongoTemplate.findOne(Query.query(where("cpfNumber").is(cpfNumber)), Client.class);
+    }
+}
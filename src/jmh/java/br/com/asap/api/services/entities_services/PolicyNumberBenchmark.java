@@ -0,0 +1,52 @@
+package br.com.asap.api.services.entities_services;
+
+import br.com.asap.api.ApiApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Policy numbers taken by {@code generateNumber} from 8 threads at once, against the counter in
+ * embedded Mongo. The score is numbers handed out per second across all threads. With a
+ * {@code blockSize} of 1 every number is its own {@code findAndModify}, as before numbers were
+ * leased in blocks; with the default of 100, one thread leases the next block while the others
+ * wait for it.
+ *
+ * Run with {@code ./gradlew jmh -PjmhInclude=PolicyNumberBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class PolicyNumberBenchmark {
+
+    @Param({"1", "100"})
+    public int blockSize;
+
+    private ConfigurableApplicationContext context;
+    private PoliciesService policiesService;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(ApiApplication.class)
+            .properties("server.port=0", "logging.level.root=WARN",
+                "asap.policies.number-block-size=" + blockSize)
+            .run();
+        policiesService = context.getBean(PoliciesService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        context.close();
+    }
+
+    @Benchmark
+    public Integer generateNumber() {
+        return policiesService.generateNumber();
+    }
+}
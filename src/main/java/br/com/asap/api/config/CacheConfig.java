@@ -0,0 +1,34 @@
+package br.com.asap.api.config;
+
+import br.com.asap.api.models.Client;
+import br.com.asap.api.models.Policy;
+import br.com.asap.api.services.caching.ReadThroughCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+
+    private static final String DEFAULT_SPEC = "maximumSize=10000,expireAfterWrite=10m";
+
+    @Bean
+    public ReadThroughCache<String, Client> clientsCache(
+        @Value("${asap.cache.clients.spec:" + DEFAULT_SPEC + "}") String spec, MeterRegistry meterRegistry) {
+        return new ReadThroughCache<>("clients", spec, meterRegistry);
+    }
+
+    @Bean
+    public ReadThroughCache<String, Policy> policiesCache(
+        @Value("${asap.cache.policies.spec:" + DEFAULT_SPEC + "}") String spec, MeterRegistry meterRegistry) {
+        return new ReadThroughCache<>("policies", spec, meterRegistry);
+    }
+
+    @Bean
+    public ReadThroughCache<Integer, String> policyNumbersCache(
+        @Value("${asap.cache.policy-numbers.spec:" + DEFAULT_SPEC + "}") String spec, MeterRegistry meterRegistry) {
+        return new ReadThroughCache<>("policy-numbers", spec, meterRegistry);
+    }
+
+}
@@ -0,0 +1,49 @@
+package br.com.asap.api.config;
+
+import br.com.asap.api.models.Client;
+import br.com.asap.api.models.Policy;
+import br.com.asap.api.services.writes.InsertCoalescer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+/**
+ * Group commit for client and policy creates, off unless {@code asap.writes.group-commit.enabled}
+ * is set. Both collections share the batch size, delay and timeout bounds.
+ */
+@Configuration
+public class GroupCommitConfig {
+
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxDelayMicros;
+    private final long timeoutMillis;
+
+    public GroupCommitConfig(@Value("${asap.writes.group-commit.enabled:false}") boolean enabled,
+                             @Value("${asap.writes.group-commit.max-batch-size:100}") int maxBatchSize,
+                             @Value("${asap.writes.group-commit.max-delay-micros:1000}") long maxDelayMicros,
+                             @Value("${asap.writes.group-commit.timeout-millis:10000}") long timeoutMillis) {
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMicros = maxDelayMicros;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Bean
+    public InsertCoalescer<Client> clientInserts(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+                                                 MeterRegistry meterRegistry) {
+        return new InsertCoalescer<>(Client.class, mongoTemplate, eventPublisher, enabled, maxBatchSize,
+            maxDelayMicros, timeoutMillis, meterRegistry);
+    }
+
+    @Bean
+    public InsertCoalescer<Policy> policyInserts(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+                                                 MeterRegistry meterRegistry) {
+        return new InsertCoalescer<>(Policy.class, mongoTemplate, eventPublisher, enabled, maxBatchSize,
+            maxDelayMicros, timeoutMillis, meterRegistry);
+    }
+
+}
@@ -0,0 +1,14 @@
+package br.com.asap.api.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.config.EnableMongoAuditing;
+import org.springframework.data.mongodb.config.EnableReactiveMongoAuditing;
+
+/**
+ * Stamps {@code updatedAt} on every save, blocking or reactive.
+ */
+@Configuration
+@EnableMongoAuditing
+@EnableReactiveMongoAuditing
+public class MongoAuditingConfig {
+}
@@ -0,0 +1,83 @@
+package br.com.asap.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+import org.springframework.web.server.WebFilter;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+@Configuration
+@Profile("reactive")
+public class ReactiveWebConfig implements WebFluxConfigurer {
+
+    private static final Set<String> DEFAULT_MODE_ROUTES = new HashSet<>(Arrays.asList(
+        "/api/clients/export", "/api/clients/bulk",
+        "/api/policies/expiring", "/api/policies/expired", "/api/policies/export", "/api/policies/import"));
+    private static final Set<String> DEFAULT_MODE_PARAMS = new HashSet<>(Arrays.asList("fields", "expand"));
+
+    private final MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter;
+
+    public ReactiveWebConfig(MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter) {
+        this.smileHttpMessageConverter = smileHttpMessageConverter;
+    }
+
+    /**
+     * Smile is encoded with the same mapper as in the servlet stack rather than WebFlux's default one.
+     * WebFlux has no CBOR codec in this Spring version.
+     */
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        final ObjectMapper smile = smileHttpMessageConverter.getObjectMapper();
+        configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smile));
+        configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smile));
+    }
+
+    /**
+     * Responses are written as JSON or Smile depending on {@code Accept}, so caches must keep one
+     * per format.
+     */
+    @Bean
+    public WebFilter varyOnAccept() {
+        return (exchange, chain) -> {
+            exchange.getResponse().getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            return chain.filter(exchange);
+        };
+    }
+
+    /**
+     * Routes and parameters served only in the default mode are answered with 501, rather than
+     * falling through to {@code {id}} or being ignored.
+     */
+    @Bean
+    public WebFilter defaultModeOnly() {
+        return (exchange, chain) -> {
+            final ServerHttpRequest request = exchange.getRequest();
+            if (DEFAULT_MODE_ROUTES.contains(request.getPath().pathWithinApplication().value())
+                || DEFAULT_MODE_PARAMS.stream().anyMatch(request.getQueryParams()::containsKey)) {
+                exchange.getResponse().setStatusCode(HttpStatus.NOT_IMPLEMENTED);
+                return exchange.getResponse().setComplete();
+            }
+            return chain.filter(exchange);
+        };
+    }
+
+    @Override
+    public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+        configurer.addCustomResolver(new ReactivePageableHandlerMethodArgumentResolver());
+    }
+
+}
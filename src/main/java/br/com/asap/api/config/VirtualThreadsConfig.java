@@ -0,0 +1,64 @@
+package br.com.asap.api.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs requests, and the Mongo calls they make, on virtual threads instead of the Tomcat pool
+ * when {@code asap.experimental.threads.virtual} is set. Background work submitted to the
+ * application task executor (snapshot sync, imports) gets a virtual thread per task as well.
+ *
+ * Experimental: the MongoDB driver 4.1 does its socket I/O inside {@code synchronized} blocks,
+ * which pins each virtual thread to its carrier, and under load this mode measured slower than
+ * the thread pool and timed out at 10k clients. It stays behind the experimental flag, with a
+ * warning at start up, until the driver is upgraded.
+ *
+ * The build still targets Java 8, so the executor is looked up at start up and the application
+ * refuses to start with this mode on a JDK without virtual threads (Java 21 or newer).
+ */
+@Configuration
+@ConditionalOnProperty("asap.experimental.threads.virtual")
+public class VirtualThreadsConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+
+    static final String PINNING_WARNING = "asap.experimental.threads.virtual is experimental: the MongoDB driver 4.1 "
+        + "does its I/O inside synchronized blocks, pinning virtual threads to their carriers, and requests "
+        + "queue behind Mongo reads under load";
+
+    public VirtualThreadsConfig() {
+        log.warn(PINNING_WARNING);
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandler() {
+        final ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor());
+    }
+
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("asap.experimental.threads.virtual requires Java 21 or newer, running on "
+                + System.getProperty("java.version"), e);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create a virtual thread executor", e);
+        }
+    }
+
+}
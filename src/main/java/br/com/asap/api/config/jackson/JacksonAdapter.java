@@ -1,14 +1,21 @@
 package br.com.asap.api.config.jackson;
 
+import br.com.asap.api.services.pagination.KeysetPage;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializer;
-import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.domain.Page;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -21,16 +28,37 @@ public class JacksonAdapter implements WebMvcConfigurer {
     public Jackson2ObjectMapperBuilder jacksonBuilder(){
         return new Jackson2ObjectMapperBuilder()
                 .failOnUnknownProperties(false)
+                .filters(new SimpleFilterProvider().setDefaultFilter(SimpleBeanPropertyFilter.serializeAll()))
                 .serializerByType(Page.class, new JsonPageSerializer())
+                .serializerByType(KeysetPage.class, new JsonKeysetPageSerializer())
                 .serializerByType(ObjectError.class, new JsonErrorsSerializer());
     }
 
+    /**
+     * {@code application/x-jackson-smile} and {@code application/cbor}, for internal consumers
+     * that ask for them in {@code Accept}. Their mappers are configured by {@link #jacksonBuilder()}
+     * as the JSON one, so views, filters and the Page and errors serializers are the same.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+        return new MappingJackson2SmileHttpMessageConverter(mapperFor(new SmileFactory()));
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        return new MappingJackson2CborHttpMessageConverter(mapperFor(new CBORFactory()));
+    }
+
+    ObjectMapper mapperFor(JsonFactory factory) {
+        final ObjectMapper mapper = new ObjectMapper(factory);
+        jacksonBuilder().configure(mapper);
+        return mapper;
+    }
+
     class JsonPageSerializer extends JsonSerializer<Page<?>> {
 
         @Override
         public void serialize(Page<?> page, JsonGenerator jsonGen, SerializerProvider serializerProvider) throws IOException {
-            final ObjectMapper om = new ObjectMapper().disable(MapperFeature.DEFAULT_VIEW_INCLUSION);
-
             jsonGen.writeStartObject();
             jsonGen.writeFieldName("size");
             jsonGen.writeNumber(page.getSize());
@@ -47,8 +75,25 @@ public class JacksonAdapter implements WebMvcConfigurer {
             jsonGen.writeBoolean(page.isFirst());
             jsonGen.writeFieldName("numberOfElements");
             jsonGen.writeNumber(page.getNumberOfElements());
-            jsonGen.writeFieldName("content");
-            jsonGen.writeRawValue(om.writerWithView(serializerProvider.getActiveView()).writeValueAsString(page.getContent()));
+            serializerProvider.defaultSerializeField("content", page.getContent(), jsonGen);
+            jsonGen.writeEndObject();
+        }
+    }
+
+    class JsonKeysetPageSerializer extends JsonSerializer<KeysetPage<?>> {
+
+        @Override
+        public void serialize(KeysetPage<?> page, JsonGenerator jsonGen, SerializerProvider serializerProvider) throws IOException {
+            jsonGen.writeStartObject();
+            jsonGen.writeFieldName("size");
+            jsonGen.writeNumber(page.getSize());
+            jsonGen.writeFieldName("numberOfElements");
+            jsonGen.writeNumber(page.getContent().size());
+            jsonGen.writeFieldName("last");
+            jsonGen.writeBoolean(page.isLast());
+            jsonGen.writeFieldName("next");
+            jsonGen.writeString(page.getNext());
+            serializerProvider.defaultSerializeField("content", page.getContent(), jsonGen);
             jsonGen.writeEndObject();
         }
     }
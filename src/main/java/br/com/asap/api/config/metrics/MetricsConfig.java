@@ -0,0 +1,31 @@
+package br.com.asap.api.config.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics beyond the ones Spring Boot records on its own ({@code http.server.requests} per endpoint):
+ * Mongo command latency per collection and command ({@code mongodb.driver.commands}), connection
+ * pool gauges ({@code mongodb.driver.pool.*}) and the service and validator timers of
+ * {@link ServiceMetricsAspect}. All of them are scraped from {@code actuator/prometheus}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoMetrics(MeterRegistry meterRegistry) {
+        return settings -> settings
+            .addCommandListener(new MongoCommandMetrics(meterRegistry))
+            .applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(
+                new MongoMetricsConnectionPoolListener(meterRegistry)));
+    }
+
+    @Bean
+    public ServiceMetricsAspect serviceMetricsAspect(MeterRegistry meterRegistry) {
+        return new ServiceMetricsAspect(meterRegistry);
+    }
+
+}
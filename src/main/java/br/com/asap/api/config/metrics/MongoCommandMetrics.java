@@ -0,0 +1,72 @@
+package br.com.asap.api.config.metrics;
+
+import com.mongodb.event.CommandEvent;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every Mongo command as {@code mongodb.driver.commands}, tagged with the command, the
+ * collection it ran on and whether it succeeded.
+ *
+ * Only the started event carries the command document, so the collection is kept by request id
+ * until the command finishes.
+ */
+public class MongoCommandMetrics implements CommandListener {
+
+    private static final String NONE = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Integer, String> collections = new ConcurrentHashMap<>();
+
+    public MongoCommandMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        final String collection = collectionOf(event.getCommandName(), event.getCommand());
+        if (collection != null) {
+            collections.put(event.getRequestId(), collection);
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        time(event, "SUCCESS", event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        time(event, "FAILED", event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    private void time(CommandEvent event, String status, long elapsedNanos) {
+        final String collection = collections.remove(event.getRequestId());
+        Timer.builder("mongodb.driver.commands")
+            .description("Mongo commands by collection")
+            .tag("command", event.getCommandName())
+            .tag("collection", collection == null ? NONE : collection)
+            .tag("status", status)
+            .register(meterRegistry)
+            .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Collection commands (find, insert, aggregate, createIndexes...) name the collection as the
+     * value of the command itself, except getMore, which has it apart.
+     */
+    private static String collectionOf(String commandName, BsonDocument command) {
+        final BsonValue value = "getMore".equals(commandName) ? command.get("collection") : command.get(commandName);
+        return value != null && value.isString() ? value.asString().getValue() : null;
+    }
+}
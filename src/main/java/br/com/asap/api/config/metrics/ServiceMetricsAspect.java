@@ -0,0 +1,49 @@
+package br.com.asap.api.config.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Times every public method of the entity services ({@code asap.service}) and of the validators
+ * ({@code asap.validator}), tagged with the class, the method and the exception thrown, if any.
+ * Calls a service makes to itself are not proxied and so not timed apart.
+ */
+@Aspect
+public class ServiceMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * br.com.asap.api.services.entities_services.*.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("asap.service", "service", joinPoint);
+    }
+
+    @Around("execution(public * br.com.asap.api.services.validators.*.*(..))")
+    public Object timeValidator(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("asap.validator", "validator", joinPoint);
+    }
+
+    private Object time(String name, String classTag, ProceedingJoinPoint joinPoint) throws Throwable {
+        final Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(name)
+                .tag(classTag, joinPoint.getSignature().getDeclaringType().getSimpleName())
+                .tag("method", joinPoint.getSignature().getName())
+                .tag("exception", exception)
+                .register(meterRegistry));
+        }
+    }
+}
@@ -2,49 +2,132 @@ package br.com.asap.api.controllers;
 
 import br.com.asap.api.config.jackson.JsonViews;
 import br.com.asap.api.models.Client;
+import br.com.asap.api.services.bulk.BulkItemResult;
 import br.com.asap.api.services.entities_services.ClientsService;
+import br.com.asap.api.services.exports.ExportFormat;
+import br.com.asap.api.services.exports.RecordExporter;
+import br.com.asap.api.services.fields.FieldCatalog;
+import br.com.asap.api.services.fields.Fieldset;
+import br.com.asap.api.services.pagination.KeysetCursor;
+import br.com.asap.api.services.pagination.KeysetPage;
 import br.com.asap.api.services.validators.ClientsValidator;
+import br.com.asap.api.services.validators.ValidationPipeline;
+import br.com.asap.api.services.versions.RecordVersion;
 import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
-import org.springframework.data.domain.Page;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.Validator;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("api/clients")
 public class ApiClientsController {
 
     private final Validator validator;
     private final ClientsValidator clientsValidator;
+    private final ValidationPipeline validationPipeline;
     private final ClientsService clientsService;
+    private final ObjectMapper objectMapper;
+    private final RecordExporter recordExporter;
 
     public ApiClientsController(ClientsService clientsService, Validator validator,
-                                ClientsValidator clientsValidator) {
+                                ClientsValidator clientsValidator, ValidationPipeline validationPipeline,
+                                ObjectMapper objectMapper, RecordExporter recordExporter) {
         this.clientsService = clientsService;
         this.validator = validator;
         this.clientsValidator = clientsValidator;
+        this.validationPipeline = validationPipeline;
+        this.objectMapper = objectMapper;
+        this.recordExporter = recordExporter;
     }
 
     @GetMapping
     @JsonView(JsonViews.Show.class)
-    public Page<Client> list(@PageableDefault Pageable pageable) {
-        return clientsService.findAll(pageable);
+    public ResponseEntity<?> list(@RequestParam(required = false) String fields, @PageableDefault Pageable pageable) {
+        final Optional<Fieldset> fieldset = FieldCatalog.CLIENTS.parse(fields);
+        if (!fieldset.isPresent()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(fieldset.get().render(clientsService.findAll(pageable, fieldset.get())),
+            HttpStatus.OK);
     }
 
+    @GetMapping(params = "after")
+    @JsonView(JsonViews.Show.class)
+    public ResponseEntity<?> listAfter(@RequestParam String after, @RequestParam(required = false) String fields,
+                                       @PageableDefault Pageable pageable) {
+        final Optional<Fieldset> fieldset = FieldCatalog.CLIENTS.parse(fields);
+        if (!KeysetCursor.isValid(after) || !fieldset.isPresent()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        final KeysetPage<Client> page =
+            clientsService.findAfter(KeysetCursor.decode(after), pageable.getPageSize(), fieldset.get());
+        return new ResponseEntity<>(fieldset.get().render(page), HttpStatus.OK);
+    }
 
+    @GetMapping("export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response)
+        throws IOException {
+        final Optional<ExportFormat> exportFormat = ExportFormat.of(format);
+        if (!exportFormat.isPresent()) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(exportFormat.get().getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+            .filename("clients." + exportFormat.get().getExtension()).build().toString());
+        recordExporter.exportClients(exportFormat.get(), response.getOutputStream());
+    }
+
+    /**
+     * Conditional requests are checked against the client version first, so a client that has
+     * not changed is neither read in full nor serialized.
+     */
     @GetMapping("{id}")
     @JsonView(JsonViews.Show.class)
-    public ResponseEntity<?> show(@PathVariable String id) {
-        return clientsService.findById(id)
-            .map(client -> new ResponseEntity<>(client, HttpStatus.OK))
+    public ResponseEntity<?> show(@PathVariable String id, @RequestParam(required = false) String fields,
+                                  @RequestHeader HttpHeaders headers) {
+        final Optional<Fieldset> fieldset = FieldCatalog.CLIENTS.parse(fields);
+        if (!fieldset.isPresent()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (ConditionalResponses.isConditional(headers)) {
+            final Optional<RecordVersion> version = clientsService.findVersionById(id);
+            if (!version.isPresent()) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            if (ConditionalResponses.isNotModified(headers, version.get(), fieldset.get())) {
+                return ConditionalResponses.notModified(headers, version.get(), fieldset.get());
+            }
+        }
+        return clientsService.findById(id, fieldset.get())
+            .<ResponseEntity<?>>map(client -> ConditionalResponses.ok(headers, client, fieldset.get()))
             .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
@@ -53,52 +136,102 @@ public class ApiClientsController {
     public ResponseEntity<?> create(@RequestBody @JsonView(JsonViews.Create.class)
                                         Client client, BindingResult bindingResult) {
 
-        validator.validate(client, bindingResult);
-        clientsValidator.validate(client, bindingResult);
-        if (bindingResult.hasErrors()) {
+        if (!validationPipeline.validate(client, bindingResult, Collections.emptySet())) {
+            return new ResponseEntity<>(bindingResult.getAllErrors(), HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+
+        try {
+            return new ResponseEntity<>(clientsService.create(client), HttpStatus.CREATED);
+        } catch (DuplicateKeyException e) {
+            bindingResult.rejectValue("cpf", "cpf_already_exists", "Cpf já existe");
             return new ResponseEntity<>(bindingResult.getAllErrors(), HttpStatus.UNPROCESSABLE_ENTITY);
         }
+    }
+
+    @PostMapping(value = "bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @JsonView(JsonViews.Show.class)
+    public ResponseEntity<?> createBulk(@RequestBody @JsonView(JsonViews.Create.class) List<Client> clients) {
+        final List<BeanPropertyBindingResult> errors = new ArrayList<>(clients.size());
+        for (Client client : clients) {
+            client.setId(null);
+            final BeanPropertyBindingResult clientErrors = new BeanPropertyBindingResult(client, "client");
+            validator.validate(client, clientErrors);
+            errors.add(clientErrors);
+        }
+        clientsValidator.validateBatch(clients, errors);
+
+        final List<Client> valid = new ArrayList<>();
+        final List<Integer> validPositions = new ArrayList<>();
+        for (int i = 0; i < clients.size(); i++) {
+            if (!errors.get(i).hasErrors()) {
+                valid.add(clients.get(i));
+                validPositions.add(i);
+            }
+        }
+        for (int rejected : clientsService.createAll(valid)) {
+            final int position = validPositions.get(rejected);
+            errors.get(position).rejectValue("cpf", "cpf_already_exists", "Cpf já existe");
+            clients.get(position).setId(null);
+        }
 
-        final Client save = clientsService.create(client);
+        final List<BulkItemResult> results = new ArrayList<>(clients.size());
+        for (int i = 0; i < clients.size(); i++) {
+            results.add(errors.get(i).hasErrors()
+                ? BulkItemResult.rejected(i, errors.get(i).getAllErrors())
+                : BulkItemResult.created(i, clients.get(i).getId()));
+        }
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
 
-        return new ResponseEntity<>(save, HttpStatus.CREATED);
+    @PostMapping(value = "bulk", consumes = "application/x-ndjson")
+    @JsonView(JsonViews.Show.class)
+    public ResponseEntity<?> createBulkNdjson(InputStream body) throws IOException {
+        final List<Client> clients;
+        try (MappingIterator<Client> lines = objectMapper.readerFor(Client.class)
+            .withView(JsonViews.Create.class)
+            .readValues(body)) {
+            clients = lines.readAll();
+        } catch (JsonProcessingException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return createBulk(clients);
     }
 
     @PutMapping("{id}")
     @JsonView(JsonViews.Show.class)
-    public ResponseEntity<?> update(@PathVariable String id,
+    public ResponseEntity<?> update(@PathVariable String id, @RequestHeader HttpHeaders headers,
                                     @RequestBody @JsonView(JsonViews.Create.class)
                                         Client client, BindingResult bindingResult) {
 
-        final Optional<Client> byId = clientsService.findById(id);
-        if (byId.isPresent()) {
-
-            client.setId(id);
-
-            validator.validate(client, bindingResult);
-            clientsValidator.validate(client, bindingResult);
-
-            if (bindingResult.hasErrors()) {
-                return new ResponseEntity<>(bindingResult.getAllErrors(), HttpStatus.UNPROCESSABLE_ENTITY);
-            }
-
-            final Client save = clientsService.update(client);
-
-            return new ResponseEntity<>(save, HttpStatus.OK);
+        client.setId(id);
+        if (!ConditionalResponses.isAcceptable(headers)) {
+            return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+        }
+        if (!ConditionalResponses.applyIfMatch(headers, client)) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
 
-        } else {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        if (!validationPipeline.validate(client, bindingResult, Collections.emptySet())) {
+            return new ResponseEntity<>(bindingResult.getAllErrors(), HttpStatus.UNPROCESSABLE_ENTITY);
         }
 
+        try {
+            return clientsService.update(client)
+                .<ResponseEntity<?>>map(updated -> ConditionalResponses.ok(headers, updated))
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (DuplicateKeyException e) {
+            bindingResult.rejectValue("cpf", "cpf_already_exists", "Cpf já é usado por outro usuário");
+            return new ResponseEntity<>(bindingResult.getAllErrors(), HttpStatus.UNPROCESSABLE_ENTITY);
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(headers.getIfMatch().isEmpty() ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED);
+        }
     }
 
     @DeleteMapping("{id}")
     public ResponseEntity<?> delete(@PathVariable String id) {
-        return clientsService.findById(id)
-            .map(client -> {
-                clientsService.deleteById(id);
-                return new ResponseEntity<>(HttpStatus.OK);
-            }).orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        return clientsService.deleteById(id)
+            ? new ResponseEntity<>(HttpStatus.OK)
+            : new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
 
 }
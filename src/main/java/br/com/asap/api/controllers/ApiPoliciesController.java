@@ -3,53 +3,194 @@ package br.com.asap.api.controllers;
 import br.com.asap.api.config.jackson.JsonViews;
 import br.com.asap.api.models.Policy;
 import br.com.asap.api.services.entities_services.PoliciesService;
+import br.com.asap.api.services.exports.ExportFormat;
+import br.com.asap.api.services.exports.RecordExporter;
+import br.com.asap.api.services.fields.FieldCatalog;
+import br.com.asap.api.services.fields.Fieldset;
+import br.com.asap.api.services.imports.PoliciesImporter;
+import br.com.asap.api.services.pagination.KeysetCursor;
+import br.com.asap.api.services.pagination.KeysetPage;
 import br.com.asap.api.services.validators.PoliciesValidator;
+import br.com.asap.api.services.validators.ValidationPipeline;
+import br.com.asap.api.services.versions.RecordVersion;
 import com.fasterxml.jackson.annotation.JsonView;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
-import org.springframework.validation.Validator;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 @RestController
+@Profile("!reactive")
 @RequestMapping("api/policies")
 public class ApiPoliciesController {
 
+    private static final Set<String> ASSIGNED_FIELDS = Collections.singleton("number");
+
     private final PoliciesValidator policiesValidator;
-    private final Validator validator;
+    private final ValidationPipeline validationPipeline;
     private final PoliciesService policiesService;
+    private final PoliciesImporter policiesImporter;
+    private final RecordExporter recordExporter;
 
     public ApiPoliciesController(PoliciesService policiesService,
                                  PoliciesValidator policiesValidator,
-                                 Validator validator) {
+                                 ValidationPipeline validationPipeline,
+                                 PoliciesImporter policiesImporter,
+                                 RecordExporter recordExporter) {
         this.policiesService = policiesService;
         this.policiesValidator = policiesValidator;
-        this.validator = validator;
+        this.validationPipeline = validationPipeline;
+        this.policiesImporter = policiesImporter;
+        this.recordExporter = recordExporter;
     }
 
     @JsonView(JsonViews.Show.class)
     @GetMapping
-    public Page<Policy> list(Pageable pageable) {
-        return policiesService.findAll(pageable);
+    public ResponseEntity<?> list(@RequestParam(required = false) String fields, Pageable pageable) {
+        final Optional<Fieldset> fieldset = FieldCatalog.POLICIES.parse(fields);
+        if (!fieldset.isPresent()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(fieldset.get().render(policiesService.findAll(pageable, fieldset.get())),
+            HttpStatus.OK);
+    }
+
+    @JsonView(JsonViews.ShowPolicy.class)
+    @GetMapping(params = "expand=client")
+    public ResponseEntity<?> listWithClients(@RequestParam(required = false) String fields, Pageable pageable) {
+        final Optional<Fieldset> fieldset = FieldCatalog.POLICIES.parse(fields);
+        if (!fieldset.isPresent()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        final Page<Policy> page = policiesService.findAll(pageable, fieldset.get());
+        policiesService.expandClients(page.getContent());
+        return new ResponseEntity<>(fieldset.get().render(page), HttpStatus.OK);
+    }
+
+    @JsonView(JsonViews.Show.class)
+    @GetMapping(params = "after")
+    public ResponseEntity<?> listAfter(@RequestParam String after, @RequestParam(required = false) String fields,
+                                       @PageableDefault Pageable pageable) {
+        final Optional<Fieldset> fieldset = FieldCatalog.POLICIES.parse(fields);
+        if (!KeysetCursor.isValid(after) || !fieldset.isPresent()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        final KeysetPage<Policy> page =
+            policiesService.findAfter(KeysetCursor.decode(after), pageable.getPageSize(), fieldset.get());
+        return new ResponseEntity<>(fieldset.get().render(page), HttpStatus.OK);
+    }
+
+    @JsonView(JsonViews.ShowPolicy.class)
+    @GetMapping(params = {"after", "expand=client"})
+    public ResponseEntity<?> listAfterWithClients(@RequestParam String after,
+                                                  @RequestParam(required = false) String fields,
+                                                  @PageableDefault Pageable pageable) {
+        final Optional<Fieldset> fieldset = FieldCatalog.POLICIES.parse(fields);
+        if (!KeysetCursor.isValid(after) || !fieldset.isPresent()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        final KeysetPage<Policy> page =
+            policiesService.findAfter(KeysetCursor.decode(after), pageable.getPageSize(), fieldset.get());
+        policiesService.expandClients(page.getContent());
+        return new ResponseEntity<>(fieldset.get().render(page), HttpStatus.OK);
+    }
+
+    @JsonView(JsonViews.Show.class)
+    @GetMapping("expiring")
+    public ResponseEntity<?> listExpiring(@RequestParam int withinDays, @RequestParam(required = false) String fields,
+                                          Pageable pageable) {
+        final Optional<Fieldset> fieldset = FieldCatalog.POLICIES.parse(fields);
+        if (withinDays < 0 || !fieldset.isPresent()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        final Page<Policy> page = policiesService.findExpiring(withinDays, pageable, fieldset.get());
+        return new ResponseEntity<>(fieldset.get().render(page), HttpStatus.OK);
+    }
+
+    @JsonView(JsonViews.Show.class)
+    @GetMapping("expired")
+    public ResponseEntity<?> listExpired(@RequestParam(required = false)
+                                         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+                                         @RequestParam(required = false) String fields, Pageable pageable) {
+        final Optional<Fieldset> fieldset = FieldCatalog.POLICIES.parse(fields);
+        if (!fieldset.isPresent()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(fieldset.get().render(policiesService.findExpired(since, pageable, fieldset.get())),
+            HttpStatus.OK);
+    }
+
+    @GetMapping("export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format, HttpServletResponse response)
+        throws IOException {
+        final Optional<ExportFormat> exportFormat = ExportFormat.of(format);
+        if (!exportFormat.isPresent()) {
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(exportFormat.get().getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+            .filename("policies." + exportFormat.get().getExtension()).build().toString());
+        recordExporter.exportPolicies(exportFormat.get(), response.getOutputStream());
     }
 
     @JsonView(JsonViews.Show.class)
     @GetMapping("{id}")
-    public ResponseEntity<?> show(@PathVariable String id) {
-        return policiesService.findById(id)
-            .map(policy -> new ResponseEntity<>(policy, HttpStatus.OK))
-            .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    public ResponseEntity<?> show(@PathVariable String id, @RequestParam(required = false) String fields,
+                                  @RequestHeader HttpHeaders headers) {
+        return show(headers, fields, () -> policiesService.findVersionById(id),
+            fieldset -> policiesService.findById(id, fieldset));
     }
 
     @JsonView(JsonViews.Show.class)
     @GetMapping("number/{number}")
-    public ResponseEntity<?> showByNumber(@PathVariable Integer number) {
-        return policiesService.findByNumber(number)
-            .map(policy -> new ResponseEntity<>(policy, HttpStatus.OK))
+    public ResponseEntity<?> showByNumber(@PathVariable Integer number, @RequestParam(required = false) String fields,
+                                          @RequestHeader HttpHeaders headers) {
+        return show(headers, fields, () -> policiesService.findVersionByNumber(number),
+            fieldset -> policiesService.findByNumber(number, fieldset));
+    }
+
+    /**
+     * Conditional requests are checked against the policy version first, so a policy that has
+     * not changed is neither read in full nor serialized.
+     */
+    private ResponseEntity<?> show(HttpHeaders headers, String fields, Supplier<Optional<RecordVersion>> version,
+                                   Function<Fieldset, Optional<Policy>> policy) {
+        final Optional<Fieldset> fieldset = FieldCatalog.POLICIES.parse(fields);
+        if (!fieldset.isPresent()) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (ConditionalResponses.isConditional(headers)) {
+            final Optional<RecordVersion> current = version.get();
+            if (!current.isPresent()) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            if (ConditionalResponses.isNotModified(headers, current.get(), fieldset.get())) {
+                return ConditionalResponses.notModified(headers, current.get(), fieldset.get());
+            }
+        }
+        return policy.apply(fieldset.get())
+            .<ResponseEntity<?>>map(found -> ConditionalResponses.ok(headers, found, fieldset.get()))
             .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
@@ -58,56 +199,62 @@ public class ApiPoliciesController {
     public ResponseEntity<?> create(@RequestBody @JsonView(JsonViews.Create.class)
                                         Policy policy, BindingResult bindingResult) {
 
-        final Integer number = policiesService.generateNumber();
-        policy.setNumber(number);
-
-        validator.validate(policy, bindingResult);
-        policiesValidator.validate(policy, bindingResult);
-        if (bindingResult.hasErrors()) {
+        if (!validationPipeline.validate(policy, bindingResult, ASSIGNED_FIELDS,
+            errors -> policiesValidator.validate(policy, errors))) {
             return new ResponseEntity<>(bindingResult.getAllErrors(), HttpStatus.UNPROCESSABLE_ENTITY);
         }
 
+        // numbers are only taken by policies that will be written
+        policy.setNumber(policiesService.generateNumber());
         final Policy save = policiesService.create(policy);
 
         return new ResponseEntity<>(save, HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "import", consumes = "application/x-ndjson")
+    public void importPolicies(InputStream body, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        policiesImporter.importFrom(body, response.getOutputStream());
+    }
+
 
     @PutMapping("{id}")
     @JsonView(JsonViews.Show.class)
-    public ResponseEntity<?> update(@PathVariable String id,
+    public ResponseEntity<?> update(@PathVariable String id, @RequestHeader HttpHeaders headers,
                                     @RequestBody @JsonView(JsonViews.Create.class)
                                         Policy policy, BindingResult bindingResult) {
 
-        final Optional<Policy> byId = policiesService.findById(id);
-        if (byId.isPresent()) {
-
-            final Policy policyById = byId.get();
-            policy.setId(id);
-            policy.setNumber(policyById.getNumber());
-
-            validator.validate(policy, bindingResult);
-            policiesValidator.validate(policy, bindingResult);
-            if (bindingResult.hasErrors()) {
-                return new ResponseEntity<>(bindingResult.getAllErrors(), HttpStatus.UNPROCESSABLE_ENTITY);
-            }
+        policy.setId(id);
+        if (!ConditionalResponses.isAcceptable(headers)) {
+            return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+        }
+        if (!ConditionalResponses.applyIfMatch(headers, policy)) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        }
 
-            final Policy save = policiesService.update(policy);
+        // the number is kept as stored
+        if (!validationPipeline.validate(policy, bindingResult, ASSIGNED_FIELDS,
+            errors -> policiesValidator.validate(policy, errors))) {
+            return new ResponseEntity<>(bindingResult.getAllErrors(), HttpStatus.UNPROCESSABLE_ENTITY);
+        }
 
-            return new ResponseEntity<>(save, HttpStatus.OK);
-        } else {
-            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        try {
+            return policiesService.update(policy)
+                .<ResponseEntity<?>>map(updated -> ConditionalResponses.ok(headers, updated))
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(headers.getIfMatch().isEmpty() ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED);
         }
     }
 
 
     @DeleteMapping("{id}")
     public ResponseEntity<?> delete(@PathVariable String id) {
-        return policiesService.findById(id)
-            .map(client -> {
-                policiesService.deleteById(id);
-                return new ResponseEntity<>(HttpStatus.OK);
-            }).orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        return policiesService.deleteById(id)
+            ? new ResponseEntity<>(HttpStatus.OK)
+            : new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
 
 
@@ -0,0 +1,178 @@
+package br.com.asap.api.controllers;
+
+import br.com.asap.api.models.EntityRecord;
+import br.com.asap.api.services.fields.Fieldset;
+import br.com.asap.api.services.versions.RecordVersion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Entity tags and last modified dates for records, from their {@link RecordVersion}.
+ * {@code If-None-Match} takes precedence over {@code If-Modified-Since}, as in RFC 7232.
+ *
+ * Each representation of a record has its own strong tag: the version alone for the whole record
+ * in JSON, followed by the format and the digest of the fieldset for the others, e.g. {@code "3"},
+ * {@code "3-smile"} and {@code "3-cbor-5d0e2f1a"}. The format is negotiated here from
+ * {@code Accept} and set as the content type, so the tag always matches the body written, and
+ * responses carry {@code Vary: Accept}.
+ */
+public final class ConditionalResponses {
+
+    private static final String WEAK_PREFIX = "W/";
+    private static final Pattern STRONG_TAG = Pattern.compile("\"(\\d+)(-[0-9a-z]+)*\"");
+    private static final Map<MediaType, String> FORMATS = new LinkedHashMap<>();
+
+    static {
+        FORMATS.put(MediaType.APPLICATION_JSON, null);
+        FORMATS.put(MediaType.valueOf("application/x-jackson-smile"), "smile");
+        FORMATS.put(MediaType.APPLICATION_CBOR, "cbor");
+    }
+
+    private ConditionalResponses() {
+    }
+
+    /**
+     * Whether the request accepts one of the formats records are written in, checked before an
+     * update so that it is not applied only to be answered with 406.
+     */
+    public static boolean isAcceptable(HttpHeaders request) {
+        return negotiate(request).isPresent();
+    }
+
+    public static boolean isConditional(HttpHeaders request) {
+        return !request.getIfNoneMatch().isEmpty() || request.getIfModifiedSince() >= 0;
+    }
+
+    /**
+     * Whether a GET with these headers can be answered with 304 for the {@code fields} of a
+     * record at {@code version}, in the format the request accepts.
+     */
+    public static boolean isNotModified(HttpHeaders request, RecordVersion version, Fieldset fields) {
+        final Optional<MediaType> format = negotiate(request);
+        if (!format.isPresent()) {
+            return false;
+        }
+        final List<String> ifNoneMatch = request.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            final String eTag = eTag(version, fields, format.get());
+            return eTag != null && ifNoneMatch.stream()
+                .anyMatch(tag -> "*".equals(tag) || eTag.equals(tag.startsWith(WEAK_PREFIX) ? tag.substring(2) : tag));
+        }
+        final long ifModifiedSince = request.getIfModifiedSince();
+        return ifModifiedSince >= 0 && version.getLastModified() >= 0
+            && version.getLastModified() / 1000 * 1000 <= ifModifiedSince;
+    }
+
+    public static ResponseEntity<?> notModified(HttpHeaders request, RecordVersion version, Fieldset fields) {
+        final HttpHeaders headers = headersOf(version, fields, negotiate(request).orElse(MediaType.APPLICATION_JSON));
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+    }
+
+    public static ResponseEntity<?> ok(HttpHeaders request, EntityRecord record) {
+        return ok(request, record, Fieldset.ALL);
+    }
+
+    /**
+     * The {@code fields} of the record in the format the request accepts, or 406 when it accepts
+     * none of them.
+     */
+    public static ResponseEntity<?> ok(HttpHeaders request, EntityRecord record, Fieldset fields) {
+        final Optional<MediaType> format = negotiate(request);
+        if (!format.isPresent()) {
+            return new ResponseEntity<>(HttpStatus.NOT_ACCEPTABLE);
+        }
+        final HttpHeaders headers = headersOf(RecordVersion.of(record), fields, format.get());
+        headers.setContentType(format.get());
+        return ResponseEntity.ok().headers(headers).body(fields.render(record));
+    }
+
+    /**
+     * Applies the version of a single strong {@code If-Match} tag, from any representation of the
+     * record, as the version the update must find. Returns false when the header can never match a
+     * current tag (weak, malformed or several tags); an absent header or {@code *} leave the record
+     * as it is.
+     */
+    public static boolean applyIfMatch(HttpHeaders request, EntityRecord record) {
+        final List<String> ifMatch = request.getIfMatch();
+        if (ifMatch.isEmpty() || ifMatch.contains("*")) {
+            return true;
+        }
+        final Matcher tag = STRONG_TAG.matcher(ifMatch.get(0));
+        if (ifMatch.size() > 1 || !tag.matches()) {
+            return false;
+        }
+        record.setVersion(Long.valueOf(tag.group(1)));
+        return true;
+    }
+
+    /**
+     * The first of JSON, Smile and CBOR the request accepts, in the order of its preference, as
+     * Spring's negotiation would pick it; JSON when it sends no {@code Accept}.
+     */
+    private static Optional<MediaType> negotiate(HttpHeaders request) {
+        final List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(request.getAccept());
+        } catch (InvalidMediaTypeException e) {
+            return Optional.empty();
+        }
+        if (accepted.isEmpty()) {
+            return Optional.of(MediaType.APPLICATION_JSON);
+        }
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            for (MediaType format : FORMATS.keySet()) {
+                if (mediaType.isCompatibleWith(format)) {
+                    return Optional.of(format);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Strong entity tag of the {@code fields} of a record in {@code format}, or null for records
+     * written before versions existed.
+     */
+    private static String eTag(RecordVersion version, Fieldset fields, MediaType format) {
+        if (version.getVersion() == null) {
+            return null;
+        }
+        final StringBuilder eTag = new StringBuilder("\"").append(version.getVersion());
+        if (FORMATS.get(format) != null) {
+            eTag.append('-').append(FORMATS.get(format));
+        }
+        if (fields.digest() != null) {
+            eTag.append('-').append(fields.digest());
+        }
+        return eTag.append('"').toString();
+    }
+
+    private static HttpHeaders headersOf(RecordVersion version, Fieldset fields, MediaType format) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setVary(Collections.singletonList(HttpHeaders.ACCEPT));
+        final String eTag = eTag(version, fields, format);
+        if (eTag != null) {
+            headers.setETag(eTag);
+        }
+        if (version.getLastModified() >= 0) {
+            headers.setLastModified(version.getLastModified());
+        }
+        return headers;
+    }
+}
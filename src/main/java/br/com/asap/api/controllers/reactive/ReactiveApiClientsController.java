@@ -0,0 +1,102 @@
+package br.com.asap.api.controllers.reactive;
+
+import br.com.asap.api.config.jackson.JsonViews;
+import br.com.asap.api.models.Client;
+import br.com.asap.api.services.pagination.KeysetCursor;
+import br.com.asap.api.services.reactive.ReactiveClientsService;
+import com.fasterxml.jackson.annotation.JsonView;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.Validator;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+@RestController
+@Profile("reactive")
+@RequestMapping("api/clients")
+public class ReactiveApiClientsController {
+
+    private final Validator validator;
+    private final ReactiveClientsService clientsService;
+
+    public ReactiveApiClientsController(ReactiveClientsService clientsService, Validator validator) {
+        this.clientsService = clientsService;
+        this.validator = validator;
+    }
+
+    @GetMapping
+    @JsonView(JsonViews.Show.class)
+    public Mono<Page<Client>> list(@PageableDefault Pageable pageable) {
+        return clientsService.findAll(pageable);
+    }
+
+    @GetMapping(params = "after")
+    @JsonView(JsonViews.Show.class)
+    public Mono<ResponseEntity<?>> listAfter(@RequestParam String after, @PageableDefault Pageable pageable) {
+        if (!KeysetCursor.isValid(after)) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        return clientsService.findAfter(KeysetCursor.decode(after), pageable.getPageSize())
+            .<ResponseEntity<?>>map(page -> new ResponseEntity<>(page, HttpStatus.OK));
+    }
+
+    @GetMapping("{id}")
+    @JsonView(JsonViews.Show.class)
+    public Mono<ResponseEntity<?>> show(@PathVariable String id) {
+        return clientsService.findById(id)
+            .<ResponseEntity<?>>map(client -> new ResponseEntity<>(client, HttpStatus.OK))
+            .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @PostMapping
+    @JsonView(JsonViews.Show.class)
+    public Mono<ResponseEntity<?>> create(@RequestBody @JsonView(JsonViews.Create.class) Client client) {
+        client.setId(null);
+        final Errors errors = new BeanPropertyBindingResult(client, "client");
+        validator.validate(client, errors);
+        if (errors.hasErrors()) {
+            return Mono.just(new ResponseEntity<>(errors.getAllErrors(), HttpStatus.UNPROCESSABLE_ENTITY));
+        }
+        return clientsService.create(client)
+            .<ResponseEntity<?>>map(save -> new ResponseEntity<>(save, HttpStatus.CREATED))
+            .onErrorResume(DuplicateKeyException.class, e -> {
+                errors.rejectValue("cpf", "cpf_already_exists", "Cpf já existe");
+                return Mono.just(new ResponseEntity<>(errors.getAllErrors(), HttpStatus.UNPROCESSABLE_ENTITY));
+            });
+    }
+
+    @PutMapping("{id}")
+    @JsonView(JsonViews.Show.class)
+    public Mono<ResponseEntity<?>> update(@PathVariable String id,
+                                          @RequestBody @JsonView(JsonViews.Create.class) Client client) {
+        client.setId(id);
+        final Errors errors = new BeanPropertyBindingResult(client, "client");
+        validator.validate(client, errors);
+        if (errors.hasErrors()) {
+            return Mono.just(new ResponseEntity<>(errors.getAllErrors(), HttpStatus.UNPROCESSABLE_ENTITY));
+        }
+        return clientsService.update(client)
+            .<ResponseEntity<?>>map(save -> new ResponseEntity<>(save, HttpStatus.OK))
+            .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND))
+            .onErrorResume(DuplicateKeyException.class, e -> {
+                errors.rejectValue("cpf", "cpf_already_exists", "Cpf já é usado por outro usuário");
+                return Mono.just(new ResponseEntity<>(errors.getAllErrors(), HttpStatus.UNPROCESSABLE_ENTITY));
+            })
+            .onErrorReturn(OptimisticLockingFailureException.class, new ResponseEntity<>(HttpStatus.CONFLICT));
+    }
+
+    @DeleteMapping("{id}")
+    public Mono<ResponseEntity<?>> delete(@PathVariable String id) {
+        return clientsService.deleteById(id)
+            .<ResponseEntity<?>>map(deleted -> new ResponseEntity<>(deleted ? HttpStatus.OK : HttpStatus.NOT_FOUND));
+    }
+
+}
@@ -0,0 +1,127 @@
+package br.com.asap.api.controllers.reactive;
+
+import br.com.asap.api.config.jackson.JsonViews;
+import br.com.asap.api.models.Policy;
+import br.com.asap.api.services.pagination.KeysetCursor;
+import br.com.asap.api.services.reactive.ReactivePoliciesService;
+import br.com.asap.api.services.reactive.ReactivePoliciesValidator;
+import com.fasterxml.jackson.annotation.JsonView;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import org.springframework.validation.Validator;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.Set;
+
+@RestController
+@Profile("reactive")
+@RequestMapping("api/policies")
+public class ReactiveApiPoliciesController {
+
+    private static final Set<String> ASSIGNED_FIELDS = Collections.singleton("number");
+
+    private final ReactivePoliciesValidator policiesValidator;
+    private final Validator validator;
+    private final ReactivePoliciesService policiesService;
+
+    public ReactiveApiPoliciesController(ReactivePoliciesService policiesService,
+                                         ReactivePoliciesValidator policiesValidator,
+                                         Validator validator) {
+        this.policiesService = policiesService;
+        this.policiesValidator = policiesValidator;
+        this.validator = validator;
+    }
+
+    @JsonView(JsonViews.Show.class)
+    @GetMapping
+    public Mono<Page<Policy>> list(Pageable pageable) {
+        return policiesService.findAll(pageable);
+    }
+
+    @JsonView(JsonViews.Show.class)
+    @GetMapping(params = "after")
+    public Mono<ResponseEntity<?>> listAfter(@RequestParam String after, @PageableDefault Pageable pageable) {
+        if (!KeysetCursor.isValid(after)) {
+            return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+        }
+        return policiesService.findAfter(KeysetCursor.decode(after), pageable.getPageSize())
+            .<ResponseEntity<?>>map(page -> new ResponseEntity<>(page, HttpStatus.OK));
+    }
+
+    @JsonView(JsonViews.Show.class)
+    @GetMapping("{id}")
+    public Mono<ResponseEntity<?>> show(@PathVariable String id) {
+        return policiesService.findById(id)
+            .<ResponseEntity<?>>map(policy -> new ResponseEntity<>(policy, HttpStatus.OK))
+            .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @JsonView(JsonViews.Show.class)
+    @GetMapping("number/{number}")
+    public Mono<ResponseEntity<?>> showByNumber(@PathVariable Integer number) {
+        return policiesService.findByNumber(number)
+            .<ResponseEntity<?>>map(policy -> new ResponseEntity<>(policy, HttpStatus.OK))
+            .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+
+    @PostMapping
+    @JsonView(JsonViews.Show.class)
+    public Mono<ResponseEntity<?>> create(@RequestBody @JsonView(JsonViews.Create.class) Policy policy) {
+        // numbers are only taken by policies that will be written
+        return validate(policy)
+            .flatMap(errors -> errors.hasErrors()
+                ? Mono.just(new ResponseEntity<>(errors.getAllErrors(), HttpStatus.UNPROCESSABLE_ENTITY))
+                : policiesService.generateNumber()
+                    .flatMap(number -> policiesService.create(policy.setNumber(number)))
+                    .map(save -> new ResponseEntity<>(save, HttpStatus.CREATED)));
+    }
+
+    @PutMapping("{id}")
+    @JsonView(JsonViews.Show.class)
+    public Mono<ResponseEntity<?>> update(@PathVariable String id,
+                                          @RequestBody @JsonView(JsonViews.Create.class) Policy policy) {
+        policy.setId(id);
+        // the number is kept as stored
+        return validate(policy)
+            .flatMap(errors -> errors.hasErrors()
+                ? Mono.just(new ResponseEntity<>(errors.getAllErrors(), HttpStatus.UNPROCESSABLE_ENTITY))
+                : policiesService.update(policy)
+                    .<ResponseEntity<?>>map(save -> new ResponseEntity<>(save, HttpStatus.OK))
+                    .defaultIfEmpty(new ResponseEntity<>(HttpStatus.NOT_FOUND)))
+            .onErrorReturn(OptimisticLockingFailureException.class, new ResponseEntity<>(HttpStatus.CONFLICT));
+    }
+
+    @DeleteMapping("{id}")
+    public Mono<ResponseEntity<?>> delete(@PathVariable String id) {
+        return policiesService.deleteById(id)
+            .<ResponseEntity<?>>map(deleted -> new ResponseEntity<>(deleted ? HttpStatus.OK : HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Bean constraints first, leaving out the number, which the server assigns; the client is only
+     * looked up when they all pass, as in {@code ValidationPipeline}.
+     */
+    private Mono<Errors> validate(Policy policy) {
+        final BeanPropertyBindingResult constraints = new BeanPropertyBindingResult(policy, "policy");
+        validator.validate(policy, constraints);
+        final BeanPropertyBindingResult errors = new BeanPropertyBindingResult(policy, "policy");
+        for (ObjectError error : constraints.getAllErrors()) {
+            if (!(error instanceof FieldError && ASSIGNED_FIELDS.contains(((FieldError) error).getField()))) {
+                errors.addError(error);
+            }
+        }
+        return errors.hasErrors() ? Mono.just(errors) : policiesValidator.validate(policy, errors);
+    }
+
+}
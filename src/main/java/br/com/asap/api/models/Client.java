@@ -1,15 +1,19 @@
 package br.com.asap.api.models;
 
 import br.com.asap.api.config.jackson.JsonViews;
+import br.com.asap.api.models.cpf.Cpfs;
+import br.com.asap.api.models.cpf.ValidCpf;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonView;
 import lombok.ToString;
-import org.hibernate.validator.constraints.br.CPF;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import javax.validation.constraints.NotEmpty;
 
 @ToString
+@JsonFilter("client")
 @Document(value = "clients")
 public class Client extends EntityRecord {
 
@@ -17,12 +21,19 @@ public class Client extends EntityRecord {
     @JsonView({JsonViews.Show.class, JsonViews.Create.class, JsonViews.Update.class})
     private String name;
 
-    @Indexed(unique = true)
-    @CPF(message = "CPF inválido")
+    @ValidCpf(message = "CPF inválido")
     @NotEmpty(message = "CPF é obrigatório")
     @JsonView({JsonViews.Show.class, JsonViews.Create.class, JsonViews.Update.class})
     private String cpf;
 
+    /**
+     * The cpf packed by {@link Cpfs#pack}, set with it. Uniqueness and lookups go through this
+     * 8 byte number instead of the string; null while the cpf is not 11 digits.
+     */
+    @Indexed(unique = true, sparse = true)
+    @JsonIgnore
+    private Long cpfNumber;
+
     @NotEmpty(message = "Cidade é obrigatória")
     @JsonView({JsonViews.Show.class, JsonViews.Create.class, JsonViews.Update.class})
     private String city;
@@ -45,13 +56,21 @@ public class Client extends EntityRecord {
     }
 
     public Client setCpf(String cpf) {
-        this.cpf = cpf;
-        if (this.cpf != null) {
-            this.cpf = this.cpf.trim().replace("-", "").replace(".", "");
+        final long packed = Cpfs.pack(cpf);
+        if (packed != Cpfs.INVALID) {
+            this.cpf = Cpfs.digits(cpf, packed);
+            this.cpfNumber = packed;
+        } else {
+            this.cpf = cpf == null ? null : cpf.trim().replace("-", "").replace(".", "");
+            this.cpfNumber = null;
         }
         return this;
     }
 
+    public Long getCpfNumber() {
+        return cpfNumber;
+    }
+
     public String getCity() {
         return city;
     }
@@ -0,0 +1,84 @@
+package br.com.asap.api.models;
+
+import br.com.asap.api.config.jackson.JsonViews;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonView;
+
+/**
+ * Copy of the client fields a policy is rendered with, embedded in the policy document so
+ * reading a policy never needs a second collection.
+ */
+public class ClientSnapshot {
+
+    @JsonView(JsonViews.Show.class)
+    private String id;
+
+    @JsonView(JsonViews.Show.class)
+    private String name;
+
+    @JsonView(JsonViews.Show.class)
+    private String cpf;
+
+    @JsonView(JsonViews.Show.class)
+    private String uf;
+
+    /**
+     * Version of the client the copy was taken from, so an older copy never replaces a newer one.
+     */
+    @JsonIgnore
+    private Long version;
+
+    public static ClientSnapshot of(Client client) {
+        return new ClientSnapshot()
+            .setId(client.getId())
+            .setName(client.getName())
+            .setCpf(client.getCpf())
+            .setUf(client.getUf())
+            .setVersion(client.getVersion());
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ClientSnapshot setId(String id) {
+        this.id = id;
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ClientSnapshot setName(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public String getCpf() {
+        return cpf;
+    }
+
+    public ClientSnapshot setCpf(String cpf) {
+        this.cpf = cpf;
+        return this;
+    }
+
+    public String getUf() {
+        return uf;
+    }
+
+    public ClientSnapshot setUf(String uf) {
+        this.uf = uf;
+        return this;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public ClientSnapshot setVersion(Long version) {
+        this.version = version;
+        return this;
+    }
+}
@@ -0,0 +1,31 @@
+package br.com.asap.api.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+@Document("counters")
+public class Counter {
+
+    @Id
+    private String id;
+
+    private Long seq;
+
+    public String getId() {
+        return id;
+    }
+
+    public Counter setId(String id) {
+        this.id = id;
+        return this;
+    }
+
+    public Long getSeq() {
+        return seq;
+    }
+
+    public Counter setSeq(Long seq) {
+        this.seq = seq;
+        return this;
+    }
+}
@@ -2,11 +2,16 @@ package br.com.asap.api.models;
 
 
 import br.com.asap.api.config.jackson.JsonViews;
+import br.com.asap.api.config.jackson.LocalDateTimeSerializer;
 import com.fasterxml.jackson.annotation.JsonView;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
 
+import java.time.LocalDateTime;
 import java.util.Objects;
 
 public abstract class EntityRecord {
@@ -16,6 +21,20 @@ public abstract class EntityRecord {
     @Getter @Setter
     private String id;
 
+    /**
+     * Incremented on every update. An update carrying a version only applies over that version.
+     */
+    @Version
+    @JsonView({JsonViews.Show.class, JsonViews.Create.class})
+    @Getter @Setter
+    private Long version;
+
+    @LastModifiedDate
+    @JsonView(JsonViews.UpdatedAt.class)
+    @JsonSerialize(using = LocalDateTimeSerializer.class)
+    @Getter @Setter
+    private LocalDateTime updatedAt;
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -2,8 +2,11 @@ package br.com.asap.api.models;
 
 import br.com.asap.api.config.jackson.JsonViews;
 import br.com.asap.api.config.jackson.LocalDateTimeSerializer;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonView;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
@@ -13,7 +16,10 @@ import javax.validation.constraints.NotNull;
 import java.time.Duration;
 import java.time.LocalDateTime;
 
+@JsonFilter("policy")
 @Document("policies")
+@CompoundIndex(name = "client_ref", def = "{'client.$id': 1}")
+@CompoundIndex(name = "effective_date_end_at", def = "{'effectiveDateEndAt': 1, '_id': 1}")
 public class Policy extends EntityRecord {
 
     @Indexed(unique = true)
@@ -35,11 +41,15 @@ public class Policy extends EntityRecord {
     @NotEmpty(message = "Placa do veículo é oobrigatória")
     private String vehiclePlate;
 
-    @DBRef
-    @JsonView({JsonViews.Create.class})
+    @DBRef(lazy = true)
+    @JsonView({JsonViews.Create.class, JsonViews.ShowPolicy.class})
     @NotNull(message = "Cliente é obrigatório")
     private Client client;
 
+    @JsonView({JsonViews.Show.class})
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ClientSnapshot clientSnapshot;
+
     @JsonView({JsonViews.Show.class})
     public boolean getExpired() {
         final LocalDateTime now = LocalDateTime.now();
@@ -107,4 +117,13 @@ public class Policy extends EntityRecord {
         this.client = client;
         return this;
     }
+
+    public ClientSnapshot getClientSnapshot() {
+        return clientSnapshot;
+    }
+
+    public Policy setClientSnapshot(ClientSnapshot clientSnapshot) {
+        this.clientSnapshot = clientSnapshot;
+        return this;
+    }
 }
@@ -0,0 +1,108 @@
+package br.com.asap.api.models.cpf;
+
+/**
+ * Cpfs packed in a long: the 11 digits read as a number, check digits included. Stored next to
+ * the formatted cpf, it is what the unique index and the lookups compare.
+ */
+public final class Cpfs {
+
+    /**
+     * Returned by {@link #pack} for anything that is not 11 digits. No cpf packs to a negative number.
+     */
+    public static final long INVALID = -1;
+
+    private static final int DIGITS = 11;
+
+    private Cpfs() {
+    }
+
+    /**
+     * Normalizes in a single pass without allocating: surrounding whitespace and the {@code .}
+     * and {@code -} separators are skipped, any other character or a digit count other than 11
+     * make it {@link #INVALID}. Check digits are left to {@link #isValid(long)}.
+     */
+    public static long pack(CharSequence value) {
+        if (value == null) {
+            return INVALID;
+        }
+        int start = 0;
+        int end = value.length();
+        while (start < end && value.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && value.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        long packed = 0;
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            final char c = value.charAt(i);
+            if (c == '.' || c == '-') {
+                continue;
+            }
+            if (c < '0' || c > '9' || count == DIGITS) {
+                return INVALID;
+            }
+            packed = packed * 10 + (c - '0');
+            count++;
+        }
+        return count == DIGITS ? packed : INVALID;
+    }
+
+    /**
+     * Whether {@code value}, formatted or not, is a valid cpf.
+     */
+    public static boolean isValid(CharSequence value) {
+        return isValid(pack(value));
+    }
+
+    /**
+     * Whether a packed cpf has both check digits right and is not a repeated digit
+     * (111.111.111-11), which passes the check digits but is never issued.
+     */
+    public static boolean isValid(long packed) {
+        if (packed < 0) {
+            return false;
+        }
+        final int second = (int) (packed % 10);
+        final int first = (int) (packed / 10 % 10);
+        long base = packed / 100;
+        int firstSum = 0;
+        int secondSum = first * 2;
+        boolean repeated = first == second;
+        for (int weight = 2; weight <= 10; weight++) {
+            final int digit = (int) (base % 10);
+            firstSum += digit * weight;
+            secondSum += digit * (weight + 1);
+            repeated &= digit == second;
+            base /= 10;
+        }
+        return !repeated && first == checkDigit(firstSum) && second == checkDigit(secondSum);
+    }
+
+    /**
+     * The 11 digits of a packed cpf, leading zeros included.
+     */
+    public static String format(long packed) {
+        final char[] digits = new char[DIGITS];
+        for (int i = DIGITS - 1; i >= 0; i--) {
+            digits[i] = (char) ('0' + packed % 10);
+            packed /= 10;
+        }
+        return new String(digits);
+    }
+
+    /**
+     * The digits of {@code value}, which packed to {@code packed}: {@code value} itself when it
+     * already is only digits, so the common unformatted input is not copied.
+     */
+    public static String digits(String value, long packed) {
+        return value.length() == DIGITS ? value : format(packed);
+    }
+
+    private static int checkDigit(int sum) {
+        final int remainder = sum % 11;
+        return remainder < 2 ? 0 : 11 - remainder;
+    }
+}
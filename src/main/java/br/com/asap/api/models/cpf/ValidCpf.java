@@ -0,0 +1,26 @@
+package br.com.asap.api.models.cpf;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * A cpf with the right check digits, formatted or not, see {@link Cpfs#isValid(CharSequence)}.
+ * {@code null} is valid.
+ */
+@Documented
+@Constraint(validatedBy = ValidCpfValidator.class)
+@Target({ElementType.FIELD, ElementType.METHOD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ValidCpf {
+
+    String message() default "CPF inválido";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
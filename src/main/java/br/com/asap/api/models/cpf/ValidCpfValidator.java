@@ -0,0 +1,12 @@
+package br.com.asap.api.models.cpf;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+public class ValidCpfValidator implements ConstraintValidator<ValidCpf, CharSequence> {
+
+    @Override
+    public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+        return value == null || Cpfs.isValid(value);
+    }
+}
@@ -0,0 +1,59 @@
+package br.com.asap.api.services.bulk;
+
+import br.com.asap.api.config.jackson.JsonViews;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonView;
+import org.springframework.http.HttpStatus;
+import org.springframework.validation.ObjectError;
+
+import java.util.List;
+
+/**
+ * Outcome of one item of a bulk request, reported at the item's position in the request.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+
+    @JsonView(JsonViews.Show.class)
+    private final int index;
+
+    @JsonView(JsonViews.Show.class)
+    private final int status;
+
+    @JsonView(JsonViews.Show.class)
+    private final String id;
+
+    @JsonView(JsonViews.Show.class)
+    private final List<ObjectError> errors;
+
+    private BulkItemResult(int index, HttpStatus status, String id, List<ObjectError> errors) {
+        this.index = index;
+        this.status = status.value();
+        this.id = id;
+        this.errors = errors;
+    }
+
+    public static BulkItemResult created(int index, String id) {
+        return new BulkItemResult(index, HttpStatus.CREATED, id, null);
+    }
+
+    public static BulkItemResult rejected(int index, List<ObjectError> errors) {
+        return new BulkItemResult(index, HttpStatus.UNPROCESSABLE_ENTITY, null, errors);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public List<ObjectError> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,71 @@
+package br.com.asap.api.services.caching;
+
+import br.com.asap.api.models.Client;
+import br.com.asap.api.models.EntityRecord;
+import br.com.asap.api.models.Policy;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Service;
+
+/**
+ * Evicts cached clients and policies once they are written or deleted, whichever way the write
+ * goes through Spring Data. Eviction happens after the write, so a concurrent load either
+ * finishes first and is evicted, or reads the new document.
+ */
+@Service
+public class EntityCacheInvalidator extends AbstractMongoEventListener<EntityRecord> {
+
+    private final ReadThroughCache<String, Client> clientsCache;
+    private final ReadThroughCache<String, Policy> policiesCache;
+    private final ReadThroughCache<Integer, String> policyNumbersCache;
+
+    @Autowired
+    public EntityCacheInvalidator(ReadThroughCache<String, Client> clientsCache,
+                                  ReadThroughCache<String, Policy> policiesCache,
+                                  ReadThroughCache<Integer, String> policyNumbersCache) {
+        this.clientsCache = clientsCache;
+        this.policiesCache = policiesCache;
+        this.policyNumbersCache = policyNumbersCache;
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<EntityRecord> event) {
+        final EntityRecord entity = event.getSource();
+        if (entity instanceof Client) {
+            clientsCache.evict(entity.getId());
+        } else if (entity instanceof Policy) {
+            policiesCache.evict(entity.getId());
+            if (((Policy) entity).getNumber() != null) {
+                policyNumbersCache.evict(((Policy) entity).getNumber());
+            }
+        }
+    }
+
+    /**
+     * Deletes by id evict that id; any other delete query evicts the whole cache of the type.
+     * Number to id entries are left alone: they are only followed through the policies cache,
+     * which no longer finds the deleted id.
+     */
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<EntityRecord> event) {
+        final ReadThroughCache<String, ?> cache = Client.class.equals(event.getType()) ? clientsCache
+            : Policy.class.equals(event.getType()) ? policiesCache
+            : null;
+        if (cache == null) {
+            return;
+        }
+
+        final Object id = event.getSource().get("_id");
+        if (id instanceof ObjectId) {
+            cache.evict(((ObjectId) id).toHexString());
+        } else if (id instanceof String) {
+            cache.evict((String) id);
+        } else {
+            cache.evictAll();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package br.com.asap.api.services.caching;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Bounded in-memory cache in front of a lookup. Bounds and expiration come from a Caffeine spec,
+ * e.g. {@code maximumSize=10000,expireAfterWrite=10m}; hits, misses and evictions are published
+ * as the {@code cache.*} meters tagged with the cache name.
+ *
+ * Absent values are not cached, so an entity created after a miss is found on the next lookup.
+ */
+public class ReadThroughCache<K, V> {
+
+    private final Cache<K, V> cache;
+
+    public ReadThroughCache(String name, String spec, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.from(spec).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+
+    /**
+     * The cached value, or the one returned by the loader, which is called once per key however
+     * many threads miss it at the same time.
+     */
+    public Optional<V> get(K key, Function<K, Optional<V>> loader) {
+        return Optional.ofNullable(cache.get(key, k -> loader.apply(k).orElse(null)));
+    }
+
+    /**
+     * The cached value, without loading it on a miss.
+     */
+    public Optional<V> peek(K key) {
+        return Optional.ofNullable(cache.getIfPresent(key));
+    }
+
+    public void put(K key, V value) {
+        cache.put(key, value);
+    }
+
+    public void evict(K key) {
+        cache.invalidate(key);
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+}
@@ -1,40 +1,163 @@
 package br.com.asap.api.services.entities_services;
 
 import br.com.asap.api.models.Client;
+import br.com.asap.api.services.caching.ReadThroughCache;
+import br.com.asap.api.services.fields.Fieldset;
+import br.com.asap.api.services.fields.ProjectedReads;
+import br.com.asap.api.services.pagination.KeysetPage;
 import br.com.asap.api.services.repositories.ClientsRepository;
+import br.com.asap.api.services.snapshots.ClientSnapshotService;
+import br.com.asap.api.services.versions.RecordVersion;
+import br.com.asap.api.services.writes.InsertCoalescer;
+import br.com.asap.api.services.writes.RecordWriter;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
 
 @Service
 public class ClientsService {
 
+    private static final int DUPLICATE_KEY = 11000;
+
     private final ClientsRepository clientsRepository;
+    private final ClientSnapshotService clientSnapshotService;
+    private final MongoTemplate mongoTemplate;
+    private final ReadThroughCache<String, Client> clientsCache;
+    private final RecordWriter recordWriter;
+    private final ProjectedReads projectedReads;
+    private final InsertCoalescer<Client> clientInserts;
 
     @Autowired
-    public ClientsService(ClientsRepository clientsRepository) {
+    public ClientsService(ClientsRepository clientsRepository, ClientSnapshotService clientSnapshotService,
+                          MongoTemplate mongoTemplate, ReadThroughCache<String, Client> clientsCache,
+                          RecordWriter recordWriter, ProjectedReads projectedReads,
+                          InsertCoalescer<Client> clientInserts) {
         this.clientsRepository = clientsRepository;
+        this.clientSnapshotService = clientSnapshotService;
+        this.mongoTemplate = mongoTemplate;
+        this.clientsCache = clientsCache;
+        this.recordWriter = recordWriter;
+        this.projectedReads = projectedReads;
+        this.clientInserts = clientInserts;
     }
 
+    /**
+     * Inserts without looking the cpf up first: the unique cpf index rejects a cpf already taken
+     * with a {@link org.springframework.dao.DuplicateKeyException}. With group commit on, the insert
+     * waits to be written together with the creates of other requests.
+     */
     public Client create(Client client) {
         client.setId(null);
-        return clientsRepository.save(client);
+        client.setVersion(null);
+        return clientInserts.isEnabled() ? clientInserts.insert(client) : clientsRepository.save(client);
+    }
+
+    /**
+     * Inserts all clients with one unordered bulk write. Returns the positions in {@code clients}
+     * of those rejected by the unique cpf index, in order; every other client is stored.
+     */
+    public List<Integer> createAll(List<Client> clients) {
+        if (clients.isEmpty()) {
+            return new ArrayList<>();
+        }
+        clients.forEach(client -> {
+            client.setId(new ObjectId().toHexString());
+            client.setVersion(0L);
+        });
+
+        try {
+            mongoTemplate.bulkOps(BulkMode.UNORDERED, Client.class).insert(clients).execute();
+            return new ArrayList<>();
+        } catch (BulkOperationException e) {
+            final List<Integer> rejected = new ArrayList<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+                rejected.add(error.getIndex());
+            }
+            Collections.sort(rejected);
+            return rejected;
+        }
     }
 
-    public Client update(Client client) {
-        return clientsRepository.save(client);
+    /**
+     * Replaces the client in one write; empty when it does not exist. The unique cpf index
+     * rejects a cpf taken by another client with a {@link org.springframework.dao.DuplicateKeyException}.
+     */
+    public Optional<Client> update(Client client) {
+        final Optional<Client> saved = recordWriter.replace(client);
+        saved.ifPresent(clientSnapshotService::sync);
+        return saved;
     }
 
-    public Optional<Client> findByCpf(String cpf) {
-        return clientsRepository.findByCpf(cpf);
+    public Set<String> findExistingIds(Collection<String> ids) {
+        final Set<String> existing = new HashSet<>();
+        if (ids.isEmpty()) {
+            return existing;
+        }
+        final Query query = Query.query(where("id").in(ids));
+        query.fields().include("id");
+        mongoTemplate.find(query, Client.class).forEach(client -> existing.add(client.getId()));
+        return existing;
     }
 
+    /**
+     * Read through {@code clientsCache}; writes evict it through {@link br.com.asap.api.services.caching.EntityCacheInvalidator}.
+     */
     public Optional<Client> findById(String id) {
-        return clientsRepository.findById(id);
+        return clientsCache.get(id, clientsRepository::findById);
+    }
+
+    /**
+     * A cached client is returned whole, to be filtered when rendered; otherwise only
+     * {@code fields} are read.
+     */
+    public Optional<Client> findById(String id, Fieldset fields) {
+        if (fields.isAll()) {
+            return findById(id);
+        }
+        final Optional<Client> cached = clientsCache.peek(id);
+        return cached.isPresent()
+            ? cached
+            : projectedReads.findOne(Query.query(where("id").is(id)), Client.class, fields);
+    }
+
+    /**
+     * Version of the client, always read from Mongo by a query that returns only the version
+     * fields: the cache is local to each node and may still hold a client another node has
+     * since written. Such a stale copy is evicted, so the full read that follows a changed
+     * version is not answered from it.
+     */
+    public Optional<RecordVersion> findVersionById(String id) {
+        final Client stored = mongoTemplate.findOne(RecordVersion.query(where("id").is(id)), Client.class);
+        if (stored == null) {
+            return Optional.empty();
+        }
+        clientsCache.peek(id)
+            .filter(cached -> !Objects.equals(cached.getVersion(), stored.getVersion()))
+            .ifPresent(cached -> clientsCache.evict(id));
+        return Optional.of(RecordVersion.of(stored));
     }
 
     public List<Client> findAll() {
@@ -45,7 +168,24 @@ public class ClientsService {
         return clientsRepository.findAll(pageable);
     }
 
-    public void deleteById(String id) {
-        clientsRepository.deleteById(id);
+    public Page<Client> findAll(Pageable pageable, Fieldset fields) {
+        return fields.isAll()
+            ? findAll(pageable)
+            : projectedReads.findPage(new Query(), pageable, Client.class, fields);
+    }
+
+    public KeysetPage<Client> findAfter(String id, int size) {
+        final Pageable pageable = PageRequest.of(0, size, Sort.by("id"));
+        return KeysetPage.of(id == null
+            ? clientsRepository.findAllBy(pageable)
+            : clientsRepository.findByIdGreaterThan(new ObjectId(id), pageable));
+    }
+
+    public KeysetPage<Client> findAfter(String id, int size, Fieldset fields) {
+        return fields.isAll() ? findAfter(id, size) : projectedReads.findAfter(id, size, Client.class, fields);
+    }
+
+    public boolean deleteById(String id) {
+        return recordWriter.delete(Client.class, id);
     }
 }
@@ -1,26 +1,89 @@
 package br.com.asap.api.services.entities_services;
 
+import br.com.asap.api.models.Client;
 import br.com.asap.api.models.Policy;
+import br.com.asap.api.services.caching.ReadThroughCache;
+import br.com.asap.api.services.fields.Fieldset;
+import br.com.asap.api.services.fields.ProjectedReads;
+import br.com.asap.api.services.pagination.KeysetPage;
+import br.com.asap.api.services.repositories.ClientsRepository;
 import br.com.asap.api.services.repositories.PoliciesRepository;
-import com.github.javafaker.Faker;
+import br.com.asap.api.services.sequences.PolicyNumberAllocator;
+import br.com.asap.api.services.snapshots.ClientSnapshotService;
+import br.com.asap.api.services.versions.RecordVersion;
+import br.com.asap.api.services.writes.InsertCoalescer;
+import br.com.asap.api.services.writes.RecordWriter;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Sort.Direction;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.LazyLoadingProxy;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toSet;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
 
 @Service
 public class PoliciesService {
 
+    private static final int DUPLICATE_KEY = 11000;
+
+    /**
+     * Inserts of a policy whose number is taken, as when policies were stored with numbers the
+     * counter had not reached yet. Each retry takes the next number.
+     */
+    public static final int NUMBER_ATTEMPTS = 3;
+
     private final PoliciesRepository policiesRepository;
-    private final Faker faker;
+    private final ClientsRepository clientsRepository;
+    private final PolicyNumberAllocator policyNumberAllocator;
+    private final ClientSnapshotService clientSnapshotService;
+    private final MongoTemplate mongoTemplate;
+    private final ReadThroughCache<String, Policy> policiesCache;
+    private final ReadThroughCache<Integer, String> policyNumbersCache;
+    private final RecordWriter recordWriter;
+    private final ProjectedReads projectedReads;
+    private final InsertCoalescer<Policy> policyInserts;
 
     @Autowired
-    public PoliciesService(PoliciesRepository policiesRepository, Faker faker) {
+    public PoliciesService(PoliciesRepository policiesRepository, ClientsRepository clientsRepository,
+                           PolicyNumberAllocator policyNumberAllocator,
+                           ClientSnapshotService clientSnapshotService, MongoTemplate mongoTemplate,
+                           ReadThroughCache<String, Policy> policiesCache,
+                           ReadThroughCache<Integer, String> policyNumbersCache,
+                           RecordWriter recordWriter, ProjectedReads projectedReads,
+                           InsertCoalescer<Policy> policyInserts) {
         this.policiesRepository = policiesRepository;
-        this.faker = faker;
+        this.clientsRepository = clientsRepository;
+        this.policyNumberAllocator = policyNumberAllocator;
+        this.clientSnapshotService = clientSnapshotService;
+        this.mongoTemplate = mongoTemplate;
+        this.policiesCache = policiesCache;
+        this.policyNumbersCache = policyNumbersCache;
+        this.recordWriter = recordWriter;
+        this.projectedReads = projectedReads;
+        this.policyInserts = policyInserts;
     }
 
     public List<Policy> findAll() {
@@ -31,34 +94,257 @@ public class PoliciesService {
         return policiesRepository.findAll(pageable);
     }
 
+    public Page<Policy> findAll(Pageable pageable, Fieldset fields) {
+        return fields.isAll()
+            ? findAll(pageable)
+            : projectedReads.findPage(new Query(), pageable, Policy.class, fields);
+    }
+
+    public KeysetPage<Policy> findAfter(String id, int size) {
+        final Pageable pageable = PageRequest.of(0, size, Sort.by("id"));
+        return KeysetPage.of(id == null
+            ? policiesRepository.findAllBy(pageable)
+            : policiesRepository.findByIdGreaterThan(new ObjectId(id), pageable));
+    }
+
+    public KeysetPage<Policy> findAfter(String id, int size, Fieldset fields) {
+        return fields.isAll() ? findAfter(id, size) : projectedReads.findAfter(id, size, Policy.class, fields);
+    }
+
+    /**
+     * Policies still in force that end within {@code days}, the soonest first. Both this and
+     * {@link #findExpired} are range scans on the {@code effectiveDateEndAt} index, which also
+     * gives their order, so only the policies returned are read.
+     */
+    public Page<Policy> findExpiring(int days, Pageable pageable) {
+        return findExpiring(days, pageable, Fieldset.ALL);
+    }
+
+    public Page<Policy> findExpiring(int days, Pageable pageable, Fieldset fields) {
+        final LocalDateTime now = LocalDateTime.now();
+        final Pageable soonestFirst = byEffectiveDateEndAt(pageable, Direction.ASC);
+        return fields.isAll()
+            ? policiesRepository.findEndingBetween(now, now.plusDays(days), soonestFirst)
+            : projectedReads.findPage(Query.query(where("effectiveDateEndAt").gte(now).lte(now.plusDays(days))),
+                soonestFirst, Policy.class, fields);
+    }
+
+    /**
+     * Policies already expired, the latest first; only the ones expired since {@code since}
+     * when it is given.
+     */
+    public Page<Policy> findExpired(LocalDateTime since, Pageable pageable) {
+        return findExpired(since, pageable, Fieldset.ALL);
+    }
+
+    public Page<Policy> findExpired(LocalDateTime since, Pageable pageable, Fieldset fields) {
+        final LocalDateTime now = LocalDateTime.now();
+        final Pageable latestFirst = byEffectiveDateEndAt(pageable, Direction.DESC);
+        if (!fields.isAll()) {
+            final Criteria endedBefore = where("effectiveDateEndAt").lt(now);
+            return projectedReads.findPage(Query.query(since == null ? endedBefore : endedBefore.gte(since)),
+                latestFirst, Policy.class, fields);
+        }
+        return since == null
+            ? policiesRepository.findByEffectiveDateEndAtLessThan(now, latestFirst)
+            : policiesRepository.findEndedBetween(since, now, latestFirst);
+    }
+
+    private static Pageable byEffectiveDateEndAt(Pageable pageable, Direction direction) {
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+            Sort.by(direction, "effectiveDateEndAt", "id"));
+    }
+
+    /**
+     * Replaces the lazy client references of the given policies with the clients themselves,
+     * fetched with a single {@code $in} query instead of one lookup per policy.
+     */
+    public void expandClients(Collection<Policy> policies) {
+        final Set<String> clientIds = policies.stream()
+            .map(PoliciesService::clientIdOf)
+            .filter(Objects::nonNull)
+            .collect(toSet());
+        if (clientIds.isEmpty()) {
+            return;
+        }
+
+        final Map<String, Client> clients = new HashMap<>();
+        clientsRepository.findAllById(clientIds).forEach(client -> clients.put(client.getId(), client));
+        policies.forEach(policy -> policy.setClient(clients.get(clientIdOf(policy))));
+    }
+
+    /**
+     * Id of the policy client, read from the reference without loading the client.
+     */
+    public static String clientIdOf(Policy policy) {
+        final Client client = policy.getClient();
+        if (client instanceof LazyLoadingProxy) {
+            return ((LazyLoadingProxy) client).toDBRef().getId().toString();
+        }
+        return client == null ? null : client.getId();
+    }
+
+    /**
+     * Read through {@code policiesCache}; writes evict it through {@link br.com.asap.api.services.caching.EntityCacheInvalidator}.
+     */
     public Optional<Policy> findById(String id) {
-        return policiesRepository.findById(id);
+        return policiesCache.get(id, policiesRepository::findById);
+    }
+
+    /**
+     * A cached policy is returned whole, to be filtered when rendered; otherwise only
+     * {@code fields} are read.
+     */
+    public Optional<Policy> findById(String id, Fieldset fields) {
+        if (fields.isAll()) {
+            return findById(id);
+        }
+        final Optional<Policy> cached = policiesCache.peek(id);
+        return cached.isPresent()
+            ? cached
+            : projectedReads.findOne(Query.query(where("id").is(id)), Policy.class, fields);
     }
 
+    /**
+     * The unique index on {@code number} is the only check that the number is free: a taken
+     * number fails the insert, which is retried with a fresh one. With group commit on, each attempt
+     * waits to be written together with the creates of other requests.
+     */
     public Policy create(Policy policy) {
-        policy.setId(null);
-        return policiesRepository.save(policy);
+        final Policy attached = clientSnapshotService.attach(policy);
+        for (int attempt = 1; ; attempt++) {
+            attached.setId(null);
+            attached.setVersion(null);
+            try {
+                return policyInserts.isEnabled() ? policyInserts.insert(attached) : policiesRepository.save(attached);
+            } catch (DuplicateKeyException e) {
+                if (attempt == NUMBER_ATTEMPTS) {
+                    throw e;
+                }
+                attached.setNumber(generateNumber());
+            }
+        }
+    }
+
+    /**
+     * Inserts all policies with one unordered bulk write. Policies rejected by the unique index on
+     * {@code number} are inserted again with fresh numbers. Returns the positions in {@code policies}
+     * of those still rejected, in order; every other policy is stored.
+     */
+    public List<Integer> createAll(List<Policy> policies) {
+        if (policies.isEmpty()) {
+            return new ArrayList<>();
+        }
+        policies.forEach(policy -> {
+            policy.setId(new ObjectId().toHexString());
+            policy.setVersion(0L);
+        });
+        clientSnapshotService.attachAll(policies);
+
+        List<Integer> rejected = insertAll(policies);
+        for (int attempt = 1; attempt < NUMBER_ATTEMPTS && !rejected.isEmpty(); attempt++) {
+            final List<Policy> retried = new ArrayList<>(rejected.size());
+            rejected.forEach(position -> retried.add(policies.get(position).setNumber(generateNumber())));
+            final List<Integer> stillRejected = new ArrayList<>();
+            for (int retriedPosition : insertAll(retried)) {
+                stillRejected.add(rejected.get(retriedPosition));
+            }
+            rejected = stillRejected;
+        }
+        return rejected;
+    }
+
+    /**
+     * The ids among {@code ids} that are stored, read from the {@code _id} index alone; used to
+     * tell which policies of a failed {@link #createAll(List)} were written.
+     */
+    public Set<String> findStoredIds(Collection<String> ids) {
+        final Query query = Query.query(where("_id").in(ids));
+        query.fields().include("_id");
+        return mongoTemplate.find(query, Policy.class).stream()
+            .map(Policy::getId)
+            .collect(toSet());
     }
 
-    public Policy update(Policy policy) {
-        return policiesRepository.save(policy);
+    private List<Integer> insertAll(List<Policy> policies) {
+        try {
+            mongoTemplate.bulkOps(BulkMode.UNORDERED, Policy.class).insert(policies).execute();
+            return new ArrayList<>();
+        } catch (BulkOperationException e) {
+            final List<Integer> rejected = new ArrayList<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+                rejected.add(error.getIndex());
+            }
+            Collections.sort(rejected);
+            return rejected;
+        }
     }
 
+    /**
+     * Replaces the policy in one write, keeping its stored number; empty when it does not exist.
+     */
+    public Optional<Policy> update(Policy policy) {
+        return recordWriter.replace(clientSnapshotService.attach(policy), "number");
+    }
+
+    /**
+     * Resolves the number to an id through {@code policyNumbersCache}, then reads the policy by id,
+     * so both lookups share the cached policy. A policy loaded by number is cached by id as well.
+     */
     public Optional<Policy> findByNumber(Integer number) {
-        return policiesRepository.findByNumber(number);
+        return policyNumbersCache.get(number, n -> policiesRepository.findByNumber(n)
+            .map(policy -> {
+                policiesCache.put(policy.getId(), policy);
+                return policy.getId();
+            }))
+            .flatMap(this::findById);
+    }
+
+    public Optional<Policy> findByNumber(Integer number, Fieldset fields) {
+        if (fields.isAll()) {
+            return findByNumber(number);
+        }
+        final Optional<Policy> cached = policyNumbersCache.peek(number).flatMap(policiesCache::peek);
+        return cached.isPresent()
+            ? cached
+            : projectedReads.findOne(Query.query(where("number").is(number)), Policy.class, fields);
+    }
+
+    /**
+     * Version of the policy, always read from Mongo by a query that returns only the version
+     * fields: the cache is local to each node and may still hold a policy another node has
+     * since written. Such a stale copy is evicted.
+     */
+    public Optional<RecordVersion> findVersionById(String id) {
+        return findVersion(where("id").is(id));
+    }
+
+    public Optional<RecordVersion> findVersionByNumber(Integer number) {
+        return findVersion(where("number").is(number));
+    }
+
+    private Optional<RecordVersion> findVersion(Criteria criteria) {
+        final Policy stored = mongoTemplate.findOne(RecordVersion.query(criteria), Policy.class);
+        if (stored == null) {
+            return Optional.empty();
+        }
+        // a cached copy of another version was written through another node, and the full read
+        // that follows a changed version must not be answered from it
+        policiesCache.peek(stored.getId())
+            .filter(cached -> !Objects.equals(cached.getVersion(), stored.getVersion()))
+            .ifPresent(cached -> policiesCache.evict(stored.getId()));
+        return Optional.of(RecordVersion.of(stored));
     }
 
     public Integer generateNumber() {
-        final int number = faker.number().numberBetween(0, 100000);
-        Optional<Policy> byNumber;
-        do {
-            byNumber = policiesRepository.findByNumber(number);
-        } while(byNumber.isPresent());
-        return number;
+        return policyNumberAllocator.next();
     }
 
-    public void deleteById(String id) {
-        policiesRepository.deleteById(id);
+    public boolean deleteById(String id) {
+        return recordWriter.delete(Policy.class, id);
     }
 }
 
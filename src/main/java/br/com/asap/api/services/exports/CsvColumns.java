@@ -0,0 +1,58 @@
+package br.com.asap.api.services.exports;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The columns of a CSV export and how each one is read from a record. Fields are quoted as in
+ * RFC 4180 when they hold a separator, a quote or a line break.
+ */
+public class CsvColumns<T> {
+
+    private final List<String> headers = new ArrayList<>();
+    private final List<Function<T, Object>> values = new ArrayList<>();
+
+    public CsvColumns<T> add(String header, Function<T, Object> value) {
+        headers.add(header);
+        values.add(value);
+        return this;
+    }
+
+    public void writeHeader(Writer writer) throws IOException {
+        for (int i = 0; i < headers.size(); i++) {
+            writeField(writer, i, headers.get(i));
+        }
+        writer.write("\r\n");
+    }
+
+    public void writeRow(Writer writer, T record) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            writeField(writer, i, values.get(i).apply(record));
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeField(Writer writer, int index, Object value) throws IOException {
+        if (index > 0) {
+            writer.write(',');
+        }
+        if (value == null) {
+            return;
+        }
+        final String field = value instanceof LocalDateTime
+            ? ((LocalDateTime) value).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+            : value.toString();
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+            writer.write(field);
+            return;
+        }
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,115 @@
+package br.com.asap.api.services.exports;
+
+import br.com.asap.api.config.jackson.JsonViews;
+import br.com.asap.api.models.Client;
+import br.com.asap.api.models.EntityRecord;
+import br.com.asap.api.models.Policy;
+import br.com.asap.api.services.entities_services.PoliciesService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes whole collections as NDJSON or CSV straight from a Mongo cursor. Documents are read
+ * {@code batchSize} at a time and written out as they arrive, so memory stays bounded by one
+ * batch whatever the size of the collection.
+ */
+@Service
+public class RecordExporter {
+
+    private static final CsvColumns<Client> CLIENT_COLUMNS = new CsvColumns<Client>()
+        .add("id", Client::getId)
+        .add("version", Client::getVersion)
+        .add("updatedAt", Client::getUpdatedAt)
+        .add("name", Client::getName)
+        .add("cpf", Client::getCpf)
+        .add("city", Client::getCity)
+        .add("uf", Client::getUf);
+
+    private static final CsvColumns<Policy> POLICY_COLUMNS = new CsvColumns<Policy>()
+        .add("id", Policy::getId)
+        .add("version", Policy::getVersion)
+        .add("updatedAt", Policy::getUpdatedAt)
+        .add("number", Policy::getNumber)
+        .add("effectiveDateStartAt", Policy::getEffectiveDateStartAt)
+        .add("effectiveDateEndAt", Policy::getEffectiveDateEndAt)
+        .add("vehiclePlate", Policy::getVehiclePlate)
+        .add("clientId", PoliciesService::clientIdOf);
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter recordWriter;
+    private final int batchSize;
+
+    @Autowired
+    public RecordExporter(MongoTemplate mongoTemplate, ObjectMapper objectMapper,
+                          @Value("${asap.export.batch-size:1000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.recordWriter = objectMapper.writerWithView(JsonViews.Show.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.batchSize = batchSize;
+    }
+
+    public long exportClients(ExportFormat format, OutputStream output) throws IOException {
+        return export(Client.class, CLIENT_COLUMNS, format, output);
+    }
+
+    /**
+     * Policies are exported with their client id only; the lazy client references are not resolved.
+     */
+    public long exportPolicies(ExportFormat format, OutputStream output) throws IOException {
+        return export(Policy.class, POLICY_COLUMNS, format, output);
+    }
+
+    private <T extends EntityRecord> long export(Class<T> type, CsvColumns<T> columns, ExportFormat format,
+                                                 OutputStream output) throws IOException {
+        final Query query = new Query().cursorBatchSize(batchSize);
+        try (CloseableIterator<T> records = mongoTemplate.stream(query, type)) {
+            return format == ExportFormat.CSV
+                ? writeCsv(records, columns, output)
+                : writeNdjson(records, output);
+        }
+    }
+
+    private long writeNdjson(CloseableIterator<? extends EntityRecord> records, OutputStream output) throws IOException {
+        long written = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            // the lines are separated by the newlines below, not by Jackson's default space
+            generator.setRootValueSeparator(null);
+            while (records.hasNext()) {
+                recordWriter.writeValue(generator, records.next());
+                generator.writeRaw('\n');
+                written++;
+            }
+        }
+        return written;
+    }
+
+    private <T> long writeCsv(CloseableIterator<T> records, CsvColumns<T> columns, OutputStream output) throws IOException {
+        long written = 0;
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        columns.writeHeader(writer);
+        while (records.hasNext()) {
+            columns.writeRow(writer, records.next());
+            written++;
+        }
+        writer.flush();
+        return written;
+    }
+}
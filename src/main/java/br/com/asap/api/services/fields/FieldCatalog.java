@@ -0,0 +1,77 @@
+package br.com.asap.api.services.fields;
+
+import br.com.asap.api.models.Client;
+import br.com.asap.api.models.EntityRecord;
+import br.com.asap.api.models.Policy;
+import com.fasterxml.jackson.annotation.JsonFilter;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * The fields a record type renders, which a {@code fields} parameter may ask for, each with the
+ * stored field it is read or computed from. Every record renders {@code id}, {@code version} and
+ * {@code updatedAt}.
+ */
+public final class FieldCatalog {
+
+    public static final FieldCatalog CLIENTS = new FieldCatalog(Client.class)
+        .field("name")
+        .field("cpf")
+        .field("city")
+        .field("uf");
+
+    public static final FieldCatalog POLICIES = new FieldCatalog(Policy.class)
+        .field("number")
+        .field("effectiveDateStartAt")
+        .field("effectiveDateEndAt")
+        .field("vehiclePlate")
+        .field("client")
+        .field("clientSnapshot")
+        .field("expired", "effectiveDateEndAt")
+        .field("notExpired", "effectiveDateEndAt")
+        .field("daysToExpire", "effectiveDateEndAt")
+        .field("daysExpired", "effectiveDateEndAt");
+
+    private final String filterId;
+    private final Map<String, String> storedFields = new HashMap<>();
+
+    private FieldCatalog(Class<? extends EntityRecord> type) {
+        this.filterId = type.getAnnotation(JsonFilter.class).value();
+        field("id").field("version").field("updatedAt");
+    }
+
+    private FieldCatalog field(String name) {
+        return field(name, name);
+    }
+
+    private FieldCatalog field(String name, String storedField) {
+        storedFields.put(name, storedField);
+        return this;
+    }
+
+    /**
+     * The fieldset named by a {@code fields} parameter, a comma separated list of fields: every
+     * field when the parameter is null or blank, empty when it names a field this type does not render.
+     */
+    public Optional<Fieldset> parse(String fields) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return Optional.of(Fieldset.ALL);
+        }
+        final Set<String> rendered = new LinkedHashSet<>();
+        final Set<String> stored = new LinkedHashSet<>();
+        for (String name : fields.split(",")) {
+            final String field = name.trim();
+            final String storedField = storedFields.get(field);
+            if (storedField == null) {
+                return Optional.empty();
+            }
+            rendered.add(field);
+            stored.add(storedField);
+        }
+        return Optional.of(new Fieldset(filterId, rendered, stored));
+    }
+}
@@ -0,0 +1,72 @@
+package br.com.asap.api.services.fields;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.data.mongodb.core.query.Field;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The fields of a record a request asked for, from {@link FieldCatalog#parse}. They are read from
+ * Mongo as a projection and rendered through the Jackson filter of the record type, so the other
+ * fields are neither read nor serialized.
+ */
+public final class Fieldset {
+
+    public static final Fieldset ALL = new Fieldset(null, null, null);
+
+    private final String filterId;
+    private final Set<String> rendered;
+    private final Set<String> stored;
+
+    Fieldset(String filterId, Set<String> rendered, Set<String> stored) {
+        this.filterId = filterId;
+        this.rendered = rendered;
+        this.stored = stored;
+    }
+
+    public boolean isAll() {
+        return rendered == null;
+    }
+
+    /**
+     * Restricts {@code query} to the stored fields. {@code version} and {@code updatedAt} are
+     * always read, as the entity tag and last modified date of the response come from them.
+     */
+    public Query applyTo(Query query) {
+        if (!isAll()) {
+            final Field projection = query.fields().include("version").include("updatedAt");
+            stored.forEach(projection::include);
+        }
+        return query;
+    }
+
+    /**
+     * Short digest of the rendered fields, the same whatever order they were asked in, or null for
+     * every field. Tells the representations of a record apart in its entity tag.
+     */
+    public String digest() {
+        if (isAll()) {
+            return null;
+        }
+        return Integer.toHexString(String.join(",", new TreeSet<>(rendered)).hashCode());
+    }
+
+    /**
+     * {@code body} rendering only the requested fields of the record type; records of other
+     * types in it, such as an expanded client, are rendered whole.
+     */
+    public Object render(Object body) {
+        if (isAll()) {
+            return body;
+        }
+        final MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(new SimpleFilterProvider()
+            .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll())
+            .addFilter(filterId, SimpleBeanPropertyFilter.filterOutAllExcept(rendered)));
+        return value;
+    }
+}
@@ -0,0 +1,62 @@
+package br.com.asap.api.services.fields;
+
+import br.com.asap.api.models.EntityRecord;
+import br.com.asap.api.services.pagination.KeysetPage;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * The reads of the list and show endpoints restricted to a {@link Fieldset}. Records read this
+ * way are partial, so they are never cached.
+ */
+@Service
+public class ProjectedReads {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public ProjectedReads(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    public <T extends EntityRecord> Optional<T> findOne(Query query, Class<T> type, Fieldset fields) {
+        return Optional.ofNullable(mongoTemplate.findOne(fields.applyTo(query), type));
+    }
+
+    /**
+     * Same page as the repositories' paged finders: the count is only queried when the page
+     * does not tell the total on its own.
+     */
+    public <T extends EntityRecord> Page<T> findPage(Query query, Pageable pageable, Class<T> type, Fieldset fields) {
+        final List<T> content = mongoTemplate.find(fields.applyTo(Query.of(query).with(pageable)), type);
+        return PageableExecutionUtils.getPage(content, pageable,
+            () -> mongoTemplate.count(Query.of(query).limit(-1).skip(-1), type));
+    }
+
+    /**
+     * Same keyset page as {@code findAllBy}/{@code findByIdGreaterThan}: one record more than
+     * {@code size} is read to know whether there is a next page.
+     */
+    public <T extends EntityRecord> KeysetPage<T> findAfter(String id, int size, Class<T> type, Fieldset fields) {
+        final Query query = id == null ? new Query() : Query.query(where("id").gt(new ObjectId(id)));
+        query.with(Sort.by("id")).limit(size + 1);
+        final List<T> content = mongoTemplate.find(fields.applyTo(query), type);
+        final boolean hasNext = content.size() > size;
+        return KeysetPage.of(new SliceImpl<>(hasNext ? content.subList(0, size) : content,
+            PageRequest.of(0, size, Sort.by("id")), hasNext));
+    }
+}
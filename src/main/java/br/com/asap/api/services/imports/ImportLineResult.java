@@ -0,0 +1,32 @@
+package br.com.asap.api.services.imports;
+
+import br.com.asap.api.config.jackson.JsonViews;
+import com.fasterxml.jackson.annotation.JsonView;
+import org.springframework.validation.ObjectError;
+
+import java.util.List;
+
+/**
+ * A line of an import that was not stored, with the reasons.
+ */
+public class ImportLineResult {
+
+    @JsonView(JsonViews.Show.class)
+    private final long line;
+
+    @JsonView(JsonViews.Show.class)
+    private final List<ObjectError> errors;
+
+    public ImportLineResult(long line, List<ObjectError> errors) {
+        this.line = line;
+        this.errors = errors;
+    }
+
+    public long getLine() {
+        return line;
+    }
+
+    public List<ObjectError> getErrors() {
+        return errors;
+    }
+}
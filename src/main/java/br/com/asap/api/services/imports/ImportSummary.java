@@ -0,0 +1,29 @@
+package br.com.asap.api.services.imports;
+
+import br.com.asap.api.config.jackson.JsonViews;
+import com.fasterxml.jackson.annotation.JsonView;
+
+/**
+ * Totals of an import, written as its last line.
+ */
+public class ImportSummary {
+
+    @JsonView(JsonViews.Show.class)
+    private final long imported;
+
+    @JsonView(JsonViews.Show.class)
+    private final long rejected;
+
+    public ImportSummary(long imported, long rejected) {
+        this.imported = imported;
+        this.rejected = rejected;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+}
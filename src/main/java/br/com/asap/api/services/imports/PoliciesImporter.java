@@ -0,0 +1,278 @@
+package br.com.asap.api.services.imports;
+
+import br.com.asap.api.config.jackson.JsonViews;
+import br.com.asap.api.models.Policy;
+import br.com.asap.api.services.entities_services.PoliciesService;
+import br.com.asap.api.services.validators.PoliciesValidator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import org.springframework.validation.Validator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports policies from NDJSON, one policy per line.
+ *
+ * Lines are parsed as they arrive and grouped in chunks. Each chunk is validated with one
+ * client lookup and stored with one bulk write on the task executor, while the request thread
+ * keeps reading. At most {@code maxInFlight} chunks are pending, so memory stays bounded by
+ * {@code (maxInFlight + 1) * chunkSize} policies whatever the size of the input.
+ * Rejected lines are written to the output as they are known, followed by a summary line.
+ */
+@Service
+public class PoliciesImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(PoliciesImporter.class);
+
+    private final PoliciesService policiesService;
+    private final PoliciesValidator policiesValidator;
+    private final Validator validator;
+    private final ObjectReader policyReader;
+    private final ObjectWriter resultWriter;
+    private final TaskExecutor taskExecutor;
+    private final int chunkSize;
+    private final int maxInFlight;
+
+    @Autowired
+    public PoliciesImporter(PoliciesService policiesService, PoliciesValidator policiesValidator,
+                            Validator validator, ObjectMapper objectMapper, TaskExecutor taskExecutor,
+                            @Value("${asap.policies.import.chunk-size:500}") int chunkSize,
+                            @Value("${asap.policies.import.max-in-flight:4}") int maxInFlight) {
+        this.policiesService = policiesService;
+        this.policiesValidator = policiesValidator;
+        this.validator = validator;
+        this.policyReader = objectMapper.readerFor(Policy.class).withView(JsonViews.Create.class);
+        this.resultWriter = objectMapper.writerWithView(JsonViews.Show.class);
+        this.taskExecutor = taskExecutor;
+        this.chunkSize = chunkSize;
+        this.maxInFlight = maxInFlight;
+    }
+
+    public ImportSummary importFrom(InputStream input, OutputStream output) throws IOException {
+        final Import run = new Import(output);
+        final BufferedReader lines = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+
+        try {
+            List<ImportLine> chunk = new ArrayList<>(chunkSize);
+            long lineNumber = 0;
+            String line;
+            // lines are split before they are parsed: a MappingIterator over the whole input
+            // cannot resume after a malformed line, and every line after it must still be read
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    chunk.add(new ImportLine(lineNumber, policyReader.readValue(line)));
+                } catch (JsonProcessingException e) {
+                    run.reject(lineNumber, new ObjectError("policy", new String[]{"invalid_json"}, null, "JSON inválido"));
+                }
+                if (chunk.size() == chunkSize) {
+                    run.submit(chunk);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                run.submit(chunk);
+            }
+        } finally {
+            run.awaitPending();
+        }
+
+        final ImportSummary summary = new ImportSummary(run.imported.get(), run.rejected.get());
+        run.write(summary);
+        return summary;
+    }
+
+    private void process(List<ImportLine> chunk, Import run) {
+        final List<Policy> policies = new ArrayList<>(chunk.size());
+        final List<BeanPropertyBindingResult> errors = new ArrayList<>(chunk.size());
+        for (ImportLine line : chunk) {
+            final Policy policy = line.policy;
+            policy.setId(null);
+            policies.add(policy);
+            errors.add(validateAllButNumber(policy));
+        }
+        policiesValidator.validateBatch(policies, errors);
+
+        // only lines that passed validation take a number
+        final List<Policy> valid = new ArrayList<>(policies.size());
+        final List<Integer> validPositions = new ArrayList<>(policies.size());
+        for (int i = 0; i < policies.size(); i++) {
+            if (!errors.get(i).hasErrors()) {
+                valid.add(policies.get(i).setNumber(policiesService.generateNumber()));
+                validPositions.add(i);
+            }
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            if (errors.get(i).hasErrors()) {
+                run.reject(chunk.get(i), errors.get(i).getAllErrors());
+            }
+        }
+
+        for (int rejected : policiesService.createAll(valid)) {
+            errors.get(validPositions.get(rejected))
+                .reject("number_already_exists", "Número da apólice já existe");
+        }
+        for (int position : validPositions) {
+            if (errors.get(position).hasErrors()) {
+                run.reject(chunk.get(position), errors.get(position).getAllErrors());
+            } else {
+                run.imported(chunk.get(position));
+            }
+        }
+    }
+
+    /**
+     * After {@link #process} failed, reports the lines of the chunk it had not reported yet:
+     * imported when the policy was stored before the failure ({@code createAll} gives each policy
+     * its id before writing), rejected otherwise.
+     */
+    private void fail(List<ImportLine> chunk, Import run) {
+        final List<ImportLine> pending = new ArrayList<>(chunk.size());
+        final List<String> ids = new ArrayList<>(chunk.size());
+        for (ImportLine line : chunk) {
+            if (!line.reported) {
+                pending.add(line);
+                if (line.policy.getId() != null) {
+                    ids.add(line.policy.getId());
+                }
+            }
+        }
+        Set<String> stored = Collections.emptySet();
+        if (!ids.isEmpty()) {
+            try {
+                stored = policiesService.findStoredIds(ids);
+            } catch (RuntimeException e) {
+                log.error("Could not check which policies of a failed import chunk were stored", e);
+            }
+        }
+
+        final ObjectError error = new ObjectError("policy", new String[]{"import_failed"}, null,
+            "Falha ao gravar a apólice");
+        for (ImportLine line : pending) {
+            if (stored.contains(line.policy.getId())) {
+                run.imported(line);
+            } else {
+                run.reject(line, Collections.singletonList(error));
+            }
+        }
+    }
+
+    /**
+     * Bean constraints, except on the number, which is assigned once the line is known to be valid.
+     */
+    private BeanPropertyBindingResult validateAllButNumber(Policy policy) {
+        final BeanPropertyBindingResult constraints = new BeanPropertyBindingResult(policy, "policy");
+        validator.validate(policy, constraints);
+        final BeanPropertyBindingResult policyErrors = new BeanPropertyBindingResult(policy, "policy");
+        for (ObjectError error : constraints.getAllErrors()) {
+            if (!(error instanceof FieldError && "number".equals(((FieldError) error).getField()))) {
+                policyErrors.addError(error);
+            }
+        }
+        return policyErrors;
+    }
+
+    private static final class ImportLine {
+
+        final long number;
+        final Policy policy;
+        boolean reported;
+
+        ImportLine(long number, Policy policy) {
+            this.number = number;
+            this.policy = policy;
+        }
+    }
+
+    private final class Import {
+
+        final OutputStream output;
+        final Semaphore inFlight = new Semaphore(maxInFlight);
+        final AtomicLong imported = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+
+        Import(OutputStream output) {
+            this.output = output;
+        }
+
+        void submit(List<ImportLine> chunk) {
+            inFlight.acquireUninterruptibly();
+            try {
+                taskExecutor.execute(() -> {
+                    try {
+                        process(chunk, this);
+                    } catch (RuntimeException e) {
+                        log.error("Policy import chunk failed", e);
+                        fail(chunk, this);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+
+        void awaitPending() {
+            inFlight.acquireUninterruptibly(maxInFlight);
+            inFlight.release(maxInFlight);
+        }
+
+        void reject(long line, ObjectError error) {
+            rejected.incrementAndGet();
+            write(new ImportLineResult(line, Collections.singletonList(error)));
+        }
+
+        /**
+         * Each line of a chunk is reported once, as imported or rejected, even when the chunk
+         * fails after some of its lines were.
+         */
+        void reject(ImportLine line, List<ObjectError> errors) {
+            line.reported = true;
+            rejected.incrementAndGet();
+            write(new ImportLineResult(line.number, errors));
+        }
+
+        void imported(ImportLine line) {
+            line.reported = true;
+            imported.incrementAndGet();
+        }
+
+        synchronized void write(Object result) {
+            try {
+                output.write(resultWriter.writeValueAsBytes(result));
+                output.write('\n');
+                output.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.asap.api.services.pagination;
+
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque token for the {@code ?after=} list mode. It wraps the {@code _id} of the last
+ * document of a page; an empty token starts from the beginning of the collection.
+ */
+public final class KeysetCursor {
+
+    private KeysetCursor() {
+    }
+
+    public static String encode(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        return new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+    }
+
+    public static boolean isValid(String token) {
+        try {
+            final String id = decode(token);
+            return id == null || ObjectId.isValid(id);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package br.com.asap.api.services.pagination;
+
+import br.com.asap.api.models.EntityRecord;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+public class KeysetPage<T> {
+
+    private final List<T> content;
+    private final int size;
+    private final String next;
+
+    public KeysetPage(List<T> content, int size, String next) {
+        this.content = content;
+        this.size = size;
+        this.next = next;
+    }
+
+    public static <T extends EntityRecord> KeysetPage<T> of(Slice<T> slice) {
+        final List<T> content = slice.getContent();
+        final String next = slice.hasNext() && !content.isEmpty()
+            ? KeysetCursor.encode(content.get(content.size() - 1).getId())
+            : null;
+        return new KeysetPage<>(content, slice.getSize(), next);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public String getNext() {
+        return next;
+    }
+
+    public boolean isLast() {
+        return next == null;
+    }
+}
@@ -0,0 +1,63 @@
+package br.com.asap.api.services.reactive;
+
+import br.com.asap.api.models.Client;
+import br.com.asap.api.services.pagination.KeysetPage;
+import br.com.asap.api.services.repositories.reactive.ReactiveClientsRepository;
+import br.com.asap.api.services.snapshots.ClientSnapshotService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link br.com.asap.api.services.entities_services.ClientsService}
+ * for the {@code reactive} profile.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveClientsService {
+
+    private final ReactiveClientsRepository clientsRepository;
+    private final ClientSnapshotService clientSnapshotService;
+    private final ReactiveRecordWriter recordWriter;
+
+    @Autowired
+    public ReactiveClientsService(ReactiveClientsRepository clientsRepository,
+                                  ClientSnapshotService clientSnapshotService,
+                                  ReactiveRecordWriter recordWriter) {
+        this.clientsRepository = clientsRepository;
+        this.clientSnapshotService = clientSnapshotService;
+        this.recordWriter = recordWriter;
+    }
+
+    public Mono<Client> create(Client client) {
+        client.setId(null);
+        client.setVersion(null);
+        return clientsRepository.save(client);
+    }
+
+    public Mono<Client> update(Client client) {
+        return recordWriter.replace(client)
+            .doOnNext(clientSnapshotService::sync);
+    }
+
+    public Mono<Client> findById(String id) {
+        return clientsRepository.findById(id);
+    }
+
+    public Mono<Page<Client>> findAll(Pageable pageable) {
+        return clientsRepository.findAllBy(pageable).collectList()
+            .zipWith(clientsRepository.count(), (content, total) -> new PageImpl<>(content, pageable, total));
+    }
+
+    public Mono<KeysetPage<Client>> findAfter(String id, int size) {
+        return ReactiveKeysets.page(id, size, clientsRepository);
+    }
+
+    public Mono<Boolean> deleteById(String id) {
+        return recordWriter.delete(Client.class, id);
+    }
+}
@@ -0,0 +1,35 @@
+package br.com.asap.api.services.reactive;
+
+import br.com.asap.api.models.EntityRecord;
+import br.com.asap.api.services.pagination.KeysetPage;
+import br.com.asap.api.services.repositories.reactive.ReactiveRecordRepository;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.SliceImpl;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+final class ReactiveKeysets {
+
+    private ReactiveKeysets() {
+    }
+
+    /**
+     * Reads one element past the page to know whether there is a next one, as a Slice query does.
+     */
+    static <T extends EntityRecord> Mono<KeysetPage<T>> page(String id, int size, ReactiveRecordRepository<T> repository) {
+        final Pageable lookahead = PageRequest.of(0, size + 1, Sort.by("id"));
+        final Flux<T> records = id == null
+            ? repository.findAllBy(lookahead)
+            : repository.findByIdGreaterThan(new ObjectId(id), lookahead);
+        return records.collectList().map(content -> {
+            final boolean hasNext = content.size() > size;
+            final List<T> page = hasNext ? content.subList(0, size) : content;
+            return KeysetPage.of(new SliceImpl<>(page, PageRequest.of(0, size, Sort.by("id")), hasNext));
+        });
+    }
+}
@@ -0,0 +1,108 @@
+package br.com.asap.api.services.reactive;
+
+import br.com.asap.api.models.ClientSnapshot;
+import br.com.asap.api.models.Policy;
+import br.com.asap.api.services.entities_services.PoliciesService;
+import br.com.asap.api.services.pagination.KeysetPage;
+import br.com.asap.api.services.repositories.reactive.ReactiveClientsRepository;
+import br.com.asap.api.services.repositories.reactive.ReactivePoliciesRepository;
+import br.com.asap.api.services.sequences.PolicyNumberAllocator;
+import br.com.asap.api.services.snapshots.ClientSnapshotService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking counterpart of {@link br.com.asap.api.services.entities_services.PoliciesService}
+ * for the {@code reactive} profile.
+ */
+@Service
+@Profile("reactive")
+public class ReactivePoliciesService {
+
+    private final ReactivePoliciesRepository policiesRepository;
+    private final ReactiveClientsRepository clientsRepository;
+    private final PolicyNumberAllocator policyNumberAllocator;
+    private final ClientSnapshotService clientSnapshotService;
+    private final ReactiveRecordWriter recordWriter;
+
+    @Autowired
+    public ReactivePoliciesService(ReactivePoliciesRepository policiesRepository,
+                                   ReactiveClientsRepository clientsRepository,
+                                   PolicyNumberAllocator policyNumberAllocator,
+                                   ClientSnapshotService clientSnapshotService,
+                                   ReactiveRecordWriter recordWriter) {
+        this.policiesRepository = policiesRepository;
+        this.clientsRepository = clientsRepository;
+        this.policyNumberAllocator = policyNumberAllocator;
+        this.clientSnapshotService = clientSnapshotService;
+        this.recordWriter = recordWriter;
+    }
+
+    public Mono<Page<Policy>> findAll(Pageable pageable) {
+        return policiesRepository.findAllBy(pageable).collectList()
+            .zipWith(policiesRepository.count(), (content, total) -> new PageImpl<>(content, pageable, total));
+    }
+
+    public Mono<KeysetPage<Policy>> findAfter(String id, int size) {
+        return ReactiveKeysets.page(id, size, policiesRepository);
+    }
+
+    public Mono<Policy> findById(String id) {
+        return policiesRepository.findPolicyById(id);
+    }
+
+    public Mono<Policy> findByNumber(Integer number) {
+        return policiesRepository.findByNumber(number);
+    }
+
+    public Mono<Policy> create(Policy policy) {
+        return attachSnapshot(policy).flatMap(attached -> insert(attached, PoliciesService.NUMBER_ATTEMPTS));
+    }
+
+    /**
+     * A number taken in the unique index fails the insert, which is retried with a fresh number.
+     */
+    private Mono<Policy> insert(Policy policy, int attempts) {
+        policy.setId(null);
+        policy.setVersion(null);
+        return policiesRepository.save(policy)
+            .onErrorResume(DuplicateKeyException.class, e -> attempts > 1
+                ? generateNumber().flatMap(number -> insert(policy.setNumber(number), attempts - 1))
+                : Mono.error(e));
+    }
+
+    /**
+     * Replaces the policy in one write, keeping its stored number; empty when it does not exist.
+     */
+    public Mono<Policy> update(Policy policy) {
+        return attachSnapshot(policy).flatMap(attached -> recordWriter.replace(attached, "number"));
+    }
+
+    /**
+     * Numbers come from leased blocks, so this only blocks, on a worker thread, once per block.
+     */
+    public Mono<Integer> generateNumber() {
+        return Mono.fromCallable(policyNumberAllocator::next)
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<Boolean> deleteById(String id) {
+        return recordWriter.delete(Policy.class, id);
+    }
+
+    private Mono<Policy> attachSnapshot(Policy policy) {
+        if (!clientSnapshotService.isEnabled() || policy.getClient() == null || policy.getClient().getId() == null) {
+            return Mono.just(policy);
+        }
+        return clientsRepository.findById(policy.getClient().getId())
+            .map(client -> policy.setClientSnapshot(ClientSnapshot.of(client)))
+            .defaultIfEmpty(policy);
+    }
+}
@@ -0,0 +1,42 @@
+package br.com.asap.api.services.reactive;
+
+import br.com.asap.api.models.Policy;
+import br.com.asap.api.services.repositories.reactive.ReactiveClientsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.Errors;
+import reactor.core.publisher.Mono;
+
+/**
+ * Same rules as {@link br.com.asap.api.services.validators.PoliciesValidator}, emitting the errors
+ * once the lookups complete.
+ */
+@Service
+@Profile("reactive")
+public class ReactivePoliciesValidator {
+
+    private final ReactiveClientsRepository clientsRepository;
+
+    @Autowired
+    public ReactivePoliciesValidator(ReactiveClientsRepository clientsRepository) {
+        this.clientsRepository = clientsRepository;
+    }
+
+    public Mono<Errors> validate(Policy policy, Errors errors) {
+        if (policy.getClient() == null) {
+            return Mono.just(errors);
+        }
+        if (policy.getClient().getId() == null) {
+            errors.rejectValue("client.id", "client_id_is_required", "Id do Cliente é obrigatório");
+            return Mono.just(errors);
+        }
+        return clientsRepository.existsById(policy.getClient().getId())
+            .map(exists -> {
+                if (!exists) {
+                    errors.rejectValue("client", "client_not_found", "Cliente não encontrado");
+                }
+                return errors;
+            });
+    }
+}
@@ -0,0 +1,70 @@
+package br.com.asap.api.services.reactive;
+
+import br.com.asap.api.models.EntityRecord;
+import br.com.asap.api.services.writes.RecordUpdates;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mapping.SimpleAssociationHandler;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Non-blocking counterpart of {@link br.com.asap.api.services.writes.RecordWriter}. References
+ * are left out of the returned records, as the reactive driver cannot resolve them.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveRecordWriter {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public ReactiveRecordWriter(ReactiveMongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends EntityRecord> Mono<T> replace(T record, String... keptFields) {
+        final Class<T> type = (Class<T>) record.getClass();
+        final String collection = mongoTemplate.getCollectionName(type);
+        final Update update = RecordUpdates.replacing(record, mongoTemplate.getConverter(), keptFields);
+        final Query query = RecordUpdates.matching(record);
+        mongoTemplate.getConverter().getMappingContext().getRequiredPersistentEntity(type)
+            .doWithAssociations((SimpleAssociationHandler) association ->
+                query.fields().exclude(association.getInverse().getName()));
+
+        return Mono.defer(() -> {
+            eventPublisher.publishEvent(new BeforeSaveEvent<>(record, update.getUpdateObject(), collection));
+            return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), type);
+        })
+            .doOnNext(saved -> eventPublisher.publishEvent(new AfterSaveEvent<>(saved, new Document(), collection)))
+            .switchIfEmpty(Mono.defer(() -> record.getVersion() == null
+                ? Mono.empty()
+                : mongoTemplate.exists(byId(record.getId()), type)
+                    .flatMap(exists -> exists
+                        ? Mono.error(new OptimisticLockingFailureException(String.format(
+                            "Version %d of %s %s is no longer current", record.getVersion(), collection, record.getId())))
+                        : Mono.empty())));
+    }
+
+    public Mono<Boolean> delete(Class<? extends EntityRecord> type, String id) {
+        return mongoTemplate.remove(byId(id), type).map(result -> result.getDeletedCount() > 0);
+    }
+
+    private static Query byId(String id) {
+        return Query.query(where("id").is(id));
+    }
+}
@@ -0,0 +1,113 @@
+package br.com.asap.api.services.repositories;
+
+import br.com.asap.api.models.Client;
+import br.com.asap.api.models.cpf.Cpfs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.data.util.Pair;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Writes the packed {@code cpfNumber} of clients stored without it, before it existed or by other
+ * tools, at start up, so the unique index on it covers them. Runs after {@link MongoIndexes}, so
+ * that index is in place and a cpf stored twice fails the backfill, and with it the start up,
+ * instead of leaving the duplicates outside the index.
+ *
+ * The retired unique index on the cpf string is kept until the backfill has succeeded and
+ * {@code asap.indexes.drop-retired} is set, which should wait until no node running an older
+ * version, still writing clients without {@code cpfNumber}, is left.
+ */
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class CpfNumberBackfill implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CpfNumberBackfill.class);
+    private static final int BATCH = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoIndexes mongoIndexes;
+    private final boolean dropRetired;
+
+    @Autowired
+    public CpfNumberBackfill(MongoTemplate mongoTemplate, MongoIndexes mongoIndexes,
+                             @Value("${asap.indexes.drop-retired:false}") boolean dropRetired) {
+        this.mongoTemplate = mongoTemplate;
+        this.mongoIndexes = mongoIndexes;
+        this.dropRetired = dropRetired;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        final long startedAt = System.currentTimeMillis();
+        final long backfilled = backfill();
+        log.info("{} packed cpfs backfilled in {} ms", backfilled, System.currentTimeMillis() - startedAt);
+
+        if (dropRetired) {
+            final boolean indexed = mongoTemplate.indexOps(Client.class).getIndexInfo().stream()
+                .anyMatch(index -> index.isUnique() && index.isIndexForFields(Collections.singleton("cpfNumber")));
+            if (!indexed) {
+                throw new IllegalStateException("The unique index on clients.cpfNumber is missing, "
+                    + "the retired cpf index is kept");
+            }
+            mongoIndexes.dropRetired();
+        }
+    }
+
+    /**
+     * Reads the clients missing the packed cpf and writes it in unordered bulks. Returns how many
+     * clients were updated.
+     */
+    public long backfill() {
+        final Query query = Query.query(where("cpfNumber").exists(false));
+        query.fields().include("cpf");
+        final List<Pair<Query, Update>> updates = new ArrayList<>();
+        long backfilled = 0;
+        try (CloseableIterator<Client> clients = mongoTemplate.stream(query, Client.class)) {
+            while (clients.hasNext()) {
+                final Client client = clients.next();
+                final long cpfNumber = Cpfs.pack(client.getCpf());
+                if (cpfNumber != Cpfs.INVALID) {
+                    updates.add(Pair.of(Query.query(where("id").is(client.getId())),
+                        new Update().set("cpfNumber", cpfNumber)));
+                }
+                if (updates.size() == BATCH) {
+                    backfilled += write(updates);
+                }
+            }
+        }
+        return updates.isEmpty() ? backfilled : backfilled + write(updates);
+    }
+
+    /**
+     * Fails when any client of the batch could not be updated, e.g. a cpf stored twice, after the
+     * others of the batch are written.
+     */
+    private int write(List<Pair<Query, Update>> updates) {
+        try {
+            return mongoTemplate.bulkOps(BulkMode.UNORDERED, Client.class).updateOne(updates).execute().getModifiedCount();
+        } catch (DataAccessException e) {
+            throw new IllegalStateException("Could not backfill the packed cpf of all " + updates.size()
+                + " clients of a batch, fix the stored cpfs and start again", e);
+        } finally {
+            updates.clear();
+        }
+    }
+}
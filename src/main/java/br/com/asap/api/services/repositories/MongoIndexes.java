@@ -0,0 +1,90 @@
+package br.com.asap.api.services.repositories;
+
+import br.com.asap.api.models.Client;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the indexes declared on the documents ({@code @Indexed}, {@code @CompoundIndex}) at
+ * start up, as Spring Data no longer does it by default. Writes rely on them: the unique cpf and
+ * number indexes are what reject duplicates on single-write updates and bulk inserts.
+ */
+@Service
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MongoIndexes implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexes.class);
+
+    /**
+     * Indexes no longer declared, dropped by {@link #dropRetired()}: the unique index on the cpf
+     * string gave way to the one on the packed {@code cpfNumber}.
+     */
+    private static final Map<Class<?>, List<String>> RETIRED =
+        Collections.singletonMap(Client.class, Collections.singletonList("cpf"));
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public MongoIndexes(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        ensure();
+    }
+
+    public void ensure() {
+        final MongoMappingContext mappingContext = (MongoMappingContext) mongoTemplate.getConverter().getMappingContext();
+        final IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(Document.class)) {
+                continue;
+            }
+            final IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+            resolver.resolveIndexFor(entity.getTypeInformation()).forEach(index -> {
+                try {
+                    indexOps.ensureIndex(index);
+                } catch (DataAccessException e) {
+                    log.error("Could not create index {} on {}", index.getIndexKeys().toJson(),
+                        entity.getCollection(), e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops the retired indexes still present. Only safe once every document is covered by the
+     * index that replaced them, see {@link CpfNumberBackfill}.
+     */
+    public void dropRetired() {
+        RETIRED.forEach((type, names) -> {
+            final IndexOperations indexOps = mongoTemplate.indexOps(type);
+            indexOps.getIndexInfo().stream()
+                .filter(index -> names.contains(index.getName()))
+                .forEach(index -> {
+                    log.info("Dropping retired index {} on {}", index.getName(), mongoTemplate.getCollectionName(type));
+                    indexOps.dropIndex(index.getName());
+                });
+        });
+    }
+}
@@ -1,9 +1,22 @@
 package br.com.asap.api.services.repositories;
 
 import br.com.asap.api.models.Policy;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface PoliciesRepository extends RecordRepository<Policy>{
     Optional<Policy> findByNumber(Integer number);
+    Optional<Policy> findFirstByOrderByNumberDesc();
+
+    @Query("{ 'effectiveDateEndAt' : { '$gte' : ?0, '$lte' : ?1 } }")
+    Page<Policy> findEndingBetween(LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    @Query("{ 'effectiveDateEndAt' : { '$gte' : ?0, '$lt' : ?1 } }")
+    Page<Policy> findEndedBetween(LocalDateTime from, LocalDateTime before, Pageable pageable);
+
+    Page<Policy> findByEffectiveDateEndAtLessThan(LocalDateTime before, Pageable pageable);
 }
@@ -1,7 +1,12 @@
 package br.com.asap.api.services.repositories;
 
 import br.com.asap.api.models.EntityRecord;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 public interface RecordRepository<T extends EntityRecord> extends MongoRepository<T, String> {
+    Slice<T> findAllBy(Pageable pageable);
+    Slice<T> findByIdGreaterThan(ObjectId id, Pageable pageable);
 }
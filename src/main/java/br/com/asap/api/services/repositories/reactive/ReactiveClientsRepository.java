@@ -0,0 +1,6 @@
+package br.com.asap.api.services.repositories.reactive;
+
+import br.com.asap.api.models.Client;
+
+public interface ReactiveClientsRepository extends ReactiveRecordRepository<Client> {
+}
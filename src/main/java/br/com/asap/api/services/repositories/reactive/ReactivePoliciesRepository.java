@@ -0,0 +1,29 @@
+package br.com.asap.api.services.repositories.reactive;
+
+import br.com.asap.api.models.Policy;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The reactive driver cannot resolve {@code @DBRef}s, so policies are read without their
+ * {@code client} reference; none of the views served reactively renders it.
+ */
+public interface ReactivePoliciesRepository extends ReactiveRecordRepository<Policy> {
+
+    @Query(fields = "{ 'client' : 0 }")
+    Mono<Policy> findPolicyById(String id);
+
+    @Query(fields = "{ 'client' : 0 }")
+    Mono<Policy> findByNumber(Integer number);
+
+    @Override
+    @Query(fields = "{ 'client' : 0 }")
+    Flux<Policy> findAllBy(Pageable pageable);
+
+    @Override
+    @Query(fields = "{ 'client' : 0 }")
+    Flux<Policy> findByIdGreaterThan(ObjectId id, Pageable pageable);
+}
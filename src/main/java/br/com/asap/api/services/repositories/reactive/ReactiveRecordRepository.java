@@ -0,0 +1,14 @@
+package br.com.asap.api.services.repositories.reactive;
+
+import br.com.asap.api.models.EntityRecord;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import reactor.core.publisher.Flux;
+
+@NoRepositoryBean
+public interface ReactiveRecordRepository<T extends EntityRecord> extends ReactiveMongoRepository<T, String> {
+    Flux<T> findAllBy(Pageable pageable);
+    Flux<T> findByIdGreaterThan(ObjectId id, Pageable pageable);
+}
@@ -0,0 +1,118 @@
+package br.com.asap.api.services.sequences;
+
+import br.com.asap.api.models.Counter;
+import br.com.asap.api.models.Policy;
+import br.com.asap.api.services.repositories.PoliciesRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.springframework.data.mongodb.core.FindAndModifyOptions.options;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Hands out policy numbers from blocks leased on the {@code counters} collection.
+ *
+ * Each lease is a single atomic {@code findAndModify} that moves the shared counter forward
+ * by {@code blockSize}, so several app nodes never receive overlapping blocks. Numbers inside
+ * the current block are taken with a lock-free increment; only the thread that finds the
+ * block exhausted goes back to Mongo.
+ */
+@Service
+public class PolicyNumberAllocator {
+
+    static final String COUNTER_ID = "policies.number";
+
+    private final MongoTemplate mongoTemplate;
+    private final PoliciesRepository policiesRepository;
+    private final int blockSize;
+
+    private final AtomicReference<Block> current = new AtomicReference<>(Block.EMPTY);
+
+    private boolean seeded;
+
+    @Autowired
+    public PolicyNumberAllocator(MongoTemplate mongoTemplate, PoliciesRepository policiesRepository,
+                                 @Value("${asap.policies.number-block-size:100}") int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("asap.policies.number-block-size must be positive");
+        }
+        this.mongoTemplate = mongoTemplate;
+        this.policiesRepository = policiesRepository;
+        this.blockSize = blockSize;
+    }
+
+    public Integer next() {
+        while (true) {
+            final Block block = current.get();
+            final long number = block.next.getAndIncrement();
+            if (number < block.end) {
+                return Math.toIntExact(number);
+            }
+            renew(block);
+        }
+    }
+
+    private synchronized void renew(Block exhausted) {
+        if (current.get() == exhausted) {
+            current.set(lease());
+        }
+    }
+
+    /**
+     * Called under the {@link #renew(Block)} lock. The counter is checked for only on the first
+     * lease; every later lease is the {@code findAndModify} alone.
+     */
+    private Block lease() {
+        final Query counterQuery = Query.query(where("_id").is(COUNTER_ID));
+        if (!seeded) {
+            if (!mongoTemplate.exists(counterQuery, Counter.class)) {
+                seed();
+            }
+            seeded = true;
+        }
+
+        final Counter counter = mongoTemplate.findAndModify(counterQuery,
+            new Update().inc("seq", blockSize),
+            options().returnNew(true).upsert(true),
+            Counter.class);
+
+        final long last = counter.getSeq();
+        return new Block(last - blockSize + 1, last + 1);
+    }
+
+    /**
+     * Starts the counter after the highest number already stored, so policies created
+     * before the counter existed are never handed out again.
+     */
+    private void seed() {
+        final long highest = policiesRepository.findFirstByOrderByNumberDesc()
+            .map(Policy::getNumber)
+            .orElse(0);
+        try {
+            mongoTemplate.insert(new Counter().setId(COUNTER_ID).setSeq(highest));
+        } catch (DuplicateKeyException e) {
+            // another node seeded it first
+        }
+    }
+
+    private static final class Block {
+
+        static final Block EMPTY = new Block(0, 0);
+
+        final AtomicLong next;
+        final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
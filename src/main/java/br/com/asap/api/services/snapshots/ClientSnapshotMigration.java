@@ -0,0 +1,35 @@
+package br.com.asap.api.services.snapshots;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the client snapshot of existing policies on startup. Enable it once, together with
+ * {@code asap.policies.client-snapshot.enabled}, with
+ * {@code asap.policies.client-snapshot.migrate-on-startup=true}.
+ */
+@Component
+@ConditionalOnProperty({"asap.policies.client-snapshot.enabled", "asap.policies.client-snapshot.migrate-on-startup"})
+public class ClientSnapshotMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientSnapshotMigration.class);
+
+    private final ClientSnapshotService clientSnapshotService;
+
+    @Autowired
+    public ClientSnapshotMigration(ClientSnapshotService clientSnapshotService) {
+        this.clientSnapshotService = clientSnapshotService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Migrating policy client snapshots");
+        final long modified = clientSnapshotService.migrate();
+        log.info("Client snapshots written on {} policies", modified);
+    }
+}
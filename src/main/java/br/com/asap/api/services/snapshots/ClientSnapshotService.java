@@ -0,0 +1,150 @@
+package br.com.asap.api.services.snapshots;
+
+import br.com.asap.api.models.Client;
+import br.com.asap.api.models.ClientSnapshot;
+import br.com.asap.api.models.Policy;
+import br.com.asap.api.services.caching.ReadThroughCache;
+import br.com.asap.api.services.repositories.ClientsRepository;
+import br.com.asap.api.services.writes.RecordUpdates;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.CloseableIterator;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Keeps the {@link ClientSnapshot} embedded in policies when
+ * {@code asap.policies.client-snapshot.enabled} is set. Policies get their snapshot when
+ * written, and a client update rewrites the snapshots of all its policies in the background.
+ */
+@Service
+public class ClientSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientSnapshotService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ClientsRepository clientsRepository;
+    private final TaskExecutor taskExecutor;
+    private final ReadThroughCache<String, Client> clientsCache;
+    private final ReadThroughCache<String, Policy> policiesCache;
+    private final boolean enabled;
+
+    @Autowired
+    public ClientSnapshotService(MongoTemplate mongoTemplate, ClientsRepository clientsRepository,
+                                 TaskExecutor taskExecutor, ReadThroughCache<String, Client> clientsCache,
+                                 ReadThroughCache<String, Policy> policiesCache,
+                                 @Value("${asap.policies.client-snapshot.enabled:false}") boolean enabled) {
+        this.mongoTemplate = mongoTemplate;
+        this.clientsRepository = clientsRepository;
+        this.taskExecutor = taskExecutor;
+        this.clientsCache = clientsCache;
+        this.policiesCache = policiesCache;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reads the client through {@code clientsCache}, as {@code ClientsService.findById} does, so the
+     * lookup made by the validator just before leaves nothing to read here.
+     */
+    public Policy attach(Policy policy) {
+        if (enabled && policy.getClient() != null && policy.getClient().getId() != null) {
+            clientsCache.get(policy.getClient().getId(), clientsRepository::findById)
+                .map(ClientSnapshot::of)
+                .ifPresent(policy::setClientSnapshot);
+        }
+        return policy;
+    }
+
+    /**
+     * Attaches snapshots to a batch of policies, reading all their clients with one query.
+     */
+    public void attachAll(List<Policy> policies) {
+        if (!enabled) {
+            return;
+        }
+        final Set<String> clientIds = new HashSet<>();
+        policies.forEach(policy -> {
+            if (policy.getClient() != null && policy.getClient().getId() != null) {
+                clientIds.add(policy.getClient().getId());
+            }
+        });
+
+        final Map<String, ClientSnapshot> snapshots = new HashMap<>();
+        clientsRepository.findAllById(clientIds).forEach(client -> snapshots.put(client.getId(), ClientSnapshot.of(client)));
+        policies.forEach(policy -> {
+            if (policy.getClient() != null) {
+                policy.setClientSnapshot(snapshots.get(policy.getClient().getId()));
+            }
+        });
+    }
+
+    public void sync(Client client) {
+        if (enabled) {
+            taskExecutor.execute(() -> {
+                final long modified = refresh(client);
+                log.debug("Refreshed client {} snapshot on {} policies", client.getId(), modified);
+            });
+        }
+    }
+
+    /**
+     * Writes the snapshot of every stored client into its policies, one update per client.
+     * Used to bring documents written before the snapshot existed up to date.
+     */
+    public long migrate() {
+        long modified = 0;
+        try (CloseableIterator<Client> clients = mongoTemplate.stream(new Query(), Client.class)) {
+            while (clients.hasNext()) {
+                modified += refresh(clients.next());
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * Rewrites the snapshot in the client's policies, except where it was taken from a newer
+     * version of the client: refreshes run in the background in no particular order, and one
+     * holding an older copy of the client must not undo a later one.
+     */
+    long refresh(Client client) {
+        if (!ObjectId.isValid(client.getId())) {
+            return 0;
+        }
+        final Criteria policiesOfClient = where("client.$id").is(new ObjectId(client.getId()));
+        if (client.getVersion() != null) {
+            policiesOfClient.orOperator(
+                where("clientSnapshot.version").exists(false),
+                where("clientSnapshot.version").lte(client.getVersion()));
+        }
+        final long modified = mongoTemplate.updateMulti(
+            Query.query(policiesOfClient),
+            RecordUpdates.touching(Update.update("clientSnapshot", ClientSnapshot.of(client)), Policy.class,
+                mongoTemplate.getConverter()),
+            Policy.class
+        ).getModifiedCount();
+        if (modified > 0) {
+            // updateMulti publishes no entity events, and the ids of the policies touched are unknown
+            policiesCache.evictAll();
+        }
+        return modified;
+    }
+}
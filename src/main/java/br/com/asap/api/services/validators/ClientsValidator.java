@@ -1,55 +1,35 @@
 package br.com.asap.api.services.validators;
 
 import br.com.asap.api.models.Client;
-import br.com.asap.api.services.entities_services.ClientsService;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.Errors;
-import org.springframework.validation.Validator;
 
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 
+/**
+ * Checks on clients beyond the bean constraints. A single client needs none: the unique index on
+ * the cpf rejects a cpf taken on create or update, and the controller answers that with
+ * {@code cpf_already_exists}.
+ */
 @Service
-public class ClientsValidator implements Validator {
-
-    private final ClientsService clientsService;
-
-    @Autowired
-    public ClientsValidator(ClientsService clientsService) {
-        this.clientsService = clientsService;
-    }
-
-    @Override
-    public boolean supports(Class<?> clazz) {
-        return Client.class.equals(clazz);
-    }
-
-    @Override
-    public void validate(Object target, Errors errors) {
-        final Client client = (Client) target;
-
-        if (client.getId() == null) {
-            createValidation(errors, client);
-        } else {
-            updateValidation(errors, client);
-        }
-    }
-
-    private void createValidation(Errors errors, Client client) {
-        final Optional<Client> byCpf = clientsService.findByCpf(client.getCpf());
-        if (byCpf.isPresent()) {
-            errors.rejectValue("cpf", "cpf_already_exists", "Cpf já existe");
-        }
-    }
-
-    private void updateValidation(Errors errors, Client client) {
-        final List<Client> all = clientsService.findAll();
-        final Optional<Client> byCpf = clientsService.findByCpf(client.getCpf());
-        if (byCpf.isPresent()) {
-            final Client clientByCpf = byCpf.get();
-            if (!clientByCpf.getId().equals(client.getId())) {
-                errors.rejectValue("cpf", "cpf_already_exists", "Cpf já é usado por outro usuário");
+public class ClientsValidator {
+
+    /**
+     * Checks cpf uniqueness inside a batch of new clients. Cpfs already stored are left to the
+     * unique index, which rejects those clients in the bulk insert. {@code errors} holds one entry
+     * per client, in order.
+     */
+    public void validateBatch(List<Client> clients, List<? extends Errors> errors) {
+        final Set<String> cpfs = new HashSet<>();
+        for (int i = 0; i < clients.size(); i++) {
+            final String cpf = clients.get(i).getCpf();
+            if (cpf == null || errors.get(i).hasFieldErrors("cpf")) {
+                continue;
+            }
+            if (!cpfs.add(cpf)) {
+                errors.get(i).rejectValue("cpf", "cpf_repeated_in_batch", "Cpf repetido no lote");
             }
         }
     }
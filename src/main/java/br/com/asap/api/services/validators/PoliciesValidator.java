@@ -3,13 +3,15 @@ package br.com.asap.api.services.validators;
 import br.com.asap.api.models.Client;
 import br.com.asap.api.models.Policy;
 import br.com.asap.api.services.entities_services.ClientsService;
-import br.com.asap.api.services.repositories.ClientsRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.Errors;
 import org.springframework.validation.Validator;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class PoliciesValidator implements Validator {
@@ -41,4 +43,31 @@ public class PoliciesValidator implements Validator {
             }
         }
     }
+
+    /**
+     * Same checks as {@link #validate(Object, Errors)} for a batch of policies, resolving every
+     * referenced client with a single lookup. {@code errors} holds one entry per policy, in order.
+     */
+    public void validateBatch(List<Policy> policies, List<? extends Errors> errors) {
+        final Set<String> clientIds = new HashSet<>();
+        for (int i = 0; i < policies.size(); i++) {
+            final Client client = policies.get(i).getClient();
+            if (client == null) {
+                continue;
+            }
+            if (client.getId() == null) {
+                errors.get(i).rejectValue("client.id", "client_id_is_required", "Id do Cliente é obrigatório");
+            } else {
+                clientIds.add(client.getId());
+            }
+        }
+
+        final Set<String> existing = clientsService.findExistingIds(clientIds);
+        for (int i = 0; i < policies.size(); i++) {
+            final Client client = policies.get(i).getClient();
+            if (client != null && client.getId() != null && !existing.contains(client.getId())) {
+                errors.get(i).rejectValue("client", "client_not_found", "Cliente não encontrado");
+            }
+        }
+    }
 }
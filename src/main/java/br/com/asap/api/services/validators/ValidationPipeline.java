@@ -0,0 +1,61 @@
+package br.com.asap.api.services.validators;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.ObjectError;
+import org.springframework.validation.Validator;
+
+import java.util.Collection;
+
+/**
+ * Validates a record before it is written in two stages. The bean constraints run first, and
+ * when any of them fails nothing else runs, so an invalid record costs no lookup. Otherwise the
+ * checks run one after the other on the calling thread, adding their errors to the same
+ * {@link Errors}.
+ */
+@Service
+public class ValidationPipeline {
+
+    /**
+     * A lookup made while validating, e.g. that a referenced record exists.
+     */
+    public interface Check {
+
+        void run(Errors errors);
+    }
+
+    private final Validator validator;
+
+    @Autowired
+    public ValidationPipeline(Validator validator) {
+        this.validator = validator;
+    }
+
+    /**
+     * Returns whether the record is valid, with the errors added to {@code errors}. Constraint
+     * errors on {@code assignedFields}, filled in by the server rather than by the request, are
+     * left out.
+     */
+    public boolean validate(Object target, BindingResult errors, Collection<String> assignedFields,
+                            Check... checks) {
+        final BeanPropertyBindingResult constraints = new BeanPropertyBindingResult(target, errors.getObjectName());
+        validator.validate(target, constraints);
+        for (ObjectError error : constraints.getAllErrors()) {
+            if (!(error instanceof FieldError && assignedFields.contains(((FieldError) error).getField()))) {
+                errors.addError(error);
+            }
+        }
+        if (errors.hasErrors()) {
+            return false;
+        }
+
+        for (Check check : checks) {
+            check.run(errors);
+        }
+        return !errors.hasErrors();
+    }
+}
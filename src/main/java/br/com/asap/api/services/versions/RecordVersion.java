@@ -0,0 +1,47 @@
+package br.com.asap.api.services.versions;
+
+import br.com.asap.api.models.EntityRecord;
+import org.springframework.data.mongodb.core.query.CriteriaDefinition;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Version and last modified date of a stored record, enough to answer a conditional request
+ * without reading the whole document.
+ */
+public class RecordVersion {
+
+    private final Long version;
+    private final LocalDateTime updatedAt;
+
+    private RecordVersion(Long version, LocalDateTime updatedAt) {
+        this.version = version;
+        this.updatedAt = updatedAt;
+    }
+
+    public static RecordVersion of(EntityRecord record) {
+        return new RecordVersion(record.getVersion(), record.getUpdatedAt());
+    }
+
+    /**
+     * Query for the records matching {@code criteria} that reads back only their id and version fields.
+     */
+    public static Query query(CriteriaDefinition criteria) {
+        final Query query = Query.query(criteria);
+        query.fields().include("version").include("updatedAt");
+        return query;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Last modified date in epoch milliseconds, or -1 when unknown.
+     */
+    public long getLastModified() {
+        return updatedAt == null ? -1 : updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
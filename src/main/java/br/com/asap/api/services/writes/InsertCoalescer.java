@@ -0,0 +1,224 @@
+package br.com.asap.api.services.writes;
+
+import br.com.asap.api.models.EntityRecord;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit for single inserts. Inserts submitted by concurrent callers are collected until
+ * {@code maxBatchSize} are waiting or {@code maxDelayMicros} have passed since the first one, and
+ * written together with one unordered bulk write; each caller gets its own record back, or the
+ * error of its own document, so a duplicate key fails only the caller that sent it. A caller waits
+ * at most {@code timeoutMillis} for its batch to be written.
+ *
+ * One thread writes the batches: while a batch is being written the next one fills up, so the
+ * busier the collection, the bigger the batches. Batch sizes are published as
+ * {@code asap.group.commit.batch.size}, tagged with the collection.
+ *
+ * When disabled no thread is started and callers are expected to insert on their own, see
+ * {@link #isEnabled()}.
+ */
+public class InsertCoalescer<T extends EntityRecord> implements AutoCloseable {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final Class<T> type;
+    private final String collection;
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long timeoutMillis;
+    private final DistributionSummary batchSizes;
+    private final BlockingQueue<Pending<T>> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    private volatile boolean closed;
+
+    public InsertCoalescer(Class<T> type, MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher,
+                           boolean enabled, int maxBatchSize, long maxDelayMicros, long timeoutMillis,
+                           MeterRegistry meterRegistry) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("asap.writes.group-commit.max-batch-size must be positive");
+        }
+        if (maxDelayMicros < 0) {
+            throw new IllegalArgumentException("asap.writes.group-commit.max-delay-micros must not be negative");
+        }
+        if (timeoutMillis < 1) {
+            throw new IllegalArgumentException("asap.writes.group-commit.timeout-millis must be positive");
+        }
+        this.type = type;
+        this.collection = mongoTemplate.getCollectionName(type);
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxDelayMicros);
+        this.timeoutMillis = timeoutMillis;
+
+        this.batchSizes = DistributionSummary.builder("asap.group.commit.batch.size")
+            .description("Inserts written together by one bulk write")
+            .tag("collection", collection)
+            .register(meterRegistry);
+        this.writer = new Thread(this::writeBatches, "group-commit-" + collection);
+        this.writer.setDaemon(true);
+        if (enabled) {
+            this.writer.start();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues the record to be inserted with the next batch. It gets a new id and version 0 now,
+     * as with a bulk insert the id is not generated by the driver.
+     */
+    public CompletableFuture<T> submit(T record) {
+        record.setId(new ObjectId().toHexString());
+        record.setVersion(0L);
+        final Pending<T> pending = new Pending<>(record);
+        synchronized (queue) {
+            if (!enabled || closed) {
+                throw new IllegalStateException("Group commit for " + type.getSimpleName() + " is not running");
+            }
+            queue.add(pending);
+        }
+        return pending.result;
+    }
+
+    /**
+     * Inserts the record with the next batch and waits for it to be written. A record rejected by
+     * a unique index fails with a {@link DuplicateKeyException}, as a single insert would; a batch
+     * not written within the timeout fails with a {@link QueryTimeoutException}, and the record may
+     * still be written afterwards.
+     */
+    public T insert(T record) {
+        try {
+            return submit(record).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException(String.format(
+                "Group commit for %s did not write the record within %d ms", collection, timeoutMillis), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for group commit", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        final List<Pending<T>> abandoned = new ArrayList<>();
+        synchronized (queue) {
+            closed = true;
+            queue.drainTo(abandoned);
+        }
+        writer.interrupt();
+        final IllegalStateException error = new IllegalStateException("Group commit was closed");
+        abandoned.forEach(pending -> pending.result.completeExceptionally(error));
+    }
+
+    private void writeBatches() {
+        final List<Pending<T>> batch = new ArrayList<>(maxBatchSize);
+        while (!closed) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                final IllegalStateException error = new IllegalStateException("Group commit was closed");
+                batch.forEach(pending -> pending.result.completeExceptionally(error));
+                return;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Waits for the first insert, then takes whatever is already queued and keeps waiting for more
+     * until the batch is full or the delay since the first one is over.
+     */
+    private void collect(List<Pending<T>> batch) throws InterruptedException {
+        batch.add(queue.take());
+        final long deadline = System.nanoTime() + maxDelayNanos;
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        while (batch.size() < maxBatchSize) {
+            final Pending<T> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    private void write(List<Pending<T>> batch) {
+        final List<T> records = new ArrayList<>(batch.size());
+        batch.forEach(pending -> records.add(pending.record));
+        batchSizes.record(batch.size());
+
+        final RuntimeException[] errors = new RuntimeException[batch.size()];
+        try {
+            mongoTemplate.bulkOps(BulkMode.UNORDERED, type).insert(records).execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                errors[error.getIndex()] = error.getCode() == DUPLICATE_KEY
+                    ? new DuplicateKeyException(error.getMessage())
+                    : new DataIntegrityViolationException(error.getMessage());
+            }
+            // The bulk write publishes after save events only when every insert went through.
+            for (int i = 0; i < batch.size(); i++) {
+                if (errors[i] == null) {
+                    eventPublisher.publishEvent(new AfterSaveEvent<>(records.get(i), new Document(), collection));
+                }
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            final Pending<T> pending = batch.get(i);
+            if (errors[i] == null) {
+                pending.result.complete(pending.record);
+            } else {
+                pending.result.completeExceptionally(errors[i]);
+            }
+        }
+    }
+
+    private static class Pending<T> {
+
+        private final T record;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Pending(T record) {
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package br.com.asap.api.services.writes;
+
+import br.com.asap.api.models.EntityRecord;
+import org.bson.Document;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mapping.SimpleAssociationHandler;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Queries and updates that replace a stored record in a single {@code findAndModify}.
+ */
+public final class RecordUpdates {
+
+    private RecordUpdates() {
+    }
+
+    /**
+     * Matches the record by id and, when it carries one, by version.
+     */
+    public static Query matching(EntityRecord record) {
+        final Query query = Query.query(where("id").is(record.getId()));
+        if (record.getVersion() != null) {
+            query.addCriteria(where("version").is(record.getVersion()));
+        }
+        return query;
+    }
+
+    /**
+     * Sets every field of the record and unsets the ones it leaves null, as a save would,
+     * increments the version and stamps the last modified date with the server clock.
+     * {@code keptFields} are server owned and left as stored.
+     */
+    public static Update replacing(EntityRecord record, MongoConverter converter, String... keptFields) {
+        final MongoPersistentEntity<?> entity = converter.getMappingContext()
+            .getRequiredPersistentEntity(record.getClass());
+        final List<String> kept = Arrays.asList(keptFields);
+
+        final Document document = new Document();
+        converter.write(record, document);
+
+        final Update update = new Update();
+        entity.doWithProperties((PropertyHandler<MongoPersistentProperty>) property -> {
+            if (!property.isIdProperty() && !property.isVersionProperty() && !isLastModifiedDate(property)
+                && !kept.contains(property.getName())) {
+                replace(update, document, property);
+            }
+        });
+        entity.doWithAssociations((SimpleAssociationHandler) association -> {
+            final MongoPersistentProperty property = (MongoPersistentProperty) association.getInverse();
+            if (!kept.contains(property.getName())) {
+                replace(update, document, property);
+            }
+        });
+        return touching(update, entity);
+    }
+
+    /**
+     * Adds the version increment and last modified stamp to an update written outside
+     * {@link #replacing}, so conditional requests see the change.
+     */
+    public static Update touching(Update update, Class<? extends EntityRecord> type, MongoConverter converter) {
+        return touching(update, converter.getMappingContext().getRequiredPersistentEntity(type));
+    }
+
+    private static Update touching(Update update, MongoPersistentEntity<?> entity) {
+        entity.doWithProperties((PropertyHandler<MongoPersistentProperty>) property -> {
+            if (isLastModifiedDate(property)) {
+                update.currentDate(property.getFieldName());
+            }
+        });
+        return update.inc(entity.getRequiredVersionProperty().getFieldName(), 1);
+    }
+
+    private static boolean isLastModifiedDate(MongoPersistentProperty property) {
+        return property.isAnnotationPresent(LastModifiedDate.class);
+    }
+
+    private static void replace(Update update, Document document, MongoPersistentProperty property) {
+        final String field = property.getFieldName();
+        if (document.containsKey(field)) {
+            update.set(field, document.get(field));
+        } else {
+            update.unset(field);
+        }
+    }
+}
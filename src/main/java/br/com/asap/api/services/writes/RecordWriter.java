@@ -0,0 +1,73 @@
+package br.com.asap.api.services.writes;
+
+import br.com.asap.api.models.EntityRecord;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * Updates and deletes records with a single write each, instead of reading them first.
+ *
+ * {@code findAndModify} publishes no mapping events, so the save events are published here and
+ * the cache eviction listener sees these writes like any other save.
+ */
+@Service
+public class RecordWriter {
+
+    private final MongoTemplate mongoTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public RecordWriter(MongoTemplate mongoTemplate, ApplicationEventPublisher eventPublisher) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Replaces the stored record with the same id and returns it as stored, or empty when no
+     * record has that id. Throws {@link OptimisticLockingFailureException} when the record
+     * carries a version and the stored one has moved on.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends EntityRecord> Optional<T> replace(T record, String... keptFields) {
+        final Class<T> type = (Class<T>) record.getClass();
+        final String collection = mongoTemplate.getCollectionName(type);
+        final Update update = RecordUpdates.replacing(record, mongoTemplate.getConverter(), keptFields);
+
+        eventPublisher.publishEvent(new BeforeSaveEvent<>(record, update.getUpdateObject(), collection));
+        final T saved = mongoTemplate.findAndModify(RecordUpdates.matching(record), update,
+            FindAndModifyOptions.options().returnNew(true), type);
+        if (saved == null) {
+            if (record.getVersion() != null && mongoTemplate.exists(byId(record.getId()), type)) {
+                throw new OptimisticLockingFailureException(String.format(
+                    "Version %d of %s %s is no longer current", record.getVersion(), collection, record.getId()));
+            }
+            return Optional.empty();
+        }
+        eventPublisher.publishEvent(new AfterSaveEvent<>(saved, new Document(), collection));
+        return Optional.of(saved);
+    }
+
+    /**
+     * Deletes the record with the id, returning whether there was one.
+     */
+    public boolean delete(Class<? extends EntityRecord> type, String id) {
+        return mongoTemplate.remove(byId(id), type).getDeletedCount() > 0;
+    }
+
+    private static Query byId(String id) {
+        return Query.query(where("id").is(id));
+    }
+}
@@ -0,0 +1,108 @@
+package br.com.asap.api.config;
+
+import br.com.asap.api.models.Client;
+import br.com.asap.api.services.entities_services.ClientsService;
+import br.com.asap.api.services.repositories.MongoIndexes;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class CompressionTest {
+
+    private final TestRestTemplate restTemplate;
+    private final ClientsService clientsService;
+    private final ObjectMapper objectMapper;
+    private final MongoTemplate mongoTemplate;
+    private final MongoIndexes mongoIndexes;
+
+    @Autowired
+    public CompressionTest(TestRestTemplate restTemplate, ClientsService clientsService, ObjectMapper objectMapper,
+                           MongoTemplate mongoTemplate, MongoIndexes mongoIndexes) {
+        this.restTemplate = restTemplate;
+        this.clientsService = clientsService;
+        this.objectMapper = objectMapper;
+        this.mongoTemplate = mongoTemplate;
+        this.mongoIndexes = mongoIndexes;
+    }
+
+    @BeforeEach
+    public void seedClients() {
+        mongoTemplate.getDb().drop();
+        mongoIndexes.ensure();
+
+        final List<Client> clients = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            clients.add(new Client()
+                .setName("Cliente " + i)
+                .setCpf(String.format("%011d", 1000 + i))
+                .setCity("Fortaleza")
+                .setUf("CE"));
+        }
+        clientsService.createAll(clients);
+    }
+
+    private ResponseEntity<byte[]> list(String accept, String acceptEncoding) {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT, accept);
+        if (acceptEncoding != null) {
+            headers.set(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return restTemplate.exchange("/api/clients?size=50", HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+    }
+
+    @Test
+    public void shouldGzipJsonWhenAccepted() throws Exception {
+        final ResponseEntity<byte[]> response = list("application/json", "gzip");
+
+        assertThat(response.getStatusCode(), is(HttpStatus.OK));
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), is("gzip"));
+        final JsonNode page = objectMapper.readTree(new GZIPInputStream(new ByteArrayInputStream(response.getBody())));
+        assertThat(page.get("numberOfElements").asInt(), is(50));
+    }
+
+    @Test
+    public void shouldVaryOnAcceptAndAcceptEncoding() {
+        final ResponseEntity<byte[]> response = list("application/json", "gzip");
+
+        assertThat(response.getHeaders().getVary(), containsInAnyOrder(
+            equalToIgnoringCase("Accept"), equalToIgnoringCase("Accept-Encoding")));
+    }
+
+    @Test
+    public void shouldNotCompressWithoutAcceptEncoding() throws Exception {
+        final ResponseEntity<byte[]> response = list("application/json", null);
+
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), is(nullValue()));
+        assertThat(objectMapper.readTree(response.getBody()).get("numberOfElements").asInt(), is(50));
+    }
+
+    @Test
+    public void shouldNotCompressBinaryFormats() {
+        final ResponseEntity<byte[]> response = list("application/x-jackson-smile", "gzip");
+
+        assertThat(response.getStatusCode(), is(HttpStatus.OK));
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), is(nullValue()));
+    }
+
+}
@@ -0,0 +1,99 @@
+package br.com.asap.api.config;
+
+import org.apache.catalina.connector.Connector;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIf;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class VirtualThreadsConfigTest {
+
+    static boolean virtualThreadsAvailable() {
+        try {
+            Thread.class.getMethod("isVirtual");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static boolean isVirtual(Thread thread) throws Exception {
+        return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+
+    @Test
+    @ExtendWith(OutputCaptureExtension.class)
+    public void shouldWarnThatTheModeIsExperimental(CapturedOutput output) {
+        new VirtualThreadsConfig();
+
+        assertThat(output.getOut(), containsString("MongoDB driver 4.1"));
+        assertThat(output.getOut(), containsString("experimental"));
+    }
+
+    @Nested
+    @DisabledIf("br.com.asap.api.config.VirtualThreadsConfigTest#virtualThreadsAvailable")
+    class withoutVirtualThreads {
+
+        @Test
+        public void shouldRefuseToStart() {
+            final IllegalStateException error = assertThrows(IllegalStateException.class,
+                VirtualThreadsConfig::newVirtualThreadPerTaskExecutor);
+
+            assertThat(error.getMessage(), containsString("Java 21"));
+        }
+
+    }
+
+    @Nested
+    @EnabledIf("br.com.asap.api.config.VirtualThreadsConfigTest#virtualThreadsAvailable")
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "asap.experimental.threads.virtual=true")
+    @ActiveProfiles("test")
+    class withVirtualThreads {
+
+        @Autowired
+        private TestRestTemplate restTemplate;
+
+        @Autowired
+        private ServletWebServerApplicationContext context;
+
+        @Autowired
+        private TaskExecutor taskExecutor;
+
+        @Test
+        public void shouldServeRequestsFromVirtualThreadExecutor() {
+            assertThat(restTemplate.getForEntity("/api/clients", String.class).getStatusCode(), is(HttpStatus.OK));
+
+            final Connector connector = ((TomcatWebServer) context.getWebServer()).getTomcat().getConnector();
+            assertThat(connector.getProtocolHandler().getExecutor().getClass().getName(),
+                containsString("ThreadPerTaskExecutor"));
+        }
+
+        @Test
+        public void shouldRunBackgroundTasksOnVirtualThreads() throws Exception {
+            final CompletableFuture<Thread> thread = new CompletableFuture<>();
+            taskExecutor.execute(() -> thread.complete(Thread.currentThread()));
+
+            assertThat(isVirtual(thread.get()), is(true));
+        }
+
+    }
+
+}
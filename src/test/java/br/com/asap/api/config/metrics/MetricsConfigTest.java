@@ -0,0 +1,147 @@
+package br.com.asap.api.config.metrics;
+
+import br.com.asap.api.models.Client;
+import br.com.asap.api.services.entities_services.ClientsService;
+import br.com.asap.api.services.repositories.MongoIndexes;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@ActiveProfiles("test")
+class MetricsConfigTest {
+
+    private final MockMvc mockMvc;
+    private final MeterRegistry meterRegistry;
+    private final ClientsService clientsService;
+    private final MongoTemplate mongoTemplate;
+    private final MongoIndexes mongoIndexes;
+
+    @Autowired
+    public MetricsConfigTest(MockMvc mockMvc, MeterRegistry meterRegistry, ClientsService clientsService,
+                             MongoTemplate mongoTemplate, MongoIndexes mongoIndexes) {
+        this.mockMvc = mockMvc;
+        this.meterRegistry = meterRegistry;
+        this.clientsService = clientsService;
+        this.mongoTemplate = mongoTemplate;
+        this.mongoIndexes = mongoIndexes;
+    }
+
+    @BeforeEach
+    public void clearDb() {
+        mongoTemplate.getDb().drop();
+        mongoIndexes.ensure();
+    }
+
+    private long countOf(String name, String... tags) {
+        final Timer timer = meterRegistry.find(name).tags(tags).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Nested
+    class services {
+
+        @Test
+        public void shouldTimeEachMethod() {
+            final long before = countOf("asap.service", "service", "ClientsService", "method", "findById");
+
+            clientsService.findById("600c6c9db16df808354b113f");
+
+            assertThat(countOf("asap.service", "service", "ClientsService", "method", "findById", "exception", "none"),
+                is(before + 1));
+        }
+
+        @Test
+        public void shouldTagTheExceptionThrown() {
+            final long before = countOf("asap.service", "service", "ClientsService", "method", "create",
+                "exception", "DuplicateKeyException");
+            clientsService.create(new Client()
+                .setCpf("728.687.544-22").setName("Manuel Vinicius da Mota").setUf("CE").setCity("Fortaleza"));
+
+            assertThrows(DuplicateKeyException.class, () -> clientsService.create(new Client()
+                .setCpf("728.687.544-22").setName("Tânia Regina Viana").setUf("MS").setCity("Campo Grande")));
+
+            assertThat(countOf("asap.service", "service", "ClientsService", "method", "create",
+                "exception", "DuplicateKeyException"), is(before + 1));
+        }
+
+    }
+
+    @Nested
+    class validators {
+
+        @Test
+        public void shouldTimeValidation() throws Exception {
+            final long before = countOf("asap.validator", "validator", "ClientsValidator", "method", "validateBatch");
+
+            mockMvc.perform(post("/api/clients/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"name\": \"Manuel\", \"cpf\": \"728.687.544-22\", \"city\": \"Fortaleza\", \"uf\": \"CE\"}]"))
+                .andExpect(status().isOk());
+
+            assertThat(countOf("asap.validator", "validator", "ClientsValidator", "method", "validateBatch"),
+                is(before + 1));
+        }
+
+    }
+
+    @Nested
+    class mongo {
+
+        @Test
+        public void shouldTimeCommandsPerCollection() {
+            final long before = countOf("mongodb.driver.commands", "collection", "clients", "command", "find");
+
+            clientsService.findAll();
+
+            assertThat(countOf("mongodb.driver.commands", "collection", "clients", "command", "find"), is(before + 1));
+        }
+
+        @Test
+        public void shouldGaugeTheConnectionPool() {
+            clientsService.findAll();
+
+            assertThat(meterRegistry.find("mongodb.driver.pool.size").gauges(), is(not(empty())));
+        }
+
+    }
+
+    @Nested
+    class prometheus {
+
+        @Test
+        public void shouldExposeAllMetricsForScraping() throws Exception {
+            clientsService.findAll();
+            mockMvc.perform(get("/api/clients")).andExpect(status().isOk());
+
+            mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("asap_service_seconds_count{")))
+                .andExpect(content().string(containsString("mongodb_driver_commands_seconds_count{")))
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket{")));
+        }
+
+    }
+
+}
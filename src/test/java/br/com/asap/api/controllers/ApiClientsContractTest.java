@@ -0,0 +1,650 @@
+package br.com.asap.api.controllers;
+
+import br.com.asap.api.models.Client;
+import br.com.asap.api.services.entities_services.ClientsService;
+import br.com.asap.api.services.repositories.MongoIndexes;
+import br.com.asap.api.support.MongoCommandRecorder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * The contract of {@code api/clients} served in both modes: listing, consulting, creating, updating
+ * and removing. Each mode runs it through its own subclass; what only one of them serves is tested
+ * in that mode's suite.
+ */
+public abstract class ApiClientsContractTest {
+
+    private final WebTestClient webTestClient;
+    private final ClientsService clientsService;
+    private final ObjectMapper objectMapper;
+    private final MongoTemplate mongoTemplate;
+    private final MongoCommandRecorder mongoCommandRecorder;
+    private final MongoIndexes mongoIndexes;
+
+    protected ApiClientsContractTest(WebTestClient webTestClient, ClientsService clientsService,
+                                     ObjectMapper objectMapper, MongoTemplate mongoTemplate,
+                                     MongoCommandRecorder mongoCommandRecorder, MongoIndexes mongoIndexes) {
+        this.webTestClient = webTestClient;
+        this.clientsService = clientsService;
+        this.objectMapper = objectMapper;
+        this.mongoTemplate = mongoTemplate;
+        this.mongoCommandRecorder = mongoCommandRecorder;
+        this.mongoIndexes = mongoIndexes;
+    }
+
+    private final String validParams = "{" +
+        "\"name\": \"Manuel Vinicius da Mota\"," +
+        "\"cpf\": \"728.687.544-22\"," +
+        "\"city\": \"Uruguaiana\"," +
+        "\"uf\": \"RS\"" +
+    "}";
+
+    private final String invalidParams = "{" +
+        "\"name\": \"\"," +
+        "\"cpf\": \"\"," +
+        "\"city\": \"\"," +
+        "\"uf\": \"\"" +
+    "}";
+
+    private final String newParams = "{" +
+        "\"name\": \"Roberto Otávio Filipe da Silva\"," +
+        "\"cpf\": \"629.840.675-17\"," +
+        "\"city\": \"Arapiraca\"," +
+        "\"uf\": \"AL\"" +
+    "}";
+
+    @BeforeEach
+    public void clearDb() {
+        mongoTemplate.getDb().drop();
+        mongoIndexes.ensure();
+    }
+
+    public Client createClient() throws JsonProcessingException {
+        final Client client = objectMapper.readValue(validParams, Client.class);
+        return clientsService.create(client);
+    }
+
+    public Client createOtherClient() throws JsonProcessingException {
+        final Client client = objectMapper.readValue(newParams, Client.class);
+        return clientsService.create(client);
+    }
+
+    @Nested
+    class list {
+
+        private WebTestClient.ResponseSpec performRequestWith(String query) {
+            return webTestClient.get().uri("/api/clients" + query).exchange();
+        }
+
+        @Test
+        public void shouldReturnHttpStatusOk() {
+            performRequestWith("").expectStatus().isOk();
+        }
+
+        @Test
+        public void shouldReturnPageOfClients() throws Exception {
+            createClient();
+            createOtherClient();
+
+            performRequestWith("?size=1")
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(2)
+                .jsonPath("$.totalPages").isEqualTo(2)
+                .jsonPath("$.content.length()").isEqualTo(1)
+                .jsonPath("$.content[0].cpf").isNotEmpty();
+        }
+
+        @Test
+        public void shouldVaryOnAccept() {
+            performRequestWith("")
+                .expectHeader().valueEquals("Vary", "Accept");
+        }
+
+        @Nested
+        class withCursor {
+
+            private WebTestClient.ResponseSpec performRequestWith(String after) {
+                return list.this.performRequestWith("?size=1&after=" + after);
+            }
+
+            private String nextOf(WebTestClient.ResponseSpec response) {
+                return JsonPath.read(response.expectBody(String.class).returnResult().getResponseBody(), "$.next");
+            }
+
+            @Test
+            public void shouldReturnFirstPageWithNextCursor() throws Exception {
+                final Client client = createClient();
+                createOtherClient();
+
+                performRequestWith("")
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.size").isEqualTo(1)
+                    .jsonPath("$.numberOfElements").isEqualTo(1)
+                    .jsonPath("$.last").isEqualTo(false)
+                    .jsonPath("$.next").isNotEmpty()
+                    .jsonPath("$.content[0].id").isEqualTo(client.getId())
+                    .jsonPath("$.content[0].cpf").isEqualTo("72868754422");
+            }
+
+            @Test
+            public void shouldSeekAfterCursor() throws Exception {
+                createClient();
+                final Client otherClient = createOtherClient();
+
+                final String next = nextOf(performRequestWith(""));
+
+                performRequestWith(next)
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.content.length()").isEqualTo(1)
+                    .jsonPath("$.content[0].id").isEqualTo(otherClient.getId())
+                    .jsonPath("$.last").isEqualTo(true)
+                    .jsonPath("$.next").doesNotExist();
+            }
+
+            @Test
+            public void shouldReturnHttpStatusBadRequestForInvalidCursor() {
+                performRequestWith("not-a-cursor")
+                    .expectStatus().isBadRequest();
+            }
+
+        }
+
+    }
+
+    @Nested
+    class show {
+
+        private WebTestClient.ResponseSpec performRequestWith(String id) {
+            return webTestClient.get().uri("/api/clients/" + id).exchange();
+        }
+
+        @Nested
+        class existing {
+
+            @Test
+            public void shouldReturnHttpStatusOk() throws Exception {
+                final Client client = createClient();
+
+                performRequestWith(client.getId())
+                    .expectStatus().isOk();
+            }
+
+            @Test
+            public void shouldReturnClient() throws Exception {
+                final Client client = createClient();
+
+                performRequestWith(client.getId())
+                    .expectBody()
+                    .jsonPath("$.id").isEqualTo(client.getId())
+                    .jsonPath("$.name").isEqualTo("Manuel Vinicius da Mota")
+                    .jsonPath("$.city").isEqualTo("Uruguaiana")
+                    .jsonPath("$.cpf").isEqualTo("72868754422")
+                    .jsonPath("$.uf").isEqualTo("RS");
+            }
+
+        }
+
+        @Nested
+        class notExisting {
+
+            @Test
+            public void shouldReturnHttpStatusNotFound() {
+                performRequestWith("123")
+                    .expectStatus().isNotFound();
+            }
+
+        }
+
+    }
+
+    @Nested
+    class create {
+
+        private WebTestClient.ResponseSpec performRequestWith(String params) {
+            return webTestClient.post().uri("/api/clients")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(params)
+                .exchange();
+        }
+
+        @Nested
+        class withValidParams {
+
+            @Test
+            public void shouldReturnHttpStatusCreated() {
+                performRequestWith(validParams)
+                    .expectStatus().isCreated();
+            }
+
+            @Test
+            public void shouldReturnClientCreated() {
+                performRequestWith(validParams)
+                    .expectBody()
+                    .jsonPath("$.id").isNotEmpty()
+                    .jsonPath("$.name").isEqualTo("Manuel Vinicius da Mota")
+                    .jsonPath("$.city").isEqualTo("Uruguaiana")
+                    .jsonPath("$.cpf").isEqualTo("72868754422")
+                    .jsonPath("$.uf").isEqualTo("RS");
+            }
+
+            @Test
+            public void shouldCreateClient() {
+                performRequestWith(validParams).expectStatus().isCreated();
+
+                final List<Client> all = clientsService.findAll();
+                assertThat(all, hasSize(1));
+
+                final Client client = all.get(0);
+                assertThat(client.getName(), is("Manuel Vinicius da Mota"));
+                assertThat(client.getCity(), is("Uruguaiana"));
+                assertThat(client.getCpf(), is("72868754422"));
+                assertThat(client.getUf(), is("RS"));
+            }
+
+            @Test
+            public void shouldInsertWithoutLookingUpTheCpf() {
+                mongoCommandRecorder.clear();
+
+                performRequestWith(validParams).expectStatus().isCreated();
+
+                final List<BsonDocument> commands = mongoCommandRecorder.on("clients");
+                assertThat(commands, hasSize(1));
+                assertThat(commands.get(0).getFirstKey(), is("insert"));
+            }
+
+        }
+
+        @Nested
+        class withInvalidParams {
+
+            @Test
+            public void shouldReturnHttpStatusUnprocessableEntity() {
+                performRequestWith(invalidParams)
+                    .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+
+            @Test
+            public void shouldReturnFormErrors() {
+                performRequestWith(invalidParams)
+                    .expectBody()
+                    .jsonPath("$").value(hasSize(5))
+                    .jsonPath("$[*].defaultMessage").value(hasItems(
+                        "Nome é obrigatório", "CPF é obrigatório", "CPF inválido",
+                        "Cidade é obrigatória", "Estado é obrigatório"));
+            }
+
+            @Test
+            public void shouldNotCreateClient() {
+                performRequestWith(invalidParams).expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+
+                assertThat(clientsService.findAll(), hasSize(0));
+            }
+
+        }
+
+        @Nested
+        class withCPFRepeated {
+
+            @Test
+            public void shouldReturnHttpStatusUnprocessableEntity() throws Exception {
+                createClient();
+
+                performRequestWith(validParams)
+                    .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+
+            @Test
+            public void shouldReturnCpfAlreadyExists() throws Exception {
+                createClient();
+
+                performRequestWith(validParams)
+                    .expectBody()
+                    .jsonPath("$").value(hasSize(1))
+                    .jsonPath("$[0].codes").value(hasItem("cpf_already_exists"))
+                    .jsonPath("$[0].defaultMessage").isEqualTo("Cpf já existe");
+            }
+
+            @Test
+            public void shouldNotCreateClient() throws Exception {
+                createClient();
+
+                performRequestWith(validParams).expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+
+                assertThat(clientsService.findAll(), hasSize(1));
+            }
+
+        }
+
+    }
+
+    @Nested
+    class update {
+
+        private WebTestClient.ResponseSpec performRequestWith(String id, String params) {
+            return webTestClient.put().uri("/api/clients/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(params)
+                .exchange();
+        }
+
+        private String withVersion(String params, long version) {
+            return params.replaceFirst("\\{", "{\"version\": " + version + ",");
+        }
+
+        @Nested
+        class existing {
+
+            @Nested
+            class withValidParams {
+
+                @Test
+                public void shouldReturnHttpStatusOk() throws Exception {
+                    final Client client = createClient();
+
+                    performRequestWith(client.getId(), newParams)
+                        .expectStatus().isOk();
+                }
+
+                @Test
+                public void shouldReturnUpdatedClient() throws Exception {
+                    final Client client = createClient();
+
+                    performRequestWith(client.getId(), newParams)
+                        .expectBody()
+                        .jsonPath("$.id").isEqualTo(client.getId())
+                        .jsonPath("$.name").isEqualTo("Roberto Otávio Filipe da Silva")
+                        .jsonPath("$.city").isEqualTo("Arapiraca")
+                        .jsonPath("$.cpf").isEqualTo("62984067517")
+                        .jsonPath("$.uf").isEqualTo("AL");
+                }
+
+                @Test
+                public void shouldUpdateClient() throws Exception {
+                    final Client client = createClient();
+
+                    performRequestWith(client.getId(), newParams).expectStatus().isOk();
+
+                    final List<Client> all = clientsService.findAll();
+                    assertThat(all, hasSize(1));
+
+                    final Client stored = all.get(0);
+                    assertThat(stored.getId(), is(client.getId()));
+                    assertThat(stored.getName(), is("Roberto Otávio Filipe da Silva"));
+                    assertThat(stored.getCity(), is("Arapiraca"));
+                    assertThat(stored.getCpf(), is("62984067517"));
+                    assertThat(stored.getUf(), is("AL"));
+                }
+
+                @Test
+                public void shouldUpdateInOneRoundTrip() throws Exception {
+                    final Client client = createClient();
+                    createOtherClient();
+                    mongoCommandRecorder.clear();
+
+                    performRequestWith(client.getId(), validParams)
+                        .expectStatus().isOk();
+
+                    final List<BsonDocument> commands = mongoCommandRecorder.on("clients");
+                    assertThat(commands, hasSize(1));
+                    assertThat(commands.get(0).containsKey("findAndModify"), is(true));
+                    assertThat(commands.get(0).getDocument("query").keySet(), is(Collections.singleton("_id")));
+                }
+
+                @Test
+                public void shouldIncrementVersion() throws Exception {
+                    final Client client = createClient();
+
+                    performRequestWith(client.getId(), newParams)
+                        .expectBody().jsonPath("$.version").isEqualTo(1);
+                    performRequestWith(client.getId(), validParams)
+                        .expectBody().jsonPath("$.version").isEqualTo(2);
+                }
+
+            }
+
+            @Nested
+            class withCurrentVersion {
+
+                @Test
+                public void shouldUpdateClient() throws Exception {
+                    final Client client = createClient();
+
+                    performRequestWith(client.getId(), withVersion(newParams, 0))
+                        .expectStatus().isOk()
+                        .expectBody()
+                        .jsonPath("$.name").isEqualTo("Roberto Otávio Filipe da Silva")
+                        .jsonPath("$.version").isEqualTo(1);
+                }
+
+            }
+
+            @Nested
+            class withStaleVersion {
+
+                @Test
+                public void shouldReturnHttpStatusConflict() throws Exception {
+                    final Client client = createClient();
+                    performRequestWith(client.getId(), withVersion(newParams, 0)).expectStatus().isOk();
+
+                    performRequestWith(client.getId(), withVersion(validParams, 0))
+                        .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+                }
+
+                @Test
+                public void shouldNotUpdateClient() throws Exception {
+                    final Client client = createClient();
+                    performRequestWith(client.getId(), withVersion(newParams, 0)).expectStatus().isOk();
+
+                    performRequestWith(client.getId(), withVersion(validParams, 0))
+                        .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+
+                    final Client stored = clientsService.findAll().get(0);
+                    assertThat(stored.getName(), is("Roberto Otávio Filipe da Silva"));
+                    assertThat(stored.getVersion(), is(1L));
+                }
+
+            }
+
+            @Nested
+            class withInvalidParams {
+
+                @Test
+                public void shouldReturnHttpStatusUnprocessableEntity() throws Exception {
+                    final Client client = createClient();
+
+                    performRequestWith(client.getId(), invalidParams)
+                        .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+                }
+
+                @Test
+                public void shouldReturnFormErrors() throws Exception {
+                    final Client client = createClient();
+
+                    performRequestWith(client.getId(), invalidParams)
+                        .expectBody()
+                        .jsonPath("$").value(hasSize(5))
+                        .jsonPath("$[*].defaultMessage").value(hasItems(
+                            "Nome é obrigatório", "CPF é obrigatório", "CPF inválido",
+                            "Cidade é obrigatória", "Estado é obrigatório"));
+                }
+
+                @Test
+                public void shouldNotUpdateClient() throws Exception {
+                    final Client client = createClient();
+
+                    performRequestWith(client.getId(), invalidParams)
+                        .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+
+                    final List<Client> all = clientsService.findAll();
+                    assertThat(all, hasSize(1));
+
+                    final Client stored = all.get(0);
+                    assertThat(stored.getId(), is(client.getId()));
+                    assertThat(stored.getName(), is("Manuel Vinicius da Mota"));
+                    assertThat(stored.getCity(), is("Uruguaiana"));
+                    assertThat(stored.getCpf(), is("72868754422"));
+                    assertThat(stored.getUf(), is("RS"));
+                }
+
+            }
+
+            @Nested
+            class withCPFRepeated {
+
+                @Test
+                public void shouldReturnHttpStatusUnprocessableEntity() throws Exception {
+                    final Client client = createClient();
+                    createOtherClient();
+
+                    performRequestWith(client.getId(), newParams)
+                        .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+                }
+
+                @Test
+                public void shouldReturnFormErrors() throws Exception {
+                    final Client client = createClient();
+                    createOtherClient();
+
+                    performRequestWith(client.getId(), newParams)
+                        .expectBody()
+                        .jsonPath("$").value(hasSize(1))
+                        .jsonPath("$[*].defaultMessage").value(hasItem("Cpf já é usado por outro usuário"));
+                }
+
+                @Test
+                public void shouldNotUpdateClient() throws Exception {
+                    final Client client = createClient();
+                    createOtherClient();
+
+                    performRequestWith(client.getId(), newParams)
+                        .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+
+                    final List<Client> all = clientsService.findAll();
+                    assertThat(all, hasSize(2));
+
+                    final Client stored = all.get(0);
+                    assertThat(stored.getName(), is("Manuel Vinicius da Mota"));
+                    assertThat(stored.getCity(), is("Uruguaiana"));
+                    assertThat(stored.getCpf(), is("72868754422"));
+                    assertThat(stored.getUf(), is("RS"));
+                }
+
+            }
+
+        }
+
+        @Nested
+        class notExisting {
+
+            @Test
+            public void shouldReturnHttpStatusNotFound() throws Exception {
+                createClient();
+
+                performRequestWith("123", validParams)
+                    .expectStatus().isNotFound();
+            }
+
+            @Test
+            public void shouldNotUpdateClient() throws Exception {
+                final Client client = createClient();
+
+                performRequestWith("123", validParams)
+                    .expectStatus().isNotFound();
+
+                final Client stored = clientsService.findAll().get(0);
+                assertThat(stored.getId(), is(client.getId()));
+                assertThat(stored.getName(), is("Manuel Vinicius da Mota"));
+                assertThat(stored.getCity(), is("Uruguaiana"));
+                assertThat(stored.getCpf(), is("72868754422"));
+                assertThat(stored.getUf(), is("RS"));
+            }
+
+        }
+
+    }
+
+    @Nested
+    class delete {
+
+        private WebTestClient.ResponseSpec performRequestWith(String id) {
+            return webTestClient.delete().uri("/api/clients/" + id).exchange();
+        }
+
+        @Nested
+        class existing {
+
+            @Test
+            public void shouldReturnHttpStatusOk() throws Exception {
+                final Client client = createClient();
+
+                performRequestWith(client.getId())
+                    .expectStatus().isOk();
+            }
+
+            @Test
+            public void shouldDelete() throws Exception {
+                final Client client = createClient();
+
+                performRequestWith(client.getId()).expectStatus().isOk();
+
+                assertThat(clientsService.findAll(), hasSize(0));
+            }
+
+            @Test
+            public void shouldDeleteInOneRoundTrip() throws Exception {
+                final Client client = createClient();
+                mongoCommandRecorder.clear();
+
+                performRequestWith(client.getId())
+                    .expectStatus().isOk();
+
+                final List<BsonDocument> commands = mongoCommandRecorder.on("clients");
+                assertThat(commands, hasSize(1));
+                assertThat(commands.get(0).containsKey("delete"), is(true));
+            }
+
+        }
+
+        @Nested
+        class notExisting {
+
+            @Test
+            public void shouldReturnHttpStatusNotFound() throws Exception {
+                createClient();
+
+                performRequestWith("123")
+                    .expectStatus().isNotFound();
+            }
+
+            @Test
+            public void shouldNotDelete() throws Exception {
+                createClient();
+
+                performRequestWith("123").expectStatus().isNotFound();
+
+                assertThat(clientsService.findAll(), hasSize(1));
+            }
+
+        }
+
+    }
+
+}
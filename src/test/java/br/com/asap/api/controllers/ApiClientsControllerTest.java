@@ -1,47 +1,70 @@
 package br.com.asap.api.controllers;
 
+import br.com.asap.api.config.jackson.JsonViews;
 import br.com.asap.api.models.Client;
 import br.com.asap.api.models.Policy;
 import br.com.asap.api.services.entities_services.ClientsService;
+import br.com.asap.api.services.repositories.MongoIndexes;
+import br.com.asap.api.support.MongoCommandRecorder;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.jayway.jsonpath.JsonPath;
+import org.bson.BsonDocument;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
+@Import(MongoCommandRecorder.class)
 class ApiClientsControllerTest {
 
     private final MockMvc mockMvc;
     private final ClientsService clientsService;
     private final ObjectMapper objectMapper;
     private final MongoTemplate mongoTemplate;
+    private final MongoCommandRecorder mongoCommandRecorder;
+    private final MongoIndexes mongoIndexes;
 
     @Autowired
     public ApiClientsControllerTest(MockMvc mockMvc, ClientsService clientsService,
-                                    ObjectMapper objectMapper, MongoTemplate mongoTemplate) {
+                                    ObjectMapper objectMapper, MongoTemplate mongoTemplate,
+                                    MongoCommandRecorder mongoCommandRecorder, MongoIndexes mongoIndexes) {
         this.mockMvc = mockMvc;
         this.clientsService = clientsService;
         this.objectMapper = objectMapper;
         this.mongoTemplate = mongoTemplate;
+        this.mongoCommandRecorder = mongoCommandRecorder;
+        this.mongoIndexes = mongoIndexes;
     }
 
     private final String validParams = "{" +
@@ -68,6 +91,7 @@ class ApiClientsControllerTest {
     @BeforeEach
     public void clearDb() {
         mongoTemplate.getDb().drop();
+        mongoIndexes.ensure();
     }
 
     public Client createClient() throws JsonProcessingException {
@@ -84,407 +108,562 @@ class ApiClientsControllerTest {
     @Nested
     class list {
 
-        private ResultActions performRequestWith() throws Exception {
-            return mockMvc.perform(get("/api/clients"));
-        }
-
-        @Test
-        public void shouldReturnHttpStatusOk() throws Exception {
-            performRequestWith().andExpect(status().isOk());
-        }
-
-    }
-
-    @Nested
-    class show {
-
-        private ResultActions performRequestWith(String id) throws Exception {
-            return mockMvc.perform(get("/api/clients/" + id));
-        }
-
         @Nested
-        class existing {
+        class withFields {
 
-            @Test
-            public void shouldReturnHttpStatusOk() throws Exception {
+            private ResultActions performRequestWith(String fields) throws Exception {
+                return mockMvc.perform(get("/api/clients").param("fields", fields));
+            }
 
+            @Test
+            public void shouldRenderOnlyTheFields() throws Exception {
                 final Client client = createClient();
 
-                performRequestWith(client.getId())
-                    .andExpect(status().isOk());
-
+                performRequestWith("id,name")
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements", is(1)))
+                    .andExpect(jsonPath("$.content[0].id", is(client.getId())))
+                    .andExpect(jsonPath("$.content[0].name", is("Manuel Vinicius da Mota")))
+                    .andExpect(jsonPath("$.content[0].cpf").doesNotExist())
+                    .andExpect(jsonPath("$.content[0].city").doesNotExist());
             }
 
             @Test
-            public void shouldReturnPolicy() throws Exception {
+            public void shouldReadOnlyTheFields() throws Exception {
+                createClient();
+                mongoCommandRecorder.clear();
 
-                final Client client = createClient();
+                performRequestWith("name,uf");
 
-                performRequestWith(client.getId())
-                    .andExpect(jsonPath("$.id", is(notNullValue())))
-                    .andExpect(jsonPath("$.name", is("Manuel Vinicius da Mota")))
-                    .andExpect(jsonPath("$.city", is("Uruguaiana")))
-                    .andExpect(jsonPath("$.cpf", is("72868754422")))
-                    .andExpect(jsonPath("$.uf", is("RS")));
+                final BsonDocument find = mongoCommandRecorder.on("clients").get(0);
+                assertThat(find.getFirstKey(), is("find"));
+                assertThat(find.getDocument("projection").keySet(),
+                    containsInAnyOrder("version", "updatedAt", "name", "uf"));
             }
 
-        }
+            @Test
+            public void shouldRenderFieldsAfterCursor() throws Exception {
+                createClient();
 
-        @Nested
-        class notExisting {
+                mockMvc.perform(get("/api/clients").param("after", "").param("fields", "cpf"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[0].cpf", is("72868754422")))
+                    .andExpect(jsonPath("$.content[0].name").doesNotExist());
+            }
 
             @Test
-            public void shouldReturnHttpStatusNotFound() throws Exception {
-
-                performRequestWith("123")
-                    .andExpect(status().isNotFound());
+            public void shouldReturnHttpStatusBadRequestForUnknownField() throws Exception {
+                performRequestWith("name,password")
+                    .andExpect(status().isBadRequest());
             }
 
         }
 
-    }
+        @Nested
+        class inBinaryFormats {
 
-    @Nested
-    class create {
+            private JsonNode read(ResultActions resultActions, JsonFactory factory) throws IOException {
+                return new ObjectMapper(factory).readTree(resultActions.andReturn().getResponse().getContentAsByteArray());
+            }
 
-        private ResultActions performRequestWith(String params) throws Exception {
-            return mockMvc.perform(post("/api/clients")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(params)
-            );
-        }
+            @Test
+            public void shouldRenderPageInSmile() throws Exception {
+                final Client client = createClient();
 
-        @Nested
-        class withValidParams {
+                final ResultActions resultActions = mockMvc.perform(get("/api/clients")
+                        .accept("application/x-jackson-smile"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/x-jackson-smile"))
+                    .andExpect(header().string("Vary", "Accept"));
+
+                final JsonNode page = read(resultActions, new SmileFactory());
+                assertThat(page.get("totalElements").asInt(), is(1));
+                assertThat(page.get("content").get(0).get("id").asText(), is(client.getId()));
+                assertThat(page.get("content").get(0).get("cpf").asText(), is("72868754422"));
+                assertThat(page.get("content").get(0).has("cpfNumber"), is(false));
+            }
 
             @Test
-            public void shouldReturnHttpStatusCreated() throws Exception {
-                performRequestWith(validParams)
-                    .andExpect(status().isCreated());
+            public void shouldRenderFieldsInCbor() throws Exception {
+                createClient();
+
+                final ResultActions resultActions = mockMvc.perform(get("/api/clients")
+                        .param("fields", "name")
+                        .accept("application/cbor"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/cbor"));
+
+                final JsonNode client = read(resultActions, new CBORFactory()).get("content").get(0);
+                assertThat(client.get("name").asText(), is("Manuel Vinicius da Mota"));
+                assertThat(client.has("city"), is(false));
             }
 
             @Test
-            public void shouldReturnClientCreated() throws Exception {
-                performRequestWith(validParams)
-                    .andExpect(jsonPath("$.id", is(notNullValue())))
-                    .andExpect(jsonPath("$.name", is("Manuel Vinicius da Mota")))
-                    .andExpect(jsonPath("$.city", is("Uruguaiana")))
-                    .andExpect(jsonPath("$.cpf", is("72868754422")))
-                    .andExpect(jsonPath("$.uf", is("RS")));
+            public void shouldRenderErrorsInCbor() throws Exception {
+                final ResultActions resultActions = mockMvc.perform(post("/api/clients")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(invalidParams)
+                        .accept("application/cbor"))
+                    .andExpect(status().isUnprocessableEntity());
 
+                final JsonNode errors = read(resultActions, new CBORFactory());
+                assertThat(errors.size(), is(greaterThan(0)));
+                assertThat(errors.get(0).get("objectName").asText(), is("client"));
+                assertThat(errors.get(0).has("codes"), is(true));
             }
 
-            @Test
-            public void shouldCreateClient() throws Exception {
-                performRequestWith(validParams);
+        }
 
-                final List<Client> all = clientsService.findAll();
-                assertThat(all, hasSize(1));
+    }
+
+    @Nested
+    class export {
+
+        @Test
+        public void shouldStreamOneJsonLinePerClient() throws Exception {
+            final Client client = createClient();
+            final Client otherClient = createOtherClient();
+
+            final String[] lines = mockMvc.perform(get("/api/clients/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+            assertThat(lines.length, is(2));
+            assertThat(JsonPath.read(lines[0], "$.id"), is(client.getId()));
+            assertThat(JsonPath.read(lines[1], "$.id"), is(otherClient.getId()));
+            assertThat(JsonPath.read(lines[1], "$.cpf"), is(otherClient.getCpf()));
+        }
 
-                final Client client = all.get(0);
-                assertThat(client.getName(), is("Manuel Vinicius da Mota"));
-                assertThat(client.getCity(), is("Uruguaiana"));
-                assertThat(client.getCpf(), is("72868754422"));
-                assertThat(client.getUf(), is("RS"));
+        @Test
+        public void shouldWriteEachLineAsTheStoredClient() throws Exception {
+            createClient();
+            createOtherClient();
+            final StringBuilder expected = new StringBuilder();
+            for (Client stored : clientsService.findAll()) {
+                expected.append(objectMapper.writerWithView(JsonViews.Show.class).writeValueAsString(stored))
+                    .append('\n');
             }
 
+            mockMvc.perform(get("/api/clients/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(expected.toString().getBytes(StandardCharsets.UTF_8)));
         }
 
-        @Nested
-        class withInvalidParams {
+        @Test
+        public void shouldStreamCsvWithHeader() throws Exception {
+            final Client client = createClient();
+
+            final String[] lines = mockMvc.perform(get("/api/clients/export").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", containsString("clients.csv")))
+                .andReturn().getResponse().getContentAsString().split("\r\n");
+
+            assertThat(lines.length, is(2));
+            assertThat(lines[0], is("id,version,updatedAt,name,cpf,city,uf"));
+            assertThat(lines[1], startsWith(client.getId() + ",0,"));
+            assertThat(lines[1], endsWith("," + client.getName() + "," + client.getCpf() + ","
+                + client.getCity() + "," + client.getUf()));
+        }
 
-            @Test
-            public void shouldReturnHttpStatusUnprocessableEntity() throws Exception {
-                performRequestWith(invalidParams)
-                    .andExpect(status().isUnprocessableEntity());
-            }
+        @Test
+        public void shouldReadFromOneCursorInBatches() throws Exception {
+            createClient();
+            createOtherClient();
+            mongoCommandRecorder.clear();
+
+            mockMvc.perform(get("/api/clients/export")).andExpect(status().isOk());
+
+            final List<BsonDocument> commands = mongoCommandRecorder.on("clients");
+            assertThat(commands, hasSize(1));
+            assertThat(commands.get(0).getFirstKey(), is("find"));
+            assertThat(commands.get(0).getInt32("batchSize").getValue(), is(1000));
+            assertThat(commands.get(0).containsKey("skip"), is(false));
+        }
 
-            @Test
-            public void shouldReturnFormErrors() throws Exception {
-                performRequestWith(invalidParams)
-                    .andExpect(jsonPath("$", hasSize(5)))
-                    .andExpect(jsonPath("$[*].defaultMessage", hasItem("Nome é obrigatório")))
-                    .andExpect(jsonPath("$[*].defaultMessage", hasItem("CPF é obrigatório")))
-                    .andExpect(jsonPath("$[*].defaultMessage", hasItem("CPF inválido")))
-                    .andExpect(jsonPath("$[*].defaultMessage", hasItem("Cidade é obrigatória")))
-                    .andExpect(jsonPath("$[*].defaultMessage", hasItem("Estado é obrigatório")));
-            }
+        @Test
+        public void shouldReturnHttpStatusBadRequestForUnknownFormat() throws Exception {
+            mockMvc.perform(get("/api/clients/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        }
 
-            @Test
-            public void shouldNotCreateClient() throws Exception {
-                performRequestWith(invalidParams);
+    }
 
-                final List<Client> all = clientsService.findAll();
-                assertThat(all, hasSize(0));
-            }
+    @Nested
+    class show {
 
+        private ResultActions performRequestWith(String id) throws Exception {
+            return mockMvc.perform(get("/api/clients/" + id));
         }
 
         @Nested
-        class withCPFRepeated {
+        class existing {
 
             @Test
-            public void shouldReturnHttpStatusUnprocessableEntity() throws Exception {
-                final Client newClient = objectMapper.readValue(validParams, Client.class);
-                clientsService.create(newClient);
+            public void shouldReturnETagAndLastModified() throws Exception {
 
-                performRequestWith(validParams)
-                    .andExpect(status().isUnprocessableEntity());
+                final Client client = createClient();
+
+                performRequestWith(client.getId())
+                    .andExpect(header().string("ETag", "\"0\""))
+                    .andExpect(header().exists("Last-Modified"));
             }
 
             @Test
-            public void shouldReturnFormErrors() throws Exception {
-                final Client newClient = objectMapper.readValue(validParams, Client.class);
-                clientsService.create(newClient);
+            public void shouldTagEachFormatApart() throws Exception {
 
-                performRequestWith(validParams)
-                    .andExpect(status().isUnprocessableEntity());
+                final Client client = createClient();
+
+                mockMvc.perform(get("/api/clients/" + client.getId()).accept("application/x-jackson-smile"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/x-jackson-smile"))
+                    .andExpect(header().string("ETag", "\"0-smile\""))
+                    .andExpect(header().string("Vary", "Accept"));
+                mockMvc.perform(get("/api/clients/" + client.getId()).param("fields", "city")
+                        .accept("application/cbor"))
+                    .andExpect(content().contentType("application/cbor"))
+                    .andExpect(header().string("ETag", startsWith("\"0-cbor-")));
             }
 
             @Test
-            public void shouldNotCreateClient() throws Exception {
-                final Client newClient = objectMapper.readValue(validParams, Client.class);
-                clientsService.create(newClient);
-
-                performRequestWith(validParams);
+            public void shouldNotAnswerNotModifiedForTheTagOfAnotherFormat() throws Exception {
 
-                final List<Client> all = clientsService.findAll();
-                assertThat(all, hasSize(1));
+                final Client client = createClient();
 
+                mockMvc.perform(get("/api/clients/" + client.getId()).header("If-None-Match", "\"0\"")
+                        .accept("application/x-jackson-smile"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/x-jackson-smile"));
+                mockMvc.perform(get("/api/clients/" + client.getId()).header("If-None-Match", "\"0-smile\"")
+                        .accept("application/x-jackson-smile"))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("Vary", "Accept"));
             }
-        }
 
-    }
-    
-    @Nested
-    class update {
+            @Test
+            public void shouldReturnHttpStatusNotAcceptableForOtherFormats() throws Exception {
 
-        private ResultActions performRequestWith(String id, String params) throws Exception {
-            return mockMvc.perform(put("/api/clients/" + id)
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(params)
-            );
-        }
+                final Client client = createClient();
 
-        @Nested
-        class existing {
+                mockMvc.perform(get("/api/clients/" + client.getId()).accept("text/csv"))
+                    .andExpect(status().isNotAcceptable());
+            }
 
             @Nested
-            class withValidParams {
+            class withCurrentETag {
 
                 @Test
-                public void shouldReturnHttpStatusOk() throws Exception {
-                    final Client client = createClient();
-                    performRequestWith(client.getId(), newParams)
-                        .andExpect(status().isOk());
-                }
+                public void shouldReturnHttpStatusNotModified() throws Exception {
 
-                @Test
-                public void shouldReturnUpdatedClient() throws Exception {
                     final Client client = createClient();
-                    
-                    performRequestWith(client.getId(), newParams)
-                        .andExpect(jsonPath("$.id", is(client.getId())))
-                        .andExpect(jsonPath("$.name", is("Roberto Otávio Filipe da Silva")))
-                        .andExpect(jsonPath("$.city", is("Arapiraca")))
-                        .andExpect(jsonPath("$.cpf", is("62984067517")))
-                        .andExpect(jsonPath("$.uf", is("AL")));
+
+                    mockMvc.perform(get("/api/clients/" + client.getId()).header("If-None-Match", "\"0\""))
+                        .andExpect(status().isNotModified())
+                        .andExpect(header().string("ETag", "\"0\""))
+                        .andExpect(content().string(""));
                 }
 
                 @Test
-                public void shouldUpdateClient() throws Exception {
+                public void shouldReadOnlyTheVersion() throws Exception {
 
                     final Client client = createClient();
+                    mongoCommandRecorder.clear();
 
-                    performRequestWith(client.getId(), newParams);
+                    mockMvc.perform(get("/api/clients/" + client.getId()).header("If-None-Match", "\"0\""));
 
-                    final List<Client> all = clientsService.findAll();
-                    assertThat(all, hasSize(1));
+                    final List<BsonDocument> commands = mongoCommandRecorder.on("clients");
+                    assertThat(commands, hasSize(1));
+                    assertThat(commands.get(0).getDocument("projection").keySet(), containsInAnyOrder("version", "updatedAt"));
+                }
 
-                    final Client client1 = all.get(0);
-                    assertThat(client1.getId(), is(client.getId()));
-                    assertThat(client1.getName(), is("Roberto Otávio Filipe da Silva"));
-                    assertThat(client1.getCity(), is("Arapiraca"));
-                    assertThat(client1.getCpf(), is("62984067517"));
-                    assertThat(client1.getUf(), is("AL"));
+                @Test
+                public void shouldReadTheVersionEvenWhenTheClientIsCached() throws Exception {
 
+                    final Client client = createClient();
+                    mockMvc.perform(get("/api/clients/" + client.getId()));
+                    mongoTemplate.updateFirst(Query.query(where("id").is(client.getId())),
+                        new Update().set("city", "Arapiraca").inc("version", 1), Client.class);
+
+                    mockMvc.perform(get("/api/clients/" + client.getId()).header("If-None-Match", "\"0\""))
+                        .andExpect(status().isOk())
+                        .andExpect(header().string("ETag", "\"1\""))
+                        .andExpect(jsonPath("$.city", is("Arapiraca")));
                 }
 
             }
 
             @Nested
-            class withInvalidParams {
+            class withStaleETag {
 
                 @Test
-                public void shouldReturnHttpStatusUnprocessableEntity() throws Exception {
+                public void shouldReturnClient() throws Exception {
 
                     final Client client = createClient();
+                    clientsService.update(client.setCity("Arapiraca"));
 
-                    performRequestWith(client.getId(), invalidParams)
-                        .andExpect(status().isUnprocessableEntity());
+                    mockMvc.perform(get("/api/clients/" + client.getId()).header("If-None-Match", "\"0\""))
+                        .andExpect(status().isOk())
+                        .andExpect(header().string("ETag", "\"1\""))
+                        .andExpect(jsonPath("$.city", is("Arapiraca")));
                 }
 
+            }
+
+            @Nested
+            class withFields {
+
                 @Test
-                public void shouldReturnFormErrors() throws Exception {
+                public void shouldRenderOnlyTheFields() throws Exception {
 
                     final Client client = createClient();
 
-                    performRequestWith(client.getId(), invalidParams)
-                        .andExpect(jsonPath("$", hasSize(5)))
-                        .andExpect(jsonPath("$[*].defaultMessage", hasItem("Nome é obrigatório")))
-                        .andExpect(jsonPath("$[*].defaultMessage", hasItem("CPF é obrigatório")))
-                        .andExpect(jsonPath("$[*].defaultMessage", hasItem("CPF inválido")))
-                        .andExpect(jsonPath("$[*].defaultMessage", hasItem("Cidade é obrigatória")))
-                        .andExpect(jsonPath("$[*].defaultMessage", hasItem("Estado é obrigatório")));
+                    mockMvc.perform(get("/api/clients/" + client.getId()).param("fields", "city"))
+                        .andExpect(status().isOk())
+                        .andExpect(header().string("ETag", startsWith("\"0-")))
+                        .andExpect(jsonPath("$.city", is("Uruguaiana")))
+                        .andExpect(jsonPath("$.name").doesNotExist())
+                        .andExpect(jsonPath("$.cpf").doesNotExist());
                 }
 
                 @Test
-                public void shouldNotUpdateClient() throws Exception {
+                public void shouldTagEachFieldsetApart() throws Exception {
 
                     final Client client = createClient();
+                    final String city = mockMvc.perform(get("/api/clients/" + client.getId()).param("fields", "city"))
+                        .andReturn().getResponse().getHeader("ETag");
+                    final String cityAndName = mockMvc.perform(get("/api/clients/" + client.getId())
+                        .param("fields", "city,name")).andReturn().getResponse().getHeader("ETag");
+                    final String nameAndCity = mockMvc.perform(get("/api/clients/" + client.getId())
+                        .param("fields", "name,city")).andReturn().getResponse().getHeader("ETag");
+
+                    assertThat(city, is(not(cityAndName)));
+                    assertThat(nameAndCity, is(cityAndName));
+                }
 
-                    performRequestWith(client.getId(), invalidParams);
+                @Test
+                public void shouldNotAnswerNotModifiedForTheWholeClientTag() throws Exception {
 
-                    final List<Client> all = clientsService.findAll();
-                    assertThat(all, hasSize(1));
+                    final Client client = createClient();
 
-                    final Client client1 = all.get(0);
-                    assertThat(client1.getId(), is(client.getId()));
-                    assertThat(client1.getName(), is("Manuel Vinicius da Mota"));
-                    assertThat(client1.getCity(), is("Uruguaiana"));
-                    assertThat(client1.getCpf(), is("72868754422"));
-                    assertThat(client1.getUf(), is("RS"));
+                    mockMvc.perform(get("/api/clients/" + client.getId()).param("fields", "city")
+                        .header("If-None-Match", "\"0\""))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.city", is("Uruguaiana")));
                 }
 
-            }
-
-            @Nested
-            class withCPFRepeated {
-
                 @Test
-                public void shouldReturnHttpStatusUnprocessableEntity() throws Exception {
+                public void shouldAnswerNotModifiedForItsOwnTag() throws Exception {
+
                     final Client client = createClient();
-                    final Client otherClient = createOtherClient();
+                    final String eTag = mockMvc.perform(get("/api/clients/" + client.getId()).param("fields", "city"))
+                        .andReturn().getResponse().getHeader("ETag");
 
-                    performRequestWith(client.getId(), newParams)
-                        .andExpect(status().isUnprocessableEntity());
+                    mockMvc.perform(get("/api/clients/" + client.getId()).param("fields", "city")
+                        .header("If-None-Match", eTag))
+                        .andExpect(status().isNotModified())
+                        .andExpect(header().string("ETag", eTag));
                 }
 
                 @Test
-                public void shouldReturnFormErrors() throws Exception {
+                public void shouldRenderTheWholeClientWithoutFields() throws Exception {
+
                     final Client client = createClient();
-                    final Client otherClient = createOtherClient();
+                    mockMvc.perform(get("/api/clients/" + client.getId()).param("fields", "city"));
 
-                    performRequestWith(client.getId(), newParams)
-                        .andExpect(jsonPath("$", hasSize(1)))
-                        .andExpect(jsonPath("$[*].defaultMessage", hasItem("Cpf já é usado por outro usuário")));
+                    performRequestWith(client.getId())
+                        .andExpect(jsonPath("$.name", is("Manuel Vinicius da Mota")))
+                        .andExpect(jsonPath("$.cpf", is("72868754422")));
                 }
 
                 @Test
-                public void shouldNotUpdateClient() throws Exception {
+                public void shouldReturnHttpStatusBadRequestForUnknownField() throws Exception {
+
                     final Client client = createClient();
-                    final Client otherClient = createOtherClient();
 
-                    performRequestWith(client.getId(), newParams);
+                    mockMvc.perform(get("/api/clients/" + client.getId()).param("fields", "cpfNumber"))
+                        .andExpect(status().isBadRequest());
+                }
+
+            }
+
+            @Nested
+            class withIfModifiedSince {
 
-                    final List<Client> all = clientsService.findAll();
-                    assertThat(all, hasSize(2));
+                @Test
+                public void shouldReturnHttpStatusNotModified() throws Exception {
 
-                    final Client client1 = all.get(0);
-                    assertThat(client1.getName(), is("Manuel Vinicius da Mota"));
-                    assertThat(client1.getCity(), is("Uruguaiana"));
-                    assertThat(client1.getCpf(), is("72868754422"));
-                    assertThat(client1.getUf(), is("RS"));
+                    final Client client = createClient();
+                    final String lastModified = performRequestWith(client.getId())
+                        .andReturn().getResponse().getHeader("Last-Modified");
 
+                    mockMvc.perform(get("/api/clients/" + client.getId()).header("If-Modified-Since", lastModified))
+                        .andExpect(status().isNotModified());
                 }
+
             }
 
         }
 
-        @Nested
-        class notExisting {
+    }
 
-            @Test
-            public void shouldReturnHttpStatusNotFound() throws Exception {
+    @Nested
+    class createBulk {
 
-                final Client client = createClient();
+        private ResultActions performRequestWith(MediaType mediaType, String body) throws Exception {
+            return mockMvc.perform(post("/api/clients/bulk")
+                .contentType(mediaType)
+                .content(body)
+            );
+        }
 
-                performRequestWith("123", validParams)
-                    .andExpect(status().isNotFound());
+        @Nested
+        class withJsonArray {
+
+            private ResultActions performRequestWith(String... items) throws Exception {
+                return createBulk.this.performRequestWith(MediaType.APPLICATION_JSON,
+                    "[" + String.join(",", items) + "]");
             }
 
             @Test
-            public void shouldNotUpdateClient() throws Exception {
-
-                final Client client = createClient();
+            public void shouldReturnOneResultPerItem() throws Exception {
+                performRequestWith(validParams, invalidParams, newParams)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$", hasSize(3)))
+                    .andExpect(jsonPath("$[*].index", contains(0, 1, 2)))
+                    .andExpect(jsonPath("$[*].status", contains(201, 422, 201)))
+                    .andExpect(jsonPath("$[0].id", is(notNullValue())))
+                    .andExpect(jsonPath("$[1].id").doesNotExist())
+                    .andExpect(jsonPath("$[1].errors", hasSize(5)))
+                    .andExpect(jsonPath("$[1].errors[*].defaultMessage", hasItem("Nome é obrigatório")));
+            }
 
-                performRequestWith("123", validParams)
-                    .andExpect(status().isNotFound());
+            @Test
+            public void shouldCreateOnlyValidClients() throws Exception {
+                performRequestWith(validParams, invalidParams, newParams);
 
                 final List<Client> all = clientsService.findAll();
-                final Client client1 = all.get(0);
+                assertThat(all, hasSize(2));
+                assertThat(all.get(0).getCpf(), is("72868754422"));
+                assertThat(all.get(1).getCpf(), is("62984067517"));
+            }
 
-                assertThat(client1.getId(), is(client.getId()));
-                assertThat(client1.getName(), is("Manuel Vinicius da Mota"));
-                assertThat(client1.getCity(), is("Uruguaiana"));
-                assertThat(client1.getCpf(), is("72868754422"));
-                assertThat(client1.getUf(), is("RS"));
+            @Test
+            public void shouldRejectCpfRepeatedInBatch() throws Exception {
+                performRequestWith(validParams, validParams)
+                    .andExpect(jsonPath("$[*].status", contains(201, 422)))
+                    .andExpect(jsonPath("$[1].errors[*].defaultMessage", contains("Cpf repetido no lote")));
+
+                assertThat(clientsService.findAll(), hasSize(1));
             }
 
-        }
+            @Test
+            public void shouldRejectCpfAlreadyStored() throws Exception {
+                createOtherClient();
 
-    }
+                performRequestWith(validParams, newParams)
+                    .andExpect(jsonPath("$[*].status", contains(201, 422)))
+                    .andExpect(jsonPath("$[1].errors[*].defaultMessage", contains("Cpf já existe")));
 
-    @Nested
-    class delete {
+                assertThat(clientsService.findAll(), hasSize(2));
+            }
+
+            @Test
+            public void shouldRejectCpfAlreadyStoredAfterInvalidItems() throws Exception {
+                createOtherClient();
+
+                performRequestWith(invalidParams, newParams, validParams)
+                    .andExpect(jsonPath("$[*].status", contains(422, 422, 201)))
+                    .andExpect(jsonPath("$[1].errors[*].defaultMessage", contains("Cpf já existe")))
+                    .andExpect(jsonPath("$[1].id").doesNotExist())
+                    .andExpect(jsonPath("$[2].id", is(notNullValue())));
+            }
 
-        private ResultActions performRequestWith(String id) throws Exception {
-            return mockMvc.perform(delete("/api/clients/" + id));
         }
 
         @Nested
-        class existing {
+        class withNdjson {
 
             @Test
-            public void shouldReturnHttpStatusOk() throws Exception {
-                final Client client = createClient();
-                performRequestWith(client.getId())
-                    .andExpect(status().isOk());
+            public void shouldCreateOneClientPerLine() throws Exception {
+                performRequestWith(MediaType.parseMediaType("application/x-ndjson"), validParams + "\n" + newParams + "\n")
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[*].status", contains(201, 201)));
+
+                assertThat(clientsService.findAll(), hasSize(2));
             }
 
             @Test
-            public void shouldDelete() throws Exception {
-                final Client client = createClient();
-                performRequestWith(client.getId());
-
-                final List<Client> all = clientsService.findAll();
-                assertThat(all, hasSize(0));
+            public void shouldReturnHttpStatusBadRequestForMalformedLine() throws Exception {
+                performRequestWith(MediaType.parseMediaType("application/x-ndjson"), validParams + "\n{\"name\":")
+                    .andExpect(status().isBadRequest());
 
+                assertThat(clientsService.findAll(), hasSize(0));
             }
 
         }
 
+    }
+
+    @Nested
+    class update {
+
         @Nested
-        class notExisting {
+        class existing {
 
-            @Test
-            public void shouldReturnHttpStatusNotFound() throws Exception {
-                final Client client = createClient();
-                performRequestWith("123")
-                    .andExpect(status().isNotFound());
-            }
+            @Nested
+            class withIfMatch {
+
+                private ResultActions performRequestWith(String id, String params, String ifMatch) throws Exception {
+                    return mockMvc.perform(put("/api/clients/" + id)
+                        .header("If-Match", ifMatch)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(params)
+                    );
+                }
 
-            @Test
-            public void shouldNotDelete() throws Exception {
-                final Client client = createClient();
-                performRequestWith("123");
+                @Test
+                public void shouldUpdateCurrentVersion() throws Exception {
+                    final Client client = createClient();
 
-                final List<Client> all = clientsService.findAll();
-                assertThat(all, hasSize(1));
+                    performRequestWith(client.getId(), newParams, "\"0\"")
+                        .andExpect(status().isOk())
+                        .andExpect(header().string("ETag", "\"1\""));
+                }
+
+                @Test
+                public void shouldReturnHttpStatusPreconditionFailedForStaleVersion() throws Exception {
+                    final Client client = createClient();
+                    performRequestWith(client.getId(), newParams, "\"0\"");
+
+                    performRequestWith(client.getId(), validParams, "\"0\"")
+                        .andExpect(status().isPreconditionFailed());
+
+                    assertThat(clientsService.findAll().get(0).getName(), is("Roberto Otávio Filipe da Silva"));
+                }
+
+                @Test
+                public void shouldUpdateCurrentVersionFromTheTagOfAFieldset() throws Exception {
+                    final Client client = createClient();
+                    final String eTag = mockMvc.perform(get("/api/clients/" + client.getId()).param("fields", "city"))
+                        .andReturn().getResponse().getHeader("ETag");
+
+                    performRequestWith(client.getId(), newParams, eTag)
+                        .andExpect(status().isOk())
+                        .andExpect(header().string("ETag", "\"1\""));
+                }
+
+                @Test
+                public void shouldReturnHttpStatusPreconditionFailedForWeakETag() throws Exception {
+                    final Client client = createClient();
+
+                    performRequestWith(client.getId(), newParams, "W/\"0\"")
+                        .andExpect(status().isPreconditionFailed());
+                }
 
             }
 
         }
 
     }
-}
\ No newline at end of file
+}
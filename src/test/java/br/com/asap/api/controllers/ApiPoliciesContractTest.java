@@ -0,0 +1,761 @@
+package br.com.asap.api.controllers;
+
+import br.com.asap.api.models.Client;
+import br.com.asap.api.models.Policy;
+import br.com.asap.api.services.entities_services.PoliciesService;
+import br.com.asap.api.services.repositories.ClientsRepository;
+import br.com.asap.api.services.repositories.MongoIndexes;
+import br.com.asap.api.support.MongoCommandRecorder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * The contract of {@code api/policies} served in both modes: listing, consulting by id and by
+ * number, creating, updating and removing. Each mode runs it through its own subclass; what only
+ * one of them serves is tested in that mode's suite.
+ */
+public abstract class ApiPoliciesContractTest {
+
+    private final WebTestClient webTestClient;
+    private final MongoTemplate mongoTemplate;
+    private final ClientsRepository clientsRepository;
+    private final PoliciesService policiesService;
+    private final ObjectMapper objectMapper;
+    private final MongoCommandRecorder mongoCommandRecorder;
+    private final MongoIndexes mongoIndexes;
+
+    protected ApiPoliciesContractTest(WebTestClient webTestClient, MongoTemplate mongoTemplate,
+                                      ClientsRepository clientsRepository,
+                                      PoliciesService policiesService, ObjectMapper objectMapper,
+                                      MongoCommandRecorder mongoCommandRecorder, MongoIndexes mongoIndexes) {
+        this.webTestClient = webTestClient;
+        this.mongoTemplate = mongoTemplate;
+        this.clientsRepository = clientsRepository;
+        this.policiesService = policiesService;
+        this.objectMapper = objectMapper;
+        this.mongoCommandRecorder = mongoCommandRecorder;
+        this.mongoIndexes = mongoIndexes;
+    }
+
+    private String validParams(Client client) {
+        return "{" +
+            "\"effectiveDateStartAt\": \"2020-01-01T00:00:00\"," +
+            "\"effectiveDateEndAt\": \"2020-01-31T23:59:59\"," +
+            "\"vehiclePlate\": \"NEQ-1857\"," +
+            "\"client\": {" +
+                "\"id\": \"" + client.getId() + "\"" +
+            "}" +
+        "}";
+    }
+
+    private String newParams(Client client) {
+        return "{" +
+            "\"effectiveDateStartAt\": \"2020-02-01T00:00:00\"," +
+            "\"effectiveDateEndAt\": \"2020-02-25T23:59:59\"," +
+            "\"vehiclePlate\": \"ABC-1234\"," +
+            "\"client\": {" +
+                "\"id\": \"" + client.getId() + "\"" +
+            "}" +
+        "}";
+    }
+
+    private final String invalidParams = "{" +
+        "\"effectiveDateStartAt\": \"\"," +
+        "\"effectiveDateEndAt\": \"\"," +
+        "\"vehiclePlate\": \"\"" +
+    "}";
+
+    private final String clientIdNullParams = "{" +
+            "\"effectiveDateStartAt\": \"2020-01-01T00:00:00\"," +
+            "\"effectiveDateEndAt\": \"2020-01-31T23:59:59\"," +
+            "\"vehiclePlate\": \"NEQ-1857\"," +
+            "\"client\": {" +
+        "}" +
+    "}";
+
+    private Policy createPolicy(Client client) throws JsonProcessingException {
+        final Policy policy = objectMapper.readValue(validParams(client), Policy.class);
+        policy.setNumber(policiesService.generateNumber());
+        return policiesService.create(policy);
+    }
+
+    private Client createClient() {
+        return clientsRepository.save(new Client()
+            .setCpf("728.687.544-22")
+            .setName("Manuel Vinicius da Mota")
+            .setUf("CE")
+            .setCity("Fortaleza"));
+    }
+
+    private Client createOtherClient() {
+        return clientsRepository.save(new Client()
+            .setCpf("831.685.877-02")
+            .setName("Tânia Regina Viana")
+            .setUf("MS")
+            .setCity("Campo Grande"));
+    }
+
+    private Client notExistingClient() {
+        final Client client = new Client();
+        client.setId("123234");
+        return client;
+    }
+
+    private void assertStoredAsCreated(Client client) {
+        final Policy stored = policiesService.findAll().get(0);
+        assertThat(stored.getClient().getId(), is(client.getId()));
+        assertThat(stored.getEffectiveDateStartAt().toString(), is("2020-01-01T00:00"));
+        assertThat(stored.getEffectiveDateEndAt().toString(), is("2020-01-31T23:59:59"));
+        assertThat(stored.getVehiclePlate(), is("NEQ-1857"));
+        assertThat(stored.getNumber(), is(notNullValue()));
+    }
+
+    @BeforeEach
+    public void clearDb() {
+        mongoTemplate.getDb().drop();
+        mongoIndexes.ensure();
+    }
+
+    @Nested
+    class list {
+
+        private WebTestClient.ResponseSpec performRequestWith(String query) {
+            return webTestClient.get().uri("/api/policies" + query).exchange();
+        }
+
+        @Test
+        public void shouldReturnHttpStatusOk() {
+            performRequestWith("").expectStatus().isOk();
+        }
+
+        @Test
+        public void shouldRenderContentWithShowView() throws Exception {
+            final Policy policy = createPolicy(createClient());
+
+            performRequestWith("")
+                .expectBody()
+                .jsonPath("$.totalElements").isEqualTo(1)
+                .jsonPath("$.content.length()").isEqualTo(1)
+                .jsonPath("$.content[0].id").isEqualTo(policy.getId())
+                .jsonPath("$.content[0].number").isEqualTo(policy.getNumber())
+                .jsonPath("$.content[0].effectiveDateStartAt").isEqualTo("2020-01-01T00:00:00")
+                .jsonPath("$.content[0].expired").isEqualTo(true)
+                .jsonPath("$.content[0].client").doesNotExist();
+        }
+
+        @Nested
+        class withCursor {
+
+            private WebTestClient.ResponseSpec performRequestWith(String after) {
+                return list.this.performRequestWith("?size=2&after=" + after);
+            }
+
+            @Test
+            public void shouldWalkAllPoliciesOnce() throws Exception {
+                final Client client = createClient();
+                final Policy first = createPolicy(client);
+                final Policy second = createPolicy(client);
+                final Policy third = createPolicy(client);
+
+                final byte[] firstPage = performRequestWith("")
+                    .expectBody()
+                    .jsonPath("$.content[*].id").value(contains(first.getId(), second.getId()))
+                    .jsonPath("$.last").isEqualTo(false)
+                    .returnResult().getResponseBody();
+                final String next = JsonPath.read(new String(firstPage, StandardCharsets.UTF_8), "$.next");
+
+                performRequestWith(next)
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.content[*].id").value(contains(third.getId()))
+                    .jsonPath("$.content[0].number").isEqualTo(third.getNumber())
+                    .jsonPath("$.last").isEqualTo(true);
+            }
+
+            @Test
+            public void shouldReturnHttpStatusBadRequestForInvalidCursor() {
+                performRequestWith("not-a-cursor")
+                    .expectStatus().isBadRequest();
+            }
+
+            @Test
+            public void shouldDefaultToPagesOfTen() throws Exception {
+                final Client client = createClient();
+                for (int i = 0; i < 11; i++) {
+                    createPolicy(client);
+                }
+
+                list.this.performRequestWith("?after=")
+                    .expectBody()
+                    .jsonPath("$.size").isEqualTo(10)
+                    .jsonPath("$.content.length()").isEqualTo(10)
+                    .jsonPath("$.last").isEqualTo(false);
+            }
+
+        }
+
+    }
+
+    @Nested
+    class show {
+
+        private WebTestClient.ResponseSpec performRequestWith(String id) {
+            return webTestClient.get().uri("/api/policies/" + id).exchange();
+        }
+
+        @Nested
+        class existing {
+
+            @Test
+            public void shouldReturnHttpStatusOk() throws Exception {
+                final Policy policy = createPolicy(createClient());
+
+                performRequestWith(policy.getId())
+                    .expectStatus().isOk();
+            }
+
+            @Test
+            public void shouldReturnPolicy() throws Exception {
+                final Policy policy = createPolicy(createClient());
+
+                performRequestWith(policy.getId())
+                    .expectBody()
+                    .jsonPath("$.id").isEqualTo(policy.getId())
+                    .jsonPath("$.effectiveDateStartAt").isEqualTo("2020-01-01T00:00:00")
+                    .jsonPath("$.effectiveDateEndAt").isEqualTo("2020-01-31T23:59:59")
+                    .jsonPath("$.vehiclePlate").isEqualTo("NEQ-1857")
+                    .jsonPath("$.number").isEqualTo(policy.getNumber());
+            }
+
+        }
+
+        @Nested
+        class notExisting {
+
+            @Test
+            public void shouldReturnHttpStatusNotFound() {
+                performRequestWith("123")
+                    .expectStatus().isNotFound();
+            }
+
+        }
+
+    }
+
+    @Nested
+    class showByNumber {
+
+        private WebTestClient.ResponseSpec performRequestWith(Integer number) {
+            return webTestClient.get().uri("/api/policies/number/" + number).exchange();
+        }
+
+        private Policy createPolicyEndingIn(Client client, int days) {
+            return policiesService.create(new Policy()
+                .setClient(client)
+                .setVehiclePlate("1234-abc")
+                .setEffectiveDateStartAt(LocalDateTime.now().minusDays(10))
+                .setEffectiveDateEndAt(LocalDateTime.now().plusDays(days))
+                .setNumber(policiesService.generateNumber()));
+        }
+
+        @Nested
+        class expired {
+
+            @Test
+            public void shouldReturnHttpStatusOk() {
+                final Policy policy = createPolicyEndingIn(createClient(), -5);
+
+                performRequestWith(policy.getNumber())
+                    .expectStatus().isOk();
+            }
+
+            @Test
+            public void shouldShowExpiredDays() {
+                final Policy policy = createPolicyEndingIn(createClient(), -5);
+
+                performRequestWith(policy.getNumber())
+                    .expectBody()
+                    .jsonPath("$.id").isEqualTo(policy.getId())
+                    .jsonPath("$.vehiclePlate").isEqualTo("1234-abc")
+                    .jsonPath("$.expired").isEqualTo(true)
+                    .jsonPath("$.daysExpired").isEqualTo(5)
+                    .jsonPath("$.number").isEqualTo(policy.getNumber());
+            }
+
+        }
+
+        @Nested
+        class notExpired {
+
+            @Test
+            public void shouldReturnHttpStatusOk() {
+                final Policy policy = createPolicyEndingIn(createClient(), 6);
+
+                performRequestWith(policy.getNumber())
+                    .expectStatus().isOk();
+            }
+
+            @Test
+            public void shouldShowDaysToExpire() {
+                final Policy policy = createPolicyEndingIn(createClient(), 6);
+
+                performRequestWith(policy.getNumber())
+                    .expectBody()
+                    .jsonPath("$.id").isEqualTo(policy.getId())
+                    .jsonPath("$.vehiclePlate").isEqualTo("1234-abc")
+                    .jsonPath("$.expired").isEqualTo(false)
+                    .jsonPath("$.daysToExpire").isEqualTo(5)
+                    .jsonPath("$.number").isEqualTo(policy.getNumber());
+            }
+
+        }
+
+        @Nested
+        class notExisting {
+
+            @Test
+            public void shouldReturnHttpStatusNotFound() {
+                performRequestWith(123)
+                    .expectStatus().isNotFound();
+            }
+
+        }
+
+    }
+
+    @Nested
+    class create {
+
+        private WebTestClient.ResponseSpec performRequestWith(String params) {
+            return webTestClient.post().uri("/api/policies")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(params)
+                .exchange();
+        }
+
+        @Nested
+        class withValidParams {
+
+            @Test
+            public void shouldReturnHttpStatusCreated() {
+                performRequestWith(validParams(createClient()))
+                    .expectStatus().isCreated();
+            }
+
+            @Test
+            public void shouldReturnPolicyCreated() {
+                performRequestWith(validParams(createClient()))
+                    .expectBody()
+                    .jsonPath("$.id").isNotEmpty()
+                    .jsonPath("$.effectiveDateStartAt").isEqualTo("2020-01-01T00:00:00")
+                    .jsonPath("$.effectiveDateEndAt").isEqualTo("2020-01-31T23:59:59")
+                    .jsonPath("$.vehiclePlate").isEqualTo("NEQ-1857")
+                    .jsonPath("$.number").isNotEmpty();
+            }
+
+            @Test
+            public void shouldCreatePolicy() {
+                final Client client = createClient();
+
+                performRequestWith(validParams(client)).expectStatus().isCreated();
+
+                assertThat(policiesService.findAll(), hasSize(1));
+                assertStoredAsCreated(client);
+            }
+
+        }
+
+        @Nested
+        class withInvalidParams {
+
+            @Test
+            public void shouldReturnHttpStatusUnprocessableEntity() {
+                performRequestWith(invalidParams)
+                    .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+
+            @Test
+            public void shouldReturnFormErrors() {
+                performRequestWith(invalidParams)
+                    .expectBody()
+                    .jsonPath("$").value(hasSize(4))
+                    .jsonPath("$[*].defaultMessage").value(hasItems(
+                        "Data inicial de vigência é obrigatória", "Data final de vigência é obrigatória",
+                        "Placa do veículo é oobrigatória", "Cliente é obrigatório"));
+            }
+
+            @Test
+            public void shouldNotCreatePolicy() {
+                performRequestWith(invalidParams).expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+
+                assertThat(policiesService.findAll(), hasSize(0));
+            }
+
+            @Test
+            public void shouldNotLookUpClientNorTakeNumber() {
+                final Integer before = policiesService.generateNumber();
+                mongoCommandRecorder.clear();
+
+                performRequestWith("{\"vehiclePlate\": \"\", \"client\": {\"id\": \"123234\"}}")
+                    .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY)
+                    .expectBody()
+                    .jsonPath("$[*].defaultMessage").value(not(hasItem("Cliente não encontrado")));
+
+                assertThat(mongoCommandRecorder.on("clients"), is(empty()));
+                assertThat(policiesService.generateNumber(), is(before + 1));
+            }
+
+        }
+
+        @Nested
+        class withClientNotFound {
+
+            @Test
+            public void shouldReturnHttpStatusUnprocessableEntity() {
+                performRequestWith(validParams(notExistingClient()))
+                    .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+
+            @Test
+            public void shouldReturnFormErrors() {
+                performRequestWith(validParams(notExistingClient()))
+                    .expectBody()
+                    .jsonPath("$").value(hasSize(1))
+                    .jsonPath("$[*].defaultMessage").value(hasItem("Cliente não encontrado"));
+            }
+
+            @Test
+            public void shouldNotCreatePolicy() {
+                performRequestWith(validParams(notExistingClient()))
+                    .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+
+                assertThat(policiesService.findAll(), hasSize(0));
+            }
+
+            @Test
+            public void shouldNotTakeNumber() {
+                final Integer before = policiesService.generateNumber();
+
+                performRequestWith(validParams(notExistingClient()))
+                    .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+
+                assertThat(policiesService.generateNumber(), is(before + 1));
+            }
+
+        }
+
+        @Nested
+        class withClientIdNull {
+
+            @Test
+            public void shouldReturnHttpStatusUnprocessableEntity() {
+                performRequestWith(clientIdNullParams)
+                    .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+
+            @Test
+            public void shouldReturnFormErrors() {
+                performRequestWith(clientIdNullParams)
+                    .expectBody()
+                    .jsonPath("$").value(hasSize(1))
+                    .jsonPath("$[*].defaultMessage").value(hasItem("Id do Cliente é obrigatório"));
+            }
+
+            @Test
+            public void shouldNotCreatePolicy() {
+                performRequestWith(clientIdNullParams).expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+
+                assertThat(policiesService.findAll(), hasSize(0));
+            }
+
+        }
+
+    }
+
+    @Nested
+    class update {
+
+        private WebTestClient.ResponseSpec performRequestWith(String id, String params) {
+            return webTestClient.put().uri("/api/policies/" + id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(params)
+                .exchange();
+        }
+
+        @Nested
+        class existing {
+
+            @Nested
+            class withValidParams {
+
+                @Test
+                public void shouldReturnHttpStatusOk() throws Exception {
+                    final Policy policy = createPolicy(createClient());
+
+                    performRequestWith(policy.getId(), newParams(createOtherClient()))
+                        .expectStatus().isOk();
+                }
+
+                @Test
+                public void shouldReturnUpdatedPolicy() throws Exception {
+                    final Policy policy = createPolicy(createClient());
+
+                    performRequestWith(policy.getId(), newParams(createOtherClient()))
+                        .expectBody()
+                        .jsonPath("$.id").isEqualTo(policy.getId())
+                        .jsonPath("$.effectiveDateStartAt").isEqualTo("2020-02-01T00:00:00")
+                        .jsonPath("$.effectiveDateEndAt").isEqualTo("2020-02-25T23:59:59")
+                        .jsonPath("$.vehiclePlate").isEqualTo("ABC-1234")
+                        .jsonPath("$.number").isEqualTo(policy.getNumber());
+                }
+
+                @Test
+                public void shouldUpdatePolicy() throws Exception {
+                    final Policy policy = createPolicy(createClient());
+                    final Client otherClient = createOtherClient();
+
+                    performRequestWith(policy.getId(), newParams(otherClient)).expectStatus().isOk();
+
+                    final Policy stored = policiesService.findAll().get(0);
+                    assertThat(stored.getClient().getId(), is(otherClient.getId()));
+                    assertThat(stored.getEffectiveDateStartAt().toString(), is("2020-02-01T00:00"));
+                    assertThat(stored.getEffectiveDateEndAt().toString(), is("2020-02-25T23:59:59"));
+                    assertThat(stored.getVehiclePlate(), is("ABC-1234"));
+                    assertThat(stored.getNumber(), is(policy.getNumber()));
+                }
+
+                @Test
+                public void shouldKeepNumberAndIncrementVersion() throws Exception {
+                    final Client client = createClient();
+                    final Policy policy = createPolicy(client);
+
+                    performRequestWith(policy.getId(), newParams(client))
+                        .expectBody()
+                        .jsonPath("$.number").isEqualTo(policy.getNumber())
+                        .jsonPath("$.version").isEqualTo(1);
+
+                    assertThat(policiesService.findAll().get(0).getNumber(), is(policy.getNumber()));
+                }
+
+            }
+
+            @Nested
+            class withStaleVersion {
+
+                @Test
+                public void shouldReturnHttpStatusConflict() throws Exception {
+                    final Client client = createClient();
+                    final Policy policy = createPolicy(client);
+                    performRequestWith(policy.getId(), newParams(client)).expectStatus().isOk();
+
+                    performRequestWith(policy.getId(), validParams(client).replaceFirst("\\{", "{\"version\": 0,"))
+                        .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+
+                    assertThat(policiesService.findAll().get(0).getVehiclePlate(), is("ABC-1234"));
+                }
+
+            }
+
+            @Nested
+            class withInvalidParams {
+
+                @Test
+                public void shouldReturnHttpStatusUnprocessableEntity() throws Exception {
+                    final Policy policy = createPolicy(createClient());
+
+                    performRequestWith(policy.getId(), invalidParams)
+                        .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+                }
+
+                @Test
+                public void shouldReturnFormErrors() throws Exception {
+                    final Policy policy = createPolicy(createClient());
+
+                    performRequestWith(policy.getId(), invalidParams)
+                        .expectBody()
+                        .jsonPath("$").value(hasSize(4))
+                        .jsonPath("$[*].defaultMessage").value(hasItems(
+                            "Data inicial de vigência é obrigatória", "Data final de vigência é obrigatória",
+                            "Placa do veículo é oobrigatória", "Cliente é obrigatório"));
+                }
+
+                @Test
+                public void shouldNotUpdatePolicy() throws Exception {
+                    final Client client = createClient();
+                    final Policy policy = createPolicy(client);
+
+                    performRequestWith(policy.getId(), invalidParams)
+                        .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+
+                    assertStoredAsCreated(client);
+                }
+
+            }
+
+            @Nested
+            class withClientNotFound {
+
+                @Test
+                public void shouldReturnHttpStatusUnprocessableEntity() throws Exception {
+                    final Policy policy = createPolicy(createClient());
+
+                    performRequestWith(policy.getId(), newParams(notExistingClient()))
+                        .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+                }
+
+                @Test
+                public void shouldReturnFormErrors() throws Exception {
+                    final Policy policy = createPolicy(createClient());
+
+                    performRequestWith(policy.getId(), newParams(notExistingClient()))
+                        .expectBody()
+                        .jsonPath("$").value(hasSize(1))
+                        .jsonPath("$[*].defaultMessage").value(hasItem("Cliente não encontrado"));
+                }
+
+                @Test
+                public void shouldNotUpdatePolicy() throws Exception {
+                    final Client client = createClient();
+                    final Policy policy = createPolicy(client);
+
+                    performRequestWith(policy.getId(), newParams(notExistingClient()))
+                        .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+
+                    assertThat(policiesService.findAll(), hasSize(1));
+                    assertStoredAsCreated(client);
+                }
+
+            }
+
+            @Nested
+            class withClientIdNull {
+
+                @Test
+                public void shouldReturnHttpStatusUnprocessableEntity() throws Exception {
+                    final Policy policy = createPolicy(createClient());
+
+                    performRequestWith(policy.getId(), clientIdNullParams)
+                        .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+                }
+
+                @Test
+                public void shouldReturnFormErrors() throws Exception {
+                    final Policy policy = createPolicy(createClient());
+
+                    performRequestWith(policy.getId(), clientIdNullParams)
+                        .expectBody()
+                        .jsonPath("$").value(hasSize(1))
+                        .jsonPath("$[*].defaultMessage").value(hasItem("Id do Cliente é obrigatório"));
+                }
+
+                @Test
+                public void shouldNotUpdatePolicy() throws Exception {
+                    final Client client = createClient();
+                    final Policy policy = createPolicy(client);
+
+                    performRequestWith(policy.getId(), clientIdNullParams)
+                        .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+
+                    assertThat(policiesService.findAll(), hasSize(1));
+                    assertStoredAsCreated(client);
+                }
+
+            }
+
+        }
+
+        @Nested
+        class notExisting {
+
+            @Test
+            public void shouldReturnHttpStatusNotFound() throws Exception {
+                final Client client = createClient();
+                createPolicy(client);
+
+                performRequestWith("123", validParams(client))
+                    .expectStatus().isNotFound();
+            }
+
+            @Test
+            public void shouldNotUpdatePolicy() throws Exception {
+                final Client client = createClient();
+                createPolicy(client);
+
+                performRequestWith("123", newParams(client))
+                    .expectStatus().isNotFound();
+
+                assertStoredAsCreated(client);
+            }
+
+        }
+
+    }
+
+    @Nested
+    class delete {
+
+        private WebTestClient.ResponseSpec performRequestWith(String id) {
+            return webTestClient.delete().uri("/api/policies/" + id).exchange();
+        }
+
+        @Nested
+        class existing {
+
+            @Test
+            public void shouldReturnHttpStatusOk() throws Exception {
+                final Policy policy = createPolicy(createClient());
+
+                performRequestWith(policy.getId())
+                    .expectStatus().isOk();
+            }
+
+            @Test
+            public void shouldDelete() throws Exception {
+                final Policy policy = createPolicy(createClient());
+
+                performRequestWith(policy.getId()).expectStatus().isOk();
+
+                assertThat(policiesService.findAll(), hasSize(0));
+            }
+
+        }
+
+        @Nested
+        class notExisting {
+
+            @Test
+            public void shouldReturnHttpStatusNotFound() throws Exception {
+                createPolicy(createClient());
+
+                performRequestWith("123")
+                    .expectStatus().isNotFound();
+            }
+
+            @Test
+            public void shouldNotDelete() throws Exception {
+                createPolicy(createClient());
+
+                performRequestWith("123").expectStatus().isNotFound();
+
+                assertThat(policiesService.findAll(), hasSize(1));
+            }
+
+        }
+
+    }
+
+}
@@ -4,33 +4,49 @@ import br.com.asap.api.models.Client;
 import br.com.asap.api.models.Policy;
 import br.com.asap.api.services.entities_services.PoliciesService;
 import br.com.asap.api.services.repositories.ClientsRepository;
+import br.com.asap.api.services.repositories.MongoIndexes;
+import br.com.asap.api.support.MongoCommandRecorder;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.jayway.jsonpath.JsonPath;
+import org.bson.BsonDocument;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
 
+import static java.util.stream.Collectors.toList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
+@Import(MongoCommandRecorder.class)
 class ApiPoliciesControllerTest {
 
     private final MockMvc mockMvc;
@@ -38,16 +54,21 @@ class ApiPoliciesControllerTest {
     private final ClientsRepository policiesRepository;
     private final PoliciesService policiesService;
     private final ObjectMapper objectMapper;
+    private final MongoCommandRecorder mongoCommandRecorder;
+    private final MongoIndexes mongoIndexes;
 
     @Autowired
     public ApiPoliciesControllerTest(MockMvc mockMvc, MongoTemplate mongoTemplate,
                                      ClientsRepository policiesRepository,
-                                     PoliciesService policiesService, ObjectMapper objectMapper) {
+                                     PoliciesService policiesService, ObjectMapper objectMapper,
+                                     MongoCommandRecorder mongoCommandRecorder, MongoIndexes mongoIndexes) {
         this.mockMvc = mockMvc;
         this.mongoTemplate = mongoTemplate;
         this.policiesRepository = policiesRepository;
         this.policiesService = policiesService;
         this.objectMapper = objectMapper;
+        this.mongoCommandRecorder = mongoCommandRecorder;
+        this.mongoIndexes = mongoIndexes;
     }
 
 
@@ -94,6 +115,14 @@ class ApiPoliciesControllerTest {
         return policiesService.create(policy);
     }
 
+    private Policy createPolicyEndingAt(Client client, LocalDateTime effectiveDateEndAt) throws JsonProcessingException {
+        final Policy policy = objectMapper.readValue(validParams(client), Policy.class);
+        policy.setNumber(policiesService.generateNumber());
+        policy.setEffectiveDateStartAt(effectiveDateEndAt.minusYears(1));
+        policy.setEffectiveDateEndAt(effectiveDateEndAt);
+        return policiesService.create(policy);
+    }
+
     private Client createClient() {
         final Client client = new Client()
             .setCpf("728.687.544-22")
@@ -115,331 +144,159 @@ class ApiPoliciesControllerTest {
     @BeforeEach
     public void clearDb() {
         mongoTemplate.getDb().drop();
+        mongoIndexes.ensure();
     }
 
     @Nested
     class list {
 
-        private ResultActions performRequestWith() throws Exception {
-            return mockMvc.perform(get("/api/policies"));
-        }
-
-        @Test
-        public void shouldReturnHttpStatusOk() throws Exception {
-            performRequestWith().andExpect(status().isOk());
-        }
-
-    }
-
-    @Nested
-    class show {
-
-        private ResultActions performRequestWith(String id) throws Exception {
-            return mockMvc.perform(get("/api/policies/" + id));
-        }
-
         @Nested
-        class existing {
-
-            @Test
-            public void shouldReturnHttpStatusOk() throws Exception {
-
-                final Client client = createClient();
-                final Policy policy = createPolicy(client);
-
-                performRequestWith(policy.getId())
-                    .andExpect(status().isOk());
+        class withClientExpanded {
 
+            private ResultActions performRequestWith() throws Exception {
+                return mockMvc.perform(get("/api/policies").param("expand", "client"));
             }
 
             @Test
-            public void shouldReturnPolicy() throws Exception {
-
+            public void shouldRenderEachPolicyClient() throws Exception {
                 final Client client = createClient();
-                final Policy policy = createPolicy(client);
-
-                performRequestWith(policy.getId())
-                    .andExpect(jsonPath("$.id", is(notNullValue())))
-                    .andExpect(jsonPath("$.effectiveDateStartAt", is("2020-01-01T00:00:00")))
-                    .andExpect(jsonPath("$.effectiveDateEndAt", is("2020-01-31T23:59:59")))
-                    .andExpect(jsonPath("$.vehiclePlate", is("NEQ-1857")))
-                    .andExpect(jsonPath("$.number", is(notNullValue())));
+                final Client otherClient = createOtherClient();
+                createPolicy(client);
+                createPolicy(otherClient);
+                createPolicy(client);
+
+                performRequestWith()
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content", hasSize(3)))
+                    .andExpect(jsonPath("$.content[*].client.id",
+                        contains(client.getId(), otherClient.getId(), client.getId())))
+                    .andExpect(jsonPath("$.content[1].client.name", is("Tânia Regina Viana")))
+                    .andExpect(jsonPath("$.content[1].client.cpf", is("83168587702")));
             }
 
-        }
-
-        @Nested
-        class notExisting {
-
             @Test
-            public void shouldReturnHttpStatusNotFound() throws Exception {
-
-                performRequestWith("123")
-                    .andExpect(status().isNotFound());
-            }
-
-        }
-
-    }
-
-    @Nested
-    class showByNumber {
-
-        private ResultActions performRequestWith(Policy policy) throws Exception {
-            return mockMvc.perform(get("/api/policies/number/" + policy.getNumber()));
-        }
-
-        @Nested
-        class existing {
-
-            private Policy createPolicy(Client client, Integer number) {
-                final Policy policy = new Policy()
-                    .setClient(client)
-                    .setVehiclePlate("1234-abc")
-                    .setEffectiveDateStartAt(LocalDateTime.now().minusDays(10))
-                    .setEffectiveDateEndAt(LocalDateTime.now().minusDays(5))
-                    .setNumber(number);
-                return policiesService.create(policy);
-            }
-
-            @Nested
-            class expired {
-
-                @Test
-                public void shouldReturnHttpStatusOk() throws Exception {
-
-                    final Client client = createClient();
-                    final Integer number = policiesService.generateNumber();
-                    final Policy policy = createPolicy(client, number);
-
-                    performRequestWith(policy)
-                        .andExpect(status().isOk());
-                }
-
-                @Test
-                public void shouldShowExpiredDays() throws Exception {
-
-                    final Client client = createClient();
-                    final Integer number = policiesService.generateNumber();
-                    final Policy policy = createPolicy(client, number);
-
-                    performRequestWith(policy)
-                        .andExpect(jsonPath("$.id", is(notNullValue())))
-                        .andExpect(jsonPath("$.effectiveDateStartAt", is(notNullValue())))
-                        .andExpect(jsonPath("$.effectiveDateEndAt", is(notNullValue())))
-                        .andExpect(jsonPath("$.vehiclePlate", is("1234-abc")))
-                        .andExpect(jsonPath("$.expired", is(true)))
-                        .andExpect(jsonPath("$.daysExpired", is(5)))
-                        .andExpect(jsonPath("$.number", is(notNullValue())));
-                }
-
-            }
-
-            @Nested
-            class notExpired {
-
-                private Policy createPolicy(Client client, Integer number) {
-                    final Policy policy = new Policy()
-                        .setClient(client)
-                        .setVehiclePlate("1234-abc")
-                        .setEffectiveDateStartAt(LocalDateTime.now().minusDays(10))
-                        .setEffectiveDateEndAt(LocalDateTime.now().plusDays(6))
-                        .setNumber(number);
-                    return policiesService.create(policy);
-                }
-
-
-                @Test
-                public void shouldReturnHttpStatusOk() throws Exception {
-
-                    final Client client = createClient();
-                    final Integer number = policiesService.generateNumber();
-                    final Policy policy = createPolicy(client, number);
-
-                    performRequestWith(policy)
-                        .andExpect(status().isOk());
-                }
-
-                @Test
-                public void shouldShowDaysToExpire() throws Exception {
-
-                    final Client client = createClient();
-                    final Integer number = policiesService.generateNumber();
-                    final Policy policy = createPolicy(client, number);
-
-                    performRequestWith(policy)
-                        .andExpect(jsonPath("$.id", is(notNullValue())))
-                        .andExpect(jsonPath("$.effectiveDateStartAt", is(notNullValue())))
-                        .andExpect(jsonPath("$.effectiveDateEndAt", is(notNullValue())))
-                        .andExpect(jsonPath("$.vehiclePlate", is("1234-abc")))
-                        .andExpect(jsonPath("$.expired", is(false)))
-                        .andExpect(jsonPath("$.daysToExpire", is(5)))
-                        .andExpect(jsonPath("$.number", is(notNullValue())));
-                }
+            public void shouldRenderClientsInCursorMode() throws Exception {
+                final Client client = createClient();
+                createPolicy(client);
 
+                mockMvc.perform(get("/api/policies").param("expand", "client").param("after", ""))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[0].client.id", is(client.getId())))
+                    .andExpect(jsonPath("$.content[0].client.name", is("Manuel Vinicius da Mota")))
+                    .andExpect(jsonPath("$.size", is(10)));
             }
 
         }
 
         @Nested
-        class notExisting {
-
-            @Test
-            public void shouldReturnHttpStatusNotFound() throws Exception {
+        class withFields {
 
-                final Policy policy = new Policy()
-                    .setNumber(123);
-                policy.setId("123");
-                performRequestWith(policy)
-                    .andExpect(status().isNotFound());
+            private ResultActions performRequestWith(String fields) throws Exception {
+                return mockMvc.perform(get("/api/policies").param("fields", fields));
             }
-        }
-
-    }
-
-    @Nested
-    class create {
-
-        private ResultActions performRequestWith(String params) throws Exception {
-            return mockMvc.perform(post("/api/policies")
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(params)
-            );
-        }
-
-        @Nested
-        class withValidParams {
 
             @Test
-            public void shouldReturnHttpStatusCreated() throws Exception {
-                final Client client = createClient();
-
-                performRequestWith(validParams(client))
-                    .andExpect(status().isCreated());
+            public void shouldRenderOnlyTheFields() throws Exception {
+                final Policy policy = createPolicy(createClient());
+
+                performRequestWith("number,expired")
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[0].number", is(policy.getNumber())))
+                    .andExpect(jsonPath("$.content[0].expired", is(true)))
+                    .andExpect(jsonPath("$.content[0].id").doesNotExist())
+                    .andExpect(jsonPath("$.content[0].vehiclePlate").doesNotExist())
+                    .andExpect(jsonPath("$.content[0].daysExpired").doesNotExist());
             }
 
             @Test
-            public void shouldReturnPolicyCreated() throws Exception {
-                final Client client = createClient();
+            public void shouldReadTheStoredFieldsOfComputedOnes() throws Exception {
+                createPolicy(createClient());
+                mongoCommandRecorder.clear();
 
-                performRequestWith(validParams(client))
-                    .andExpect(jsonPath("$.id", is(notNullValue())))
-                    .andExpect(jsonPath("$.effectiveDateStartAt", is("2020-01-01T00:00:00")))
-                    .andExpect(jsonPath("$.effectiveDateEndAt", is("2020-01-31T23:59:59")))
-                    .andExpect(jsonPath("$.vehiclePlate", is("NEQ-1857")))
-                    .andExpect(jsonPath("$.number", is(notNullValue())));
+                performRequestWith("id,daysToExpire");
 
+                final BsonDocument find = mongoCommandRecorder.on("policies").get(0);
+                assertThat(find.getFirstKey(), is("find"));
+                assertThat(find.getDocument("projection").keySet(),
+                    containsInAnyOrder("version", "updatedAt", "_id", "effectiveDateEndAt"));
             }
 
             @Test
-            public void shouldCreatePolicy() throws Exception {
+            public void shouldRenderExpandedClientsWhole() throws Exception {
                 final Client client = createClient();
+                createPolicy(client);
 
-                performRequestWith(validParams(client));
-
-                final List<Policy> all = policiesService.findAll();
-                assertThat(all, hasSize(1));
-
-                final Policy policy = all.get(0);
-                assertThat(policy.getClient().getId(), is(client.getId()));
-                assertThat(policy.getEffectiveDateStartAt().toString(), is("2020-01-01T00:00"));
-                assertThat(policy.getEffectiveDateEndAt().toString(), is("2020-01-31T23:59:59"));
-                assertThat(policy.getVehiclePlate(), is("NEQ-1857"));
-                assertThat(policy.getNumber(), is(notNullValue()));
-            }
-
-        }
-
-        @Nested
-        class withInvalidParams {
-
-            @Test
-            public void shouldReturnHttpStatusUnprocessableEntity() throws Exception {
-                performRequestWith(invalidParams)
-                    .andExpect(status().isUnprocessableEntity());
+                mockMvc.perform(get("/api/policies").param("expand", "client").param("fields", "number,client"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[0].vehiclePlate").doesNotExist())
+                    .andExpect(jsonPath("$.content[0].client.id", is(client.getId())))
+                    .andExpect(jsonPath("$.content[0].client.name", is("Manuel Vinicius da Mota")));
             }
 
             @Test
-            public void shouldReturnFormErrors() throws Exception {
-                performRequestWith(invalidParams)
-                    .andExpect(jsonPath("$", hasSize(4)))
-                    .andExpect(jsonPath("$[*].defaultMessage", hasItem("Data inicial de vigência é obrigatória")))
-                    .andExpect(jsonPath("$[*].defaultMessage", hasItem("Data final de vigência é obrigatória")))
-                    .andExpect(jsonPath("$[*].defaultMessage", hasItem("Placa do veículo é oobrigatória")))
-                    .andExpect(jsonPath("$[*].defaultMessage", hasItem("Cliente é obrigatório")));
+            public void shouldRenderFieldsOfExpiringPolicies() throws Exception {
+                final Policy tomorrow = createPolicyEndingAt(createClient(), LocalDateTime.now().plusDays(1));
+
+                mockMvc.perform(get("/api/policies/expiring").param("withinDays", "7").param("fields", "id,daysToExpire"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[*].id", contains(tomorrow.getId())))
+                    .andExpect(jsonPath("$.content[0].daysToExpire", is(notNullValue())))
+                    .andExpect(jsonPath("$.content[0].effectiveDateStartAt").doesNotExist());
             }
 
             @Test
-            public void shouldNotCreatePolicy() throws Exception {
-                performRequestWith(invalidParams);
-
-                final List<Policy> all = policiesService.findAll();
-                assertThat(all, hasSize(0));
-            }
-
-        }
-
-        @Nested
-        class withClientNotFound {
-
-            @Test
-            public void shouldReturnHttpStatusUnprocessableEntity() throws Exception {
-                final Client client = new Client();
-                client.setId("123234");
+            public void shouldRenderFieldsOfPoliciesExpiredSince() throws Exception {
+                final Client client = createClient();
+                createPolicyEndingAt(client, LocalDateTime.of(2020, 1, 31, 23, 59, 59));
+                final Policy february = createPolicyEndingAt(client, LocalDateTime.of(2020, 2, 25, 23, 59, 59));
 
-                performRequestWith(validParams(client))
-                    .andExpect(status().isUnprocessableEntity());
+                mockMvc.perform(get("/api/policies/expired").param("since", "2020-02-01T00:00:00").param("fields", "id"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content[*].id", contains(february.getId())))
+                    .andExpect(jsonPath("$.content[0].expired").doesNotExist());
             }
 
             @Test
-            public void shouldReturnFormErrors() throws Exception {
-                final Client client = new Client();
-                client.setId("123234");
-
-                performRequestWith(validParams(client))
-                    .andExpect(jsonPath("$", hasSize(1)))
-                    .andExpect(jsonPath("$[*].defaultMessage", hasItem("Cliente não encontrado")));
+            public void shouldReturnHttpStatusBadRequestForUnknownField() throws Exception {
+                performRequestWith("number,clientId")
+                    .andExpect(status().isBadRequest());
             }
 
-            @Test
-            public void shouldNotCreatePolicy() throws Exception {
-                final Client client = new Client();
-                client.setId("123234");
-
-                performRequestWith(validParams(client));
-
-                final List<Policy> all = policiesService.findAll();
-                assertThat(all, hasSize(0));
-
-            }
         }
 
         @Nested
-        class withClientIdNull {
-
-            @Test
-            public void shouldReturnHttpStatusUnprocessableEntity() throws Exception {
-                performRequestWith(clientIdNullParams)
-                    .andExpect(status().isUnprocessableEntity());
+        class inSmile {
+
+            private JsonNode performRequestWith(String expand) throws Exception {
+                final byte[] body = mockMvc.perform(get("/api/policies")
+                        .param("expand", expand)
+                        .accept("application/x-jackson-smile"))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType("application/x-jackson-smile"))
+                    .andReturn().getResponse().getContentAsByteArray();
+                return new ObjectMapper(new SmileFactory()).readTree(body);
             }
 
             @Test
-            public void shouldReturnFormErrors() throws Exception {
+            public void shouldRenderContentWithShowView() throws Exception {
+                final Policy policy = createPolicy(createClient());
+
+                final JsonNode page = performRequestWith("");
 
-                performRequestWith(clientIdNullParams)
-                    .andExpect(jsonPath("$", hasSize(1)))
-                    .andExpect(jsonPath("$[*].defaultMessage", hasItem("Id do Cliente é obrigatório")));
+                assertThat(page.get("totalElements").asInt(), is(1));
+                assertThat(page.get("content").get(0).get("number").asInt(), is(policy.getNumber()));
+                assertThat(page.get("content").get(0).get("effectiveDateStartAt").asText(), is("2020-01-01T00:00:00"));
+                assertThat(page.get("content").get(0).has("client"), is(false));
             }
 
             @Test
-            public void shouldNotCreatePolicy() throws Exception {
-
-
-                performRequestWith(clientIdNullParams);
+            public void shouldRenderExpandedClients() throws Exception {
+                final Client client = createClient();
+                createPolicy(client);
 
-                final List<Policy> all = policiesService.findAll();
-                assertThat(all, hasSize(0));
+                final JsonNode page = performRequestWith("client");
 
+                assertThat(page.get("content").get(0).get("client").get("name").asText(), is("Manuel Vinicius da Mota"));
             }
 
         }
@@ -447,313 +304,327 @@ class ApiPoliciesControllerTest {
     }
 
     @Nested
-    class update {
+    class listExpiring {
 
-        private ResultActions performRequestWith(String id, String params) throws Exception {
-            return mockMvc.perform(put("/api/policies/" + id)
-                .contentType(MediaType.APPLICATION_JSON)
-                .content(params)
-            );
+        private ResultActions performRequestWith(String withinDays) throws Exception {
+            return mockMvc.perform(get("/api/policies/expiring").param("withinDays", withinDays));
         }
 
-        @Nested
-        class existing {
-
-            @Nested
-            class withValidParams {
-
-                @Test
-                public void shouldReturnHttpStatusOk() throws Exception {
-
-                    final Client client = createClient();
-                    final Policy policy = createPolicy(client);
-
-                    final Client otherClient = createOtherClient();
-
-                    performRequestWith(policy.getId(), newParams(otherClient))
-                        .andExpect(status().isOk());
-                }
-
-                @Test
-                public void shouldReturnUpdatedPolicy() throws Exception {
-
-                    final Client client = createClient();
-                    final Policy policy = createPolicy(client);
-                    final Client otherClient = createOtherClient();
-
-                    performRequestWith(policy.getId(), newParams(otherClient))
-                        .andExpect(jsonPath("$.id", is(policy.getId())))
-                        .andExpect(jsonPath("$.effectiveDateStartAt", is("2020-02-01T00:00:00")))
-                        .andExpect(jsonPath("$.effectiveDateEndAt", is("2020-02-25T23:59:59")))
-                        .andExpect(jsonPath("$.vehiclePlate", is("ABC-1234")))
-                        .andExpect(jsonPath("$.number", is(policy.getNumber())));
-
-                }
-
-                @Test
-                public void shouldUpdatePolicy() throws Exception {
-
-                    final Client client = createClient();
-                    final Policy policy = createPolicy(client);
-                    final Client otherClient = createOtherClient();
-
-                    performRequestWith(policy.getId(), newParams(otherClient));
-
-                    final List<Policy> all = policiesService.findAll();
-                    final Policy policy1 = all.get(0);
-
-                    assertThat(policy1.getClient().getId(), is(otherClient.getId()));
-                    assertThat(policy1.getEffectiveDateStartAt().toString(), is("2020-02-01T00:00"));
-                    assertThat(policy1.getEffectiveDateEndAt().toString(), is("2020-02-25T23:59:59"));
-                    assertThat(policy1.getVehiclePlate(), is("ABC-1234"));
-                    assertThat(policy1.getNumber(), is(notNullValue()));
-                }
-
-            }
-
-            @Nested
-            class withInvalidParams {
-
-                @Test
-                public void shouldReturnHttpStatusUnprocessableEntity() throws Exception {
-
-                    final Client client = createClient();
-                    final Policy policy = createPolicy(client);
-
-                    performRequestWith(policy.getId(), invalidParams)
-                        .andExpect(status().isUnprocessableEntity());
-                }
-
-                @Test
-                public void shouldReturnFormErrors() throws Exception {
-
-                    final Client client = createClient();
-                    final Policy policy = createPolicy(client);
-
-                    performRequestWith(policy.getId(), invalidParams)
-                        .andExpect(jsonPath("$", hasSize(4)))
-                        .andExpect(jsonPath("$[*].defaultMessage", hasItem("Data inicial de vigência é obrigatória")))
-                        .andExpect(jsonPath("$[*].defaultMessage", hasItem("Data final de vigência é obrigatória")))
-                        .andExpect(jsonPath("$[*].defaultMessage", hasItem("Placa do veículo é oobrigatória")))
-                        .andExpect(jsonPath("$[*].defaultMessage", hasItem("Cliente é obrigatório")));
-                }
+        @Test
+        public void shouldRenderPoliciesEndingWithinDaysSoonestFirst() throws Exception {
+            final Client client = createClient();
+            final LocalDateTime now = LocalDateTime.now();
+            final Policy inSixDays = createPolicyEndingAt(client, now.plusDays(6));
+            createPolicyEndingAt(client, now.minusDays(1));
+            final Policy tomorrow = createPolicyEndingAt(client, now.plusDays(1));
+            createPolicyEndingAt(client, now.plusDays(8));
+
+            performRequestWith("7")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", is(2)))
+                .andExpect(jsonPath("$.content[*].id", contains(tomorrow.getId(), inSixDays.getId())))
+                .andExpect(jsonPath("$.content[0].expired", is(false)))
+                .andExpect(jsonPath("$.content[0].client").doesNotExist());
+        }
 
-                @Test
-                public void shouldNotUpdatePolicy() throws Exception {
+        @Test
+        public void shouldQueryTheEffectiveDateEndAtRange() throws Exception {
+            createPolicyEndingAt(createClient(), LocalDateTime.now().plusDays(1));
+            mongoCommandRecorder.clear();
 
-                    final Client client = createClient();
-                    final Policy policy = createPolicy(client);
+            performRequestWith("7").andExpect(status().isOk());
 
-                    performRequestWith(policy.getId(), invalidParams);
+            final BsonDocument find = mongoCommandRecorder.on("policies").get(0);
+            assertThat(find.getFirstKey(), is("find"));
+            assertThat(find.getDocument("filter").keySet(), contains("effectiveDateEndAt"));
+            assertThat(find.getDocument("filter").getDocument("effectiveDateEndAt").keySet(), contains("$gte", "$lte"));
+            assertThat(find.getDocument("sort").keySet(), contains("effectiveDateEndAt", "_id"));
+        }
 
-                    final List<Policy> all = policiesService.findAll();
-                    final Policy policy1 = all.get(0);
+        @Test
+        public void shouldHaveAnIndexOnEffectiveDateEndAt() {
+            assertThat(mongoTemplate.indexOps(Policy.class).getIndexInfo().stream()
+                .map(IndexInfo::getName).collect(toList()), hasItem("effective_date_end_at"));
+        }
 
-                    assertThat(policy1.getClient().getId(), is(client.getId()));
-                    assertThat(policy1.getEffectiveDateStartAt().toString(), is("2020-01-01T00:00"));
-                    assertThat(policy1.getEffectiveDateEndAt().toString(), is("2020-01-31T23:59:59"));
-                    assertThat(policy1.getVehiclePlate(), is("NEQ-1857"));
-                    assertThat(policy1.getNumber(), is(notNullValue()));
-                }
+        @Test
+        public void shouldReturnHttpStatusBadRequestForNegativeDays() throws Exception {
+            performRequestWith("-1").andExpect(status().isBadRequest());
+        }
 
-            }
+        @Test
+        public void shouldReturnHttpStatusBadRequestWithoutDays() throws Exception {
+            mockMvc.perform(get("/api/policies/expiring")).andExpect(status().isBadRequest());
+        }
 
-            @Nested
-            class withClientNotFound {
+    }
 
-                @Test
-                public void shouldReturnHttpStatusUnprocessableEntity() throws Exception {
+    @Nested
+    class listExpired {
 
-                    final Client client = createClient();
-                    final Policy policy = createPolicy(client);
+        @Test
+        public void shouldRenderExpiredPoliciesLatestFirst() throws Exception {
+            final Client client = createClient();
+            final LocalDateTime now = LocalDateTime.now();
+            final Policy lastYear = createPolicyEndingAt(client, now.minusYears(1));
+            final Policy yesterday = createPolicyEndingAt(client, now.minusDays(1));
+            createPolicyEndingAt(client, now.plusDays(1));
+
+            mockMvc.perform(get("/api/policies/expired"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements", is(2)))
+                .andExpect(jsonPath("$.content[*].id", contains(yesterday.getId(), lastYear.getId())))
+                .andExpect(jsonPath("$.content[0].expired", is(true)));
+        }
 
-                    final Client notExistingClient = new Client();
-                    notExistingClient.setId("123234");
+        @Test
+        public void shouldRenderOnlyPoliciesExpiredSince() throws Exception {
+            final Client client = createClient();
+            createPolicyEndingAt(client, LocalDateTime.of(2020, 1, 31, 23, 59, 59));
+            final Policy february = createPolicyEndingAt(client, LocalDateTime.of(2020, 2, 25, 23, 59, 59));
+
+            mockMvc.perform(get("/api/policies/expired").param("since", "2020-02-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].id", contains(february.getId())));
+        }
 
-                    final String params = newParams(notExistingClient);
-                    performRequestWith(policy.getId(), params)
-                        .andExpect(status().isUnprocessableEntity());
-                }
+        @Test
+        public void shouldReturnHttpStatusBadRequestForInvalidSince() throws Exception {
+            mockMvc.perform(get("/api/policies/expired").param("since", "ontem"))
+                .andExpect(status().isBadRequest());
+        }
 
-                @Test
-                public void shouldReturnFormErrors() throws Exception {
+    }
 
-                    final Client client = createClient();
-                    final Policy policy = createPolicy(client);
+    @Nested
+    class export {
 
-                    final Client notExistingClient = new Client();
-                    notExistingClient.setId("123234");
+        @Test
+        public void shouldStreamOneJsonLinePerPolicy() throws Exception {
+            final Client client = createClient();
+            final Policy policy = createPolicy(client);
+            final Policy otherPolicy = createPolicy(client);
+
+            final String[] lines = mockMvc.perform(get("/api/policies/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+            assertThat(lines.length, is(2));
+            assertThat(JsonPath.read(lines[0], "$.number"), is(policy.getNumber()));
+            assertThat(JsonPath.read(lines[1], "$.number"), is(otherPolicy.getNumber()));
+        }
 
-                    final String params = newParams(notExistingClient);
-                    performRequestWith(policy.getId(), params)
-                        .andExpect(jsonPath("$", hasSize(1)))
-                        .andExpect(jsonPath("$[*].defaultMessage", hasItem("Cliente não encontrado")));
-                }
+        @Test
+        public void shouldStreamCsvWithClientIdWithoutLoadingClients() throws Exception {
+            final Client client = createClient();
+            final Policy policy = createPolicy(client);
+            mongoCommandRecorder.clear();
+
+            final String[] lines = mockMvc.perform(get("/api/policies/export").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andReturn().getResponse().getContentAsString().split("\r\n");
+
+            assertThat(lines.length, is(2));
+            assertThat(lines[0], is("id,version,updatedAt,number,effectiveDateStartAt,effectiveDateEndAt,vehiclePlate,clientId"));
+            assertThat(lines[1], startsWith(policy.getId() + ",0,"));
+            assertThat(lines[1], endsWith("," + policy.getNumber() + ",2020-01-01T00:00:00,2020-01-31T23:59:59,NEQ-1857,"
+                + client.getId()));
+            assertThat(mongoCommandRecorder.on("clients"), is(empty()));
+        }
 
-                @Test
-                public void shouldNotUpdatePolicy() throws Exception {
+    }
 
-                    final Client client = createClient();
-                    final Policy policy = createPolicy(client);
+    @Nested
+    class showByNumber {
 
-                    final Client notExistingClient = new Client();
-                    notExistingClient.setId("123234");
+        private ResultActions performRequestWith(Policy policy) throws Exception {
+            return mockMvc.perform(get("/api/policies/number/" + policy.getNumber()));
+        }
 
-                    final String params = newParams(notExistingClient);
-                    performRequestWith(policy.getId(), params);
+        @Nested
+        class withFields {
 
-                    final List<Policy> all = policiesService.findAll();
-                    assertThat(all, hasSize(1));
+            @Test
+            public void shouldRenderOnlyTheFields() throws Exception {
 
-                    final Policy policy1 = all.get(0);
-                    assertThat(policy1.getClient().getId(), is(client.getId()));
-                    assertThat(policy1.getEffectiveDateStartAt().toString(), is("2020-01-01T00:00"));
-                    assertThat(policy1.getEffectiveDateEndAt().toString(), is("2020-01-31T23:59:59"));
-                    assertThat(policy1.getVehiclePlate(), is("NEQ-1857"));
-                    assertThat(policy1.getNumber(), is(notNullValue()));
+                final Policy policy = createPolicy(createClient());
 
-                }
+                mockMvc.perform(get("/api/policies/number/" + policy.getNumber()).param("fields", "vehiclePlate"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", startsWith("\"0-")))
+                    .andExpect(jsonPath("$.vehiclePlate", is("NEQ-1857")))
+                    .andExpect(jsonPath("$.number").doesNotExist());
             }
 
-            @Nested
-            class withClientIdNull {
-
-                @Test
-                public void shouldReturnHttpStatusUnprocessableEntity() throws Exception {
-
-                    final Client client = createClient();
-                    final Policy policy = createPolicy(client);
-
-                    performRequestWith(policy.getId(), clientIdNullParams)
-                        .andExpect(status().isUnprocessableEntity());
-                }
-
-                @Test
-                public void shouldReturnFormErrors() throws Exception {
-
-                    final Client client = createClient();
-                    final Policy policy = createPolicy(client);
-
-                    performRequestWith(policy.getId(), clientIdNullParams)
-                        .andExpect(jsonPath("$", hasSize(1)))
-                        .andExpect(jsonPath("$[*].defaultMessage", hasItem("Id do Cliente é obrigatório")));
-                }
-
-                @Test
-                public void shouldNotUpdatePolicy() throws Exception {
-
-                    final Client client = createClient();
-                    final Policy policy = createPolicy(client);
-
-                    performRequestWith(policy.getId(), clientIdNullParams);
-
-                    final List<Policy> all = policiesService.findAll();
-                    assertThat(all, hasSize(1));
+            @Test
+            public void shouldReturnHttpStatusBadRequestForUnknownField() throws Exception {
 
-                    final Policy policy1 = all.get(0);
-                    assertThat(policy1.getClient().getId(), is(client.getId()));
-                    assertThat(policy1.getEffectiveDateStartAt().toString(), is("2020-01-01T00:00"));
-                    assertThat(policy1.getEffectiveDateEndAt().toString(), is("2020-01-31T23:59:59"));
-                    assertThat(policy1.getVehiclePlate(), is("NEQ-1857"));
-                    assertThat(policy1.getNumber(), is(notNullValue()));
-                }
+                final Policy policy = createPolicy(createClient());
 
+                mockMvc.perform(get("/api/policies/number/" + policy.getNumber()).param("fields", "plate"))
+                    .andExpect(status().isBadRequest());
             }
 
         }
 
         @Nested
-        class notExisting {
+        class withCurrentETag {
 
             @Test
-            public void shouldReturnHttpStatusNotFound() throws Exception {
+            public void shouldReturnHttpStatusNotModified() throws Exception {
 
                 final Client client = createClient();
                 final Policy policy = createPolicy(client);
+                final String eTag = performRequestWith(policy)
+                    .andReturn().getResponse().getHeader("ETag");
 
-                performRequestWith("123", validParams(client))
-                    .andExpect(status().isNotFound());
+                mockMvc.perform(get("/api/policies/number/" + policy.getNumber()).header("If-None-Match", eTag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", eTag));
             }
 
             @Test
-            public void shouldNotUpdatePolicy() throws Exception {
+            public void shouldReturnPolicyOnceItChanges() throws Exception {
 
                 final Client client = createClient();
                 final Policy policy = createPolicy(client);
+                final String eTag = performRequestWith(policy)
+                    .andReturn().getResponse().getHeader("ETag");
+                policiesService.update(policy.setVehiclePlate("ABC-1234"));
 
-                performRequestWith("123", validParams(client))
-                    .andExpect(status().isNotFound());
+                mockMvc.perform(get("/api/policies/number/" + policy.getNumber()).header("If-None-Match", eTag))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.vehiclePlate", is("ABC-1234")));
+            }
 
-                final List<Policy> all = policiesService.findAll();
-                final Policy policy1 = all.get(0);
+            @Test
+            public void shouldNotAnswerNotModifiedForAWriteThatBypassedTheCache() throws Exception {
 
-                assertThat(policy1.getClient().getId(), is(client.getId()));
-                assertThat(policy1.getEffectiveDateStartAt().toString(), is("2020-01-01T00:00"));
-                assertThat(policy1.getEffectiveDateEndAt().toString(), is("2020-01-31T23:59:59"));
-                assertThat(policy1.getVehiclePlate(), is("NEQ-1857"));
-                assertThat(policy1.getNumber(), is(notNullValue()));
+                final Client client = createClient();
+                final Policy policy = createPolicy(client);
+                final String eTag = performRequestWith(policy)
+                    .andReturn().getResponse().getHeader("ETag");
+                mongoTemplate.updateFirst(Query.query(where("id").is(policy.getId())),
+                    new Update().set("vehiclePlate", "ABC-1234").inc("version", 1), Policy.class);
+
+                mockMvc.perform(get("/api/policies/number/" + policy.getNumber()).header("If-None-Match", eTag))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.vehiclePlate", is("ABC-1234")));
             }
 
         }
 
     }
 
-
     @Nested
-    class delete {
-
-        private ResultActions performRequestWith(String id) throws Exception {
-            return mockMvc.perform(delete("/api/policies/" + id));
-        }
+    class create {
 
         @Nested
-        class existing {
+        class withNumberTaken {
+
+            private Policy policyNumbered(Client client, Integer number) throws JsonProcessingException {
+                return objectMapper.readValue(newParams(client), Policy.class).setNumber(number);
+            }
 
             @Test
-            public void shouldReturnHttpStatusOk() throws Exception {
+            public void shouldCreateWithNextNumber() throws Exception {
                 final Client client = createClient();
-                final Policy policy = createPolicy(client);
+                final Policy taken = createPolicy(client);
 
-                performRequestWith(policy.getId())
-                    .andExpect(status().isOk());
+                final Policy created = policiesService.create(policyNumbered(client, taken.getNumber()));
+
+                assertThat(created.getNumber(), is(not(taken.getNumber())));
+                assertThat(policiesService.findAll(), hasSize(2));
             }
 
             @Test
-            public void shouldDelete() throws Exception {
+            public void shouldCreateBatchWithNextNumbers() throws Exception {
                 final Client client = createClient();
-                performRequestWith(client.getId());
+                final Policy taken = createPolicy(client);
 
-                final List<Policy> all = policiesService.findAll();
-                assertThat(all, hasSize(0));
+                final List<Integer> rejected = policiesService.createAll(Arrays.asList(
+                    policyNumbered(client, taken.getNumber()), policyNumbered(client, taken.getNumber())));
 
+                assertThat(rejected, is(empty()));
+                assertThat(policiesService.findAll().stream().map(Policy::getNumber).distinct().count(), is(3L));
             }
 
         }
 
-        @Nested
-        class notExisting {
+    }
 
-            @Test
-            public void shouldReturnHttpStatusNotFound() throws Exception {
-                final Client client = createClient();
-                final Policy policy = createPolicy(client);
-                performRequestWith("123")
-                    .andExpect(status().isNotFound());
-            }
+    @Nested
+    class importPolicies {
+
+        private List<String> performRequestWith(String... lines) throws Exception {
+            final String response = mockMvc.perform(post("/api/policies/import")
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .content(String.join("\n", lines))
+            )
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+            return Arrays.asList(response.split("\n"));
+        }
 
-            @Test
-            public void shouldNotDelete() throws Exception {
-                final Client client = createClient();
-                final Policy policy = createPolicy(client);
+        @Test
+        public void shouldCreateOnePolicyPerLine() throws Exception {
+            final Client client = createClient();
 
-                performRequestWith("123");
+            final List<String> lines = performRequestWith(validParams(client), newParams(client));
 
-                final List<Policy> all = policiesService.findAll();
-                assertThat(all, hasSize(1));
+            assertThat(lines, hasSize(1));
+            assertThat(JsonPath.read(lines.get(0), "$.imported"), is(2));
+            assertThat(JsonPath.read(lines.get(0), "$.rejected"), is(0));
 
-            }
+            final List<Policy> policies = policiesService.findAll();
+            assertThat(policies, hasSize(2));
+            assertThat(policies.get(0).getNumber(), is(not(policies.get(1).getNumber())));
+        }
+
+        @Test
+        public void shouldReportRejectedLinesByLineNumber() throws Exception {
+            final Client client = createClient();
+            final Client notSavedClient = new Client();
+            notSavedClient.setId("600c6c9db16df808354b113f");
+
+            final List<String> lines = performRequestWith(
+                validParams(client),
+                "{\"vehiclePlate\":",
+                "",
+                validParams(notSavedClient),
+                clientIdNullParams,
+                invalidParams
+            );
+
+            assertThat(lines, hasSize(5));
+            assertThat(JsonPath.read(lines.get(0), "$.line"), is(2));
+            assertThat(JsonPath.read(lines.get(0), "$.errors[0].codes[0]"), is("invalid_json"));
+
+            final String errors = String.join("\n", lines.subList(1, 4));
+            assertThat(errors, containsString("\"line\":4"));
+            assertThat(errors, containsString("client_not_found"));
+            assertThat(errors, containsString("\"line\":5"));
+            assertThat(errors, containsString("client_id_is_required"));
+            assertThat(errors, containsString("\"line\":6"));
+
+            assertThat(JsonPath.read(lines.get(4), "$.imported"), is(1));
+            assertThat(JsonPath.read(lines.get(4), "$.rejected"), is(4));
+            assertThat(policiesService.findAll(), hasSize(1));
+        }
+
+        @Test
+        public void shouldNumberOnlyValidLines() throws Exception {
+            final Client client = createClient();
+            final Integer before = policiesService.generateNumber();
+
+            performRequestWith(invalidParams, clientIdNullParams, validParams(client));
 
+            final List<Policy> policies = policiesService.findAll();
+            assertThat(policies, hasSize(1));
+            assertThat(policies.get(0).getNumber(), is(before + 1));
         }
 
     }
-}
\ No newline at end of file
+}
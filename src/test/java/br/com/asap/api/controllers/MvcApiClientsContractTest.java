@@ -0,0 +1,30 @@
+package br.com.asap.api.controllers;
+
+import br.com.asap.api.services.entities_services.ClientsService;
+import br.com.asap.api.services.repositories.MongoIndexes;
+import br.com.asap.api.support.MongoCommandRecorder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.client.MockMvcWebTestClient;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(MongoCommandRecorder.class)
+class MvcApiClientsContractTest extends ApiClientsContractTest {
+
+    @Autowired
+    public MvcApiClientsContractTest(MockMvc mockMvc, ClientsService clientsService,
+                                     ObjectMapper objectMapper, MongoTemplate mongoTemplate,
+                                     MongoCommandRecorder mongoCommandRecorder, MongoIndexes mongoIndexes) {
+        super(MockMvcWebTestClient.bindTo(mockMvc).build(), clientsService, objectMapper, mongoTemplate,
+            mongoCommandRecorder, mongoIndexes);
+    }
+
+}
@@ -0,0 +1,32 @@
+package br.com.asap.api.controllers;
+
+import br.com.asap.api.services.entities_services.PoliciesService;
+import br.com.asap.api.services.repositories.ClientsRepository;
+import br.com.asap.api.services.repositories.MongoIndexes;
+import br.com.asap.api.support.MongoCommandRecorder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.client.MockMvcWebTestClient;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(MongoCommandRecorder.class)
+class MvcApiPoliciesContractTest extends ApiPoliciesContractTest {
+
+    @Autowired
+    public MvcApiPoliciesContractTest(MockMvc mockMvc, MongoTemplate mongoTemplate,
+                                      ClientsRepository clientsRepository,
+                                      PoliciesService policiesService, ObjectMapper objectMapper,
+                                      MongoCommandRecorder mongoCommandRecorder, MongoIndexes mongoIndexes) {
+        super(MockMvcWebTestClient.bindTo(mockMvc).build(), mongoTemplate, clientsRepository, policiesService,
+            objectMapper, mongoCommandRecorder, mongoIndexes);
+    }
+
+}
@@ -0,0 +1,61 @@
+package br.com.asap.api.controllers.reactive;
+
+import br.com.asap.api.controllers.ApiClientsContractTest;
+import br.com.asap.api.services.entities_services.ClientsService;
+import br.com.asap.api.services.repositories.MongoIndexes;
+import br.com.asap.api.support.MongoCommandRecorder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+@ActiveProfiles({"test", "reactive"})
+@Import(MongoCommandRecorder.class)
+class ReactiveApiClientsContractTest extends ApiClientsContractTest {
+
+    private final WebTestClient webTestClient;
+
+    @Autowired
+    public ReactiveApiClientsContractTest(WebTestClient webTestClient, ClientsService clientsService,
+                                          ObjectMapper objectMapper, MongoTemplate mongoTemplate,
+                                          MongoCommandRecorder mongoCommandRecorder, MongoIndexes mongoIndexes) {
+        super(webTestClient, clientsService, objectMapper, mongoTemplate, mongoCommandRecorder, mongoIndexes);
+        this.webTestClient = webTestClient;
+    }
+
+    @Nested
+    class onlyInDefaultMode {
+
+        @Test
+        public void shouldReturnHttpStatusNotImplementedForExport() {
+            webTestClient.get().uri("/api/clients/export")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+        }
+
+        @Test
+        public void shouldReturnHttpStatusNotImplementedForBulk() {
+            webTestClient.post().uri("/api/clients/bulk")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+        }
+
+        @Test
+        public void shouldReturnHttpStatusNotImplementedForFields() {
+            webTestClient.get().uri("/api/clients?fields=name")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+        }
+
+    }
+
+}
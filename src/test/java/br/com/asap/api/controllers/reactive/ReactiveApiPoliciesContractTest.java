@@ -0,0 +1,85 @@
+package br.com.asap.api.controllers.reactive;
+
+import br.com.asap.api.controllers.ApiPoliciesContractTest;
+import br.com.asap.api.services.entities_services.PoliciesService;
+import br.com.asap.api.services.repositories.ClientsRepository;
+import br.com.asap.api.services.repositories.MongoIndexes;
+import br.com.asap.api.support.MongoCommandRecorder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+@ActiveProfiles({"test", "reactive"})
+@Import(MongoCommandRecorder.class)
+class ReactiveApiPoliciesContractTest extends ApiPoliciesContractTest {
+
+    private final WebTestClient webTestClient;
+
+    @Autowired
+    public ReactiveApiPoliciesContractTest(WebTestClient webTestClient, MongoTemplate mongoTemplate,
+                                           ClientsRepository clientsRepository,
+                                           PoliciesService policiesService, ObjectMapper objectMapper,
+                                           MongoCommandRecorder mongoCommandRecorder, MongoIndexes mongoIndexes) {
+        super(webTestClient, mongoTemplate, clientsRepository, policiesService, objectMapper,
+            mongoCommandRecorder, mongoIndexes);
+        this.webTestClient = webTestClient;
+    }
+
+    @Nested
+    class onlyInDefaultMode {
+
+        @Test
+        public void shouldReturnHttpStatusNotImplementedForExpiring() {
+            webTestClient.get().uri("/api/policies/expiring?withinDays=5")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+        }
+
+        @Test
+        public void shouldReturnHttpStatusNotImplementedForExpired() {
+            webTestClient.get().uri("/api/policies/expired")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+        }
+
+        @Test
+        public void shouldReturnHttpStatusNotImplementedForExport() {
+            webTestClient.get().uri("/api/policies/export")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+        }
+
+        @Test
+        public void shouldReturnHttpStatusNotImplementedForImport() {
+            webTestClient.post().uri("/api/policies/import")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+        }
+
+        @Test
+        public void shouldReturnHttpStatusNotImplementedForExpandedClients() {
+            webTestClient.get().uri("/api/policies?expand=client")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+        }
+
+        @Test
+        public void shouldReturnHttpStatusNotImplementedForFields() {
+            webTestClient.get().uri("/api/policies/number/1?fields=number")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED);
+        }
+
+    }
+
+}
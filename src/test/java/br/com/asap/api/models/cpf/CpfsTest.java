@@ -0,0 +1,110 @@
+package br.com.asap.api.models.cpf;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class CpfsTest {
+
+    private static int checkDigit(String digits) {
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            sum += (digits.charAt(i) - '0') * (digits.length() + 1 - i);
+        }
+        final int remainder = sum % 11;
+        return remainder < 2 ? 0 : 11 - remainder;
+    }
+
+    private static String withCheckDigits(String base) {
+        final int first = checkDigit(base);
+        return base + first + checkDigit(base + first);
+    }
+
+    @Nested
+    class pack {
+
+        @Test
+        public void shouldPackFormattedAndPlainCpfsAlike() {
+            assertThat(Cpfs.pack("728.687.544-22"), is(72868754422L));
+            assertThat(Cpfs.pack("72868754422"), is(72868754422L));
+            assertThat(Cpfs.pack("  728.687.544-22 "), is(72868754422L));
+        }
+
+        @Test
+        public void shouldKeepLeadingZeros() {
+            assertThat(Cpfs.format(Cpfs.pack("012.345.678-90")), is("01234567890"));
+        }
+
+        @Test
+        public void shouldRejectAnythingButElevenDigits() {
+            assertThat(Cpfs.pack(null), is(Cpfs.INVALID));
+            assertThat(Cpfs.pack(""), is(Cpfs.INVALID));
+            assertThat(Cpfs.pack("728.687.544-2"), is(Cpfs.INVALID));
+            assertThat(Cpfs.pack("728.687.544-221"), is(Cpfs.INVALID));
+            assertThat(Cpfs.pack("728 687 544 22"), is(Cpfs.INVALID));
+            assertThat(Cpfs.pack("728.687.544-2a"), is(Cpfs.INVALID));
+        }
+
+    }
+
+    @Nested
+    class isValid {
+
+        @Test
+        public void shouldAcceptCpfsWithRightCheckDigits() {
+            assertThat(Cpfs.isValid("728.687.544-22"), is(true));
+            assertThat(Cpfs.isValid("83168587702"), is(true));
+            assertThat(Cpfs.isValid("629.840.675-17"), is(true));
+        }
+
+        @Test
+        public void shouldRejectWrongCheckDigits() {
+            assertThat(Cpfs.isValid("728.687.544-23"), is(false));
+            assertThat(Cpfs.isValid("728.687.544-32"), is(false));
+            assertThat(Cpfs.isValid("618.451.153-07"), is(false));
+        }
+
+        @Test
+        public void shouldRejectRepeatedDigits() {
+            assertThat(Cpfs.isValid("111.111.111-11"), is(false));
+            assertThat(Cpfs.isValid("00000000000"), is(false));
+        }
+
+        @Test
+        public void shouldAgreeWithCheckDigitsComputedFromTheString() {
+            final Random random = new Random(42);
+            for (int i = 0; i < 10_000; i++) {
+                final String base = String.format("%09d", random.nextInt(1_000_000_000));
+                final String cpf = withCheckDigits(base);
+                if (base.chars().distinct().count() > 1) {
+                    assertThat(cpf, Cpfs.isValid(cpf), is(true));
+                }
+                final String wrong = base + ((cpf.charAt(9) - '0' + 1) % 10) + cpf.charAt(10);
+                assertThat(wrong, Cpfs.isValid(wrong), is(false));
+            }
+        }
+
+    }
+
+    @Nested
+    class digits {
+
+        @Test
+        public void shouldReturnPlainCpfUnchanged() {
+            final String cpf = "72868754422";
+
+            assertThat(Cpfs.digits(cpf, Cpfs.pack(cpf)), is(sameInstance(cpf)));
+        }
+
+        @Test
+        public void shouldStripFormatting() {
+            assertThat(Cpfs.digits("728.687.544-22", Cpfs.pack("728.687.544-22")), is("72868754422"));
+        }
+
+    }
+
+}
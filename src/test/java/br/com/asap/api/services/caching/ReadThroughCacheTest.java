@@ -0,0 +1,187 @@
+package br.com.asap.api.services.caching;
+
+import br.com.asap.api.models.Client;
+import br.com.asap.api.models.Policy;
+import br.com.asap.api.services.entities_services.ClientsService;
+import br.com.asap.api.services.entities_services.PoliciesService;
+import br.com.asap.api.services.repositories.ClientsRepository;
+import br.com.asap.api.support.MongoCommandRecorder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(MongoCommandRecorder.class)
+class ReadThroughCacheTest {
+
+    private final MongoTemplate mongoTemplate;
+    private final ClientsService clientsService;
+    private final ClientsRepository clientsRepository;
+    private final PoliciesService policiesService;
+    private final MongoCommandRecorder mongoCommandRecorder;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public ReadThroughCacheTest(MongoTemplate mongoTemplate, ClientsService clientsService,
+                                ClientsRepository clientsRepository, PoliciesService policiesService,
+                                MongoCommandRecorder mongoCommandRecorder, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.clientsService = clientsService;
+        this.clientsRepository = clientsRepository;
+        this.policiesService = policiesService;
+        this.mongoCommandRecorder = mongoCommandRecorder;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @BeforeEach
+    public void clearDb() {
+        mongoTemplate.getDb().drop();
+    }
+
+    private Client createClient() {
+        return clientsService.create(new Client()
+            .setCpf("728.687.544-22")
+            .setName("Manuel Vinicius da Mota")
+            .setUf("CE")
+            .setCity("Fortaleza"));
+    }
+
+    private Policy createPolicy(Client client) {
+        return policiesService.create(new Policy()
+            .setVehiclePlate("NEQ-1857")
+            .setEffectiveDateStartAt(LocalDateTime.of(2020, 1, 1, 0, 0))
+            .setEffectiveDateEndAt(LocalDateTime.of(2020, 1, 31, 23, 59, 59))
+            .setNumber(policiesService.generateNumber())
+            .setClient(client));
+    }
+
+    private long findsOn(String collection) {
+        return mongoCommandRecorder.on(collection).stream().filter(command -> command.containsKey("find")).count();
+    }
+
+    @Nested
+    class clients {
+
+        @Test
+        public void shouldReadClientOnceForRepeatedLookups() {
+            final Client client = createClient();
+            mongoCommandRecorder.clear();
+
+            clientsService.findById(client.getId());
+            clientsService.findById(client.getId());
+
+            assertThat(findsOn("clients"), is(1L));
+        }
+
+        @Test
+        public void shouldNotCacheMissingClients() {
+            final Client client = new Client().setCpf("72868754422").setName("Manuel").setUf("CE").setCity("Fortaleza");
+            client.setId("600c6c9db16df808354b113f");
+
+            assertThat(clientsService.findById(client.getId()).isPresent(), is(false));
+            clientsRepository.save(client);
+
+            assertThat(clientsService.findById(client.getId()).isPresent(), is(true));
+        }
+
+        @Test
+        public void shouldEvictClientOnUpdate() {
+            final Client client = createClient();
+            clientsService.findById(client.getId());
+
+            clientsService.update(client.setName("Roberto Otávio Filipe da Silva"));
+
+            assertThat(clientsService.findById(client.getId()).get().getName(), is("Roberto Otávio Filipe da Silva"));
+        }
+
+        @Test
+        public void shouldEvictClientSavedThroughRepository() {
+            final Client client = createClient();
+            clientsService.findById(client.getId());
+
+            clientsRepository.save(client.setCity("Arapiraca"));
+
+            assertThat(clientsService.findById(client.getId()).get().getCity(), is("Arapiraca"));
+        }
+
+        @Test
+        public void shouldEvictClientOnDelete() {
+            final Client client = createClient();
+            clientsService.findById(client.getId());
+
+            clientsService.deleteById(client.getId());
+
+            assertThat(clientsService.findById(client.getId()).isPresent(), is(false));
+        }
+
+    }
+
+    @Nested
+    class policies {
+
+        @Test
+        public void shouldShareCachedPolicyBetweenNumberAndIdLookups() {
+            final Policy policy = createPolicy(createClient());
+            mongoCommandRecorder.clear();
+
+            assertThat(policiesService.findByNumber(policy.getNumber()).get().getId(), is(policy.getId()));
+            assertThat(policiesService.findByNumber(policy.getNumber()).get().getId(), is(policy.getId()));
+            assertThat(policiesService.findById(policy.getId()).get().getNumber(), is(policy.getNumber()));
+
+            assertThat(findsOn("policies"), is(1L));
+        }
+
+        @Test
+        public void shouldEvictPolicyOnUpdate() {
+            final Policy policy = createPolicy(createClient());
+            policiesService.findByNumber(policy.getNumber());
+
+            policiesService.update(policy.setVehiclePlate("ABC-1234"));
+
+            assertThat(policiesService.findByNumber(policy.getNumber()).get().getVehiclePlate(), is("ABC-1234"));
+        }
+
+        @Test
+        public void shouldNotFindDeletedPolicyByNumber() {
+            final Policy policy = createPolicy(createClient());
+            policiesService.findByNumber(policy.getNumber());
+
+            policiesService.deleteById(policy.getId());
+
+            assertThat(policiesService.findByNumber(policy.getNumber()).isPresent(), is(false));
+        }
+
+    }
+
+    @Nested
+    class metrics {
+
+        @Test
+        public void shouldCountHitsAndMisses() {
+            final Client client = createClient();
+            final double hits = meterRegistry.get("cache.gets").tag("cache", "clients").tag("result", "hit")
+                .functionCounter().count();
+
+            clientsService.findById(client.getId());
+            clientsService.findById(client.getId());
+
+            assertThat(meterRegistry.get("cache.gets").tag("cache", "clients").tag("result", "hit")
+                .functionCounter().count(), is(hits + 1));
+            assertThat(meterRegistry.get("cache.evictions").tag("cache", "clients").functionCounter(), is(notNullValue()));
+        }
+
+    }
+
+}
@@ -0,0 +1,105 @@
+package br.com.asap.api.services.imports;
+
+import br.com.asap.api.config.jackson.JacksonAdapter;
+import br.com.asap.api.models.Policy;
+import br.com.asap.api.services.entities_services.PoliciesService;
+import br.com.asap.api.services.validators.PoliciesValidator;
+import com.jayway.jsonpath.JsonPath;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Validator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class PoliciesImporterTest {
+
+    private PoliciesService policiesService;
+    private PoliciesValidator policiesValidator;
+    private PoliciesImporter importer;
+
+    @BeforeEach
+    public void setUp() {
+        policiesService = mock(PoliciesService.class);
+        policiesValidator = mock(PoliciesValidator.class);
+        importer = new PoliciesImporter(policiesService, policiesValidator, mock(Validator.class),
+            new JacksonAdapter().jacksonBuilder().build(), new SyncTaskExecutor(), 10, 1);
+    }
+
+    private String policy(String vehiclePlate) {
+        return "{" +
+            "\"effectiveDateStartAt\": \"2020-01-01T00:00:00\"," +
+            "\"effectiveDateEndAt\": \"2020-01-31T23:59:59\"," +
+            "\"vehiclePlate\": \"" + vehiclePlate + "\"," +
+            "\"client\": {\"id\": \"600c6c9db16df808354b113f\"}" +
+        "}";
+    }
+
+    private List<String> importLines(String... lines) throws IOException {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        importer.importFrom(new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8)),
+            output);
+        return Arrays.asList(new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+    }
+
+    @Nested
+    class whenAChunkFailsPartway {
+
+        private String storedId;
+
+        @BeforeEach
+        public void failAfterStoringTheFirstPolicy() {
+            doAnswer(invocation -> {
+                final List<BeanPropertyBindingResult> errors = invocation.getArgument(1);
+                errors.get(1).reject("client_not_found", "Cliente não encontrado");
+                return null;
+            }).when(policiesValidator).validateBatch(anyList(), anyList());
+            when(policiesService.createAll(anyList())).thenAnswer(invocation -> {
+                final List<Policy> policies = invocation.getArgument(0);
+                policies.forEach(policy -> policy.setId(new ObjectId().toHexString()));
+                storedId = policies.get(0).getId();
+                throw new DataAccessResourceFailureException("Connection lost");
+            });
+            when(policiesService.findStoredIds(anyCollection()))
+                .thenAnswer(invocation -> Collections.singleton(storedId));
+        }
+
+        @Test
+        public void shouldCountTheStoredLineAsImported() throws Exception {
+            final List<String> lines = importLines(policy("NEQ-1857"), policy("ABC-1234"), policy("XYZ-9876"));
+
+            final String summary = lines.get(lines.size() - 1);
+            assertThat(JsonPath.read(summary, "$.imported"), is(1));
+            assertThat(JsonPath.read(summary, "$.rejected"), is(2));
+        }
+
+        @Test
+        public void shouldReportEachOtherLineOnce() throws Exception {
+            final List<String> lines = importLines(policy("NEQ-1857"), policy("ABC-1234"), policy("XYZ-9876"));
+
+            assertThat(lines, hasSize(3));
+            assertThat(JsonPath.read(lines.get(0), "$.line"), is(2));
+            assertThat(JsonPath.read(lines.get(0), "$.errors[0].codes"), hasItem("client_not_found"));
+            assertThat(JsonPath.read(lines.get(1), "$.line"), is(3));
+            assertThat(JsonPath.read(lines.get(1), "$.errors[0].codes[0]"), is("import_failed"));
+        }
+
+    }
+
+}
@@ -0,0 +1,138 @@
+package br.com.asap.api.services.repositories;
+
+import br.com.asap.api.models.Client;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CpfNumberBackfillTest {
+
+    private final MockMvc mockMvc;
+    private final MongoTemplate mongoTemplate;
+    private final MongoIndexes mongoIndexes;
+    private final CpfNumberBackfill cpfNumberBackfill;
+
+    @Autowired
+    public CpfNumberBackfillTest(MockMvc mockMvc, MongoTemplate mongoTemplate, MongoIndexes mongoIndexes,
+                                 CpfNumberBackfill cpfNumberBackfill) {
+        this.mockMvc = mockMvc;
+        this.mongoTemplate = mongoTemplate;
+        this.mongoIndexes = mongoIndexes;
+        this.cpfNumberBackfill = cpfNumberBackfill;
+    }
+
+    @BeforeEach
+    public void clearDb() {
+        mongoTemplate.getDb().drop();
+        mongoIndexes.ensure();
+    }
+
+    @Nested
+    class backfill {
+
+        @Test
+        public void shouldWriteThePackedCpf() {
+            mongoTemplate.getCollection("clients").insertOne(new Document("cpf", "728.687.544-22"));
+
+            assertThat(cpfNumberBackfill.backfill(), is(1L));
+
+            assertThat(mongoTemplate.getCollection("clients").find().first().get("cpfNumber"), is(72868754422L));
+        }
+
+        @Test
+        public void shouldSkipCpfsThatDoNotPack() {
+            mongoTemplate.getCollection("clients").insertOne(new Document("cpf", "728"));
+
+            assertThat(cpfNumberBackfill.backfill(), is(0L));
+        }
+
+        @Test
+        public void shouldLetTheUniqueIndexRejectCpfsStoredOutsideTheApplication() throws Exception {
+            mongoTemplate.getCollection("clients").insertOne(new Document("cpf", "83168587702"));
+            cpfNumberBackfill.backfill();
+
+            mockMvc.perform(post("/api/clients")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Manuel\", \"cpf\": \"831.685.877-02\", \"city\": \"Fortaleza\", \"uf\": \"CE\"}"))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$[0].defaultMessage", is("Cpf já existe")));
+        }
+
+        @Test
+        public void shouldFailOnCpfStoredTwice() {
+            mongoTemplate.getCollection("clients").insertOne(new Document("cpf", "728.687.544-22"));
+            mongoTemplate.getCollection("clients").insertOne(new Document("cpf", "72868754422"));
+
+            assertThrows(IllegalStateException.class, cpfNumberBackfill::backfill);
+        }
+
+    }
+
+    @Nested
+    class run {
+
+        private boolean hasRetiredIndex() {
+            return mongoTemplate.indexOps(Client.class).getIndexInfo().stream()
+                .anyMatch(index -> index.getName().equals("cpf"));
+        }
+
+        @BeforeEach
+        public void createRetiredIndex() {
+            mongoTemplate.indexOps(Client.class)
+                .ensureIndex(new Index("cpf", Sort.Direction.ASC).unique().named("cpf"));
+        }
+
+        @Test
+        public void shouldKeepTheRetiredIndexByDefault() {
+            mongoTemplate.getCollection("clients").insertOne(new Document("cpf", "72868754422"));
+
+            cpfNumberBackfill.run(null);
+
+            assertThat(hasRetiredIndex(), is(true));
+        }
+
+        @Test
+        public void shouldDropTheRetiredIndexOnceBackfilledWhenAsked() {
+            mongoTemplate.getCollection("clients").insertOne(new Document("cpf", "72868754422"));
+
+            new CpfNumberBackfill(mongoTemplate, mongoIndexes, true).run(null);
+
+            assertThat(hasRetiredIndex(), is(false));
+        }
+
+        @Test
+        public void shouldKeepTheRetiredIndexWhenTheBackfillFails() {
+            mongoTemplate.indexOps(Client.class).dropIndex("cpf");
+            mongoTemplate.getCollection("clients").insertOne(new Document("cpf", "728.687.544-22"));
+            mongoTemplate.getCollection("clients").insertOne(new Document("cpf", "72868754422"));
+            createRetiredIndex();
+
+            assertThrows(IllegalStateException.class,
+                () -> new CpfNumberBackfill(mongoTemplate, mongoIndexes, true).run(null));
+
+            assertThat(hasRetiredIndex(), is(true));
+        }
+
+    }
+
+}
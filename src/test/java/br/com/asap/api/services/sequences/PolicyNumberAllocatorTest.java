@@ -0,0 +1,167 @@
+package br.com.asap.api.services.sequences;
+
+import br.com.asap.api.models.Counter;
+import br.com.asap.api.models.Policy;
+import br.com.asap.api.services.repositories.PoliciesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class PolicyNumberAllocatorTest {
+
+    private static final int BLOCK_SIZE = 100;
+
+    private MongoTemplate mongoTemplate;
+    private PoliciesRepository policiesRepository;
+    private AtomicLong counter;
+
+    @BeforeEach
+    public void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        policiesRepository = mock(PoliciesRepository.class);
+        counter = new AtomicLong();
+
+        when(mongoTemplate.exists(any(Query.class), eq(Counter.class))).thenReturn(true);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class),
+            any(FindAndModifyOptions.class), eq(Counter.class)))
+            .thenAnswer(invocation -> new Counter().setSeq(counter.addAndGet(BLOCK_SIZE)));
+    }
+
+    private PolicyNumberAllocator allocator() {
+        return new PolicyNumberAllocator(mongoTemplate, policiesRepository, BLOCK_SIZE);
+    }
+
+    @Nested
+    class next {
+
+        @Test
+        public void shouldHandOutSequentialNumbersFromOneLease() {
+            final PolicyNumberAllocator allocator = allocator();
+
+            for (int expected = 1; expected <= BLOCK_SIZE; expected++) {
+                assertThat(allocator.next(), is(expected));
+            }
+
+            verify(mongoTemplate, times(1)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Counter.class));
+        }
+
+        @Test
+        public void shouldLeaseNewBlockWhenExhausted() {
+            final PolicyNumberAllocator allocator = allocator();
+
+            for (int i = 0; i < BLOCK_SIZE * 3; i++) {
+                allocator.next();
+            }
+            assertThat(allocator.next(), is(BLOCK_SIZE * 3 + 1));
+
+            verify(mongoTemplate, times(4)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Counter.class));
+        }
+
+        @Test
+        public void shouldCheckForTheCounterOnlyOnTheFirstLease() {
+            final PolicyNumberAllocator allocator = allocator();
+
+            for (int i = 0; i < BLOCK_SIZE * 3; i++) {
+                allocator.next();
+            }
+
+            verify(mongoTemplate, times(1)).exists(any(Query.class), eq(Counter.class));
+        }
+
+        @Test
+        public void shouldNotOverlapBlocksLeasedByOtherNodes() {
+            final PolicyNumberAllocator node = allocator();
+            final PolicyNumberAllocator otherNode = allocator();
+
+            assertThat(node.next(), is(1));
+            assertThat(otherNode.next(), is(BLOCK_SIZE + 1));
+            assertThat(node.next(), is(2));
+        }
+
+        @Nested
+        class withoutCounter {
+
+            @Test
+            public void shouldSeedCounterAfterHighestExistingNumber() {
+                when(mongoTemplate.exists(any(Query.class), eq(Counter.class))).thenReturn(false);
+                when(policiesRepository.findFirstByOrderByNumberDesc())
+                    .thenReturn(Optional.of(new Policy().setNumber(76079)));
+                when(mongoTemplate.insert(any(Counter.class))).thenAnswer(invocation -> {
+                    final Counter seed = invocation.getArgument(0);
+                    counter.set(seed.getSeq());
+                    return seed;
+                });
+
+                assertThat(allocator().next(), is(76080));
+            }
+
+        }
+
+        @Nested
+        class underContention {
+
+            private static final int THREADS = 16;
+            private static final int PER_THREAD = 200_000;
+
+            @Test
+            public void shouldNeverHandOutTheSameNumberTwice() throws Exception {
+                final PolicyNumberAllocator allocator = allocator();
+                final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+                final CountDownLatch start = new CountDownLatch(1);
+
+                final List<Future<int[]>> futures = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    futures.add(executor.submit(() -> {
+                        final int[] numbers = new int[PER_THREAD];
+                        start.await();
+                        for (int i = 0; i < PER_THREAD; i++) {
+                            numbers[i] = allocator.next();
+                        }
+                        return numbers;
+                    }));
+                }
+
+                start.countDown();
+
+                final int total = THREADS * PER_THREAD;
+                final boolean[] seen = new boolean[total + 1];
+                for (Future<int[]> future : futures) {
+                    for (int number : future.get()) {
+                        assertThat(seen[number], is(false));
+                        seen[number] = true;
+                    }
+                }
+                executor.shutdown();
+                executor.awaitTermination(10, TimeUnit.SECONDS);
+
+                verify(mongoTemplate, times(total / BLOCK_SIZE)).findAndModify(any(Query.class),
+                    any(Update.class), any(FindAndModifyOptions.class), eq(Counter.class));
+            }
+
+        }
+
+    }
+
+}
@@ -0,0 +1,190 @@
+package br.com.asap.api.services.snapshots;
+
+import br.com.asap.api.models.Client;
+import br.com.asap.api.models.ClientSnapshot;
+import br.com.asap.api.models.Policy;
+import br.com.asap.api.services.entities_services.ClientsService;
+import br.com.asap.api.services.entities_services.PoliciesService;
+import br.com.asap.api.services.repositories.PoliciesRepository;
+import br.com.asap.api.support.MongoCommandRecorder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "asap.policies.client-snapshot.enabled=true")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(MongoCommandRecorder.class)
+class ClientSnapshotServiceTest {
+
+    private final MockMvc mockMvc;
+    private final MongoTemplate mongoTemplate;
+    private final ClientsService clientsService;
+    private final PoliciesService policiesService;
+    private final PoliciesRepository policiesRepository;
+    private final ClientSnapshotService clientSnapshotService;
+    private final MongoCommandRecorder mongoCommandRecorder;
+
+    @Autowired
+    public ClientSnapshotServiceTest(MockMvc mockMvc, MongoTemplate mongoTemplate, ClientsService clientsService,
+                                     PoliciesService policiesService, PoliciesRepository policiesRepository,
+                                     ClientSnapshotService clientSnapshotService,
+                                     MongoCommandRecorder mongoCommandRecorder) {
+        this.mockMvc = mockMvc;
+        this.mongoTemplate = mongoTemplate;
+        this.clientsService = clientsService;
+        this.policiesService = policiesService;
+        this.policiesRepository = policiesRepository;
+        this.clientSnapshotService = clientSnapshotService;
+        this.mongoCommandRecorder = mongoCommandRecorder;
+    }
+
+    @BeforeEach
+    public void clearDb() {
+        mongoTemplate.getDb().drop();
+    }
+
+    private Client createClient() {
+        return clientsService.create(new Client()
+            .setCpf("728.687.544-22")
+            .setName("Manuel Vinicius da Mota")
+            .setUf("CE")
+            .setCity("Fortaleza"));
+    }
+
+    private Policy newPolicy(Client client) {
+        return new Policy()
+            .setVehiclePlate("NEQ-1857")
+            .setEffectiveDateStartAt(LocalDateTime.of(2020, 1, 1, 0, 0))
+            .setEffectiveDateEndAt(LocalDateTime.of(2020, 1, 31, 23, 59, 59))
+            .setNumber(policiesService.generateNumber())
+            .setClient(client);
+    }
+
+    private ClientSnapshot storedSnapshotOf(Policy policy) {
+        return mongoTemplate.findById(policy.getId(), Policy.class).getClientSnapshot();
+    }
+
+    @Nested
+    class attach {
+
+        @Test
+        public void shouldStoreClientSnapshotOnCreate() {
+            final Client client = createClient();
+            final Policy policy = policiesService.create(newPolicy(client));
+
+            final ClientSnapshot snapshot = storedSnapshotOf(policy);
+            assertThat(snapshot.getId(), is(client.getId()));
+            assertThat(snapshot.getName(), is("Manuel Vinicius da Mota"));
+            assertThat(snapshot.getCpf(), is("72868754422"));
+            assertThat(snapshot.getUf(), is("CE"));
+        }
+
+        @Test
+        public void shouldReadTheClientThroughTheCache() {
+            final Client client = createClient();
+            clientsService.findById(client.getId());
+            final Policy policy = newPolicy(client);
+            mongoCommandRecorder.clear();
+
+            policiesService.create(policy);
+
+            assertThat(mongoCommandRecorder.on("clients"), is(empty()));
+            assertThat(storedSnapshotOf(policy).getName(), is("Manuel Vinicius da Mota"));
+        }
+
+        @Test
+        public void shouldRenderSnapshotOnShow() throws Exception {
+            final Client client = createClient();
+            final Policy policy = policiesService.create(newPolicy(client));
+
+            mockMvc.perform(get("/api/policies/" + policy.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.clientSnapshot.id", is(client.getId())))
+                .andExpect(jsonPath("$.clientSnapshot.name", is("Manuel Vinicius da Mota")))
+                .andExpect(jsonPath("$.client").doesNotExist());
+        }
+
+    }
+
+    @Nested
+    class sync {
+
+        @Test
+        public void shouldRefreshSnapshotsWhenClientIsUpdated() throws Exception {
+            final Client client = createClient();
+            final Policy policy = policiesService.create(newPolicy(client));
+
+            clientsService.update(client.setName("Roberto Otávio Filipe da Silva").setUf("AL"));
+
+            final long deadline = System.currentTimeMillis() + 5000;
+            while (!"AL".equals(storedSnapshotOf(policy).getUf()) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            final ClientSnapshot snapshot = storedSnapshotOf(policy);
+            assertThat(snapshot.getName(), is("Roberto Otávio Filipe da Silva"));
+            assertThat(snapshot.getUf(), is("AL"));
+        }
+
+        @Test
+        public void shouldNotReplaceSnapshotWithOlderClient() {
+            final Client client = createClient();
+            final Policy policy = policiesService.create(newPolicy(client));
+            final Client stale = new Client().setName(client.getName()).setCpf(client.getCpf()).setUf(client.getUf());
+            stale.setId(client.getId());
+            stale.setVersion(client.getVersion());
+
+            final Client updated = clientsService.update(client.setUf("AL")).get();
+            clientSnapshotService.refresh(updated);
+
+            assertThat(clientSnapshotService.refresh(stale), is(0L));
+            assertThat(storedSnapshotOf(policy).getUf(), is("AL"));
+            assertThat(storedSnapshotOf(policy).getVersion(), is(updated.getVersion()));
+        }
+
+    }
+
+    @Nested
+    class migrate {
+
+        @Test
+        public void shouldWriteSnapshotsOfExistingPolicies() {
+            final Client client = createClient();
+            final Policy policy = policiesRepository.save(newPolicy(client));
+            assertThat(storedSnapshotOf(policy), is(nullValue()));
+
+            final long modified = clientSnapshotService.migrate();
+
+            assertThat(modified, is(1L));
+            assertThat(storedSnapshotOf(policy).getId(), is(client.getId()));
+        }
+
+        @Test
+        public void shouldBumpPolicyVersion() {
+            final Client client = createClient();
+            final Policy policy = policiesService.create(newPolicy(client));
+
+            clientSnapshotService.migrate();
+
+            assertThat(mongoTemplate.findById(policy.getId(), Policy.class).getVersion(), is(policy.getVersion() + 1));
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+package br.com.asap.api.services.validators;
+
+import br.com.asap.api.models.Client;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.ObjectError;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+
+import javax.validation.Validation;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class ValidationPipelineTest {
+
+    private final ValidationPipeline pipeline = new ValidationPipeline(
+        new SpringValidatorAdapter(Validation.buildDefaultValidatorFactory().getValidator()));
+
+    private static Client validClient() {
+        return new Client().setName("Manuel").setCpf("728.687.544-22").setCity("Uruguaiana").setUf("RS");
+    }
+
+    @Nested
+    class validate {
+
+        @Test
+        public void shouldSkipChecksWhenConstraintsFail() {
+            final Client client = validClient().setName("");
+            final BeanPropertyBindingResult errors = new BeanPropertyBindingResult(client, "client");
+            final AtomicBoolean checked = new AtomicBoolean();
+
+            final boolean valid = pipeline.validate(client, errors, Collections.emptySet(),
+                e -> checked.set(true), e -> checked.set(true));
+
+            assertThat(valid, is(false));
+            assertThat(checked.get(), is(false));
+            assertThat(errors.getFieldError("name").getDefaultMessage(), is("Nome é obrigatório"));
+        }
+
+        @Test
+        public void shouldLeaveOutAssignedFields() {
+            final Client client = validClient().setUf(null);
+            final BeanPropertyBindingResult errors = new BeanPropertyBindingResult(client, "client");
+
+            assertThat(pipeline.validate(client, errors, Collections.singleton("uf")), is(true));
+            assertThat(errors.hasErrors(), is(false));
+        }
+
+        @Test
+        public void shouldAddErrorsInTheOrderOfTheChecks() {
+            final Client client = validClient();
+            final BeanPropertyBindingResult errors = new BeanPropertyBindingResult(client, "client");
+
+            final boolean valid = pipeline.validate(client, errors, Collections.emptySet(),
+                e -> e.rejectValue("name", "first"),
+                e -> e.rejectValue("city", "second"),
+                e -> e.rejectValue("uf", "third"));
+
+            assertThat(valid, is(false));
+            assertThat(errors.getAllErrors().stream().map(ObjectError::getCode).collect(toList()),
+                contains("first", "second", "third"));
+        }
+
+    }
+
+}
@@ -0,0 +1,255 @@
+package br.com.asap.api.services.writes;
+
+import br.com.asap.api.models.Client;
+import br.com.asap.api.models.Policy;
+import br.com.asap.api.services.entities_services.ClientsService;
+import br.com.asap.api.services.entities_services.PoliciesService;
+import br.com.asap.api.services.repositories.MongoIndexes;
+import br.com.asap.api.support.MongoCommandRecorder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "asap.writes.group-commit.enabled=true",
+    "asap.writes.group-commit.max-delay-micros=200000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(MongoCommandRecorder.class)
+class InsertCoalescerTest {
+
+    private static final int CALLERS = 8;
+
+    private final MockMvc mockMvc;
+    private final ClientsService clientsService;
+    private final PoliciesService policiesService;
+    private final MongoTemplate mongoTemplate;
+    private final MongoCommandRecorder mongoCommandRecorder;
+    private final MongoIndexes mongoIndexes;
+
+    @Autowired
+    public InsertCoalescerTest(MockMvc mockMvc, ClientsService clientsService, PoliciesService policiesService,
+                               MongoTemplate mongoTemplate, MongoCommandRecorder mongoCommandRecorder,
+                               MongoIndexes mongoIndexes) {
+        this.mockMvc = mockMvc;
+        this.clientsService = clientsService;
+        this.policiesService = policiesService;
+        this.mongoTemplate = mongoTemplate;
+        this.mongoCommandRecorder = mongoCommandRecorder;
+        this.mongoIndexes = mongoIndexes;
+    }
+
+    @BeforeEach
+    public void clearDb() {
+        mongoTemplate.getDb().drop();
+        mongoIndexes.ensure();
+        mongoCommandRecorder.clear();
+    }
+
+    private static Client client(String cpf) {
+        return new Client().setName("Cliente " + cpf).setCpf(cpf).setCity("Fortaleza").setUf("CE");
+    }
+
+    private long inserts() {
+        return mongoCommandRecorder.on("clients").stream()
+            .filter(command -> command.getFirstKey().equals("insert"))
+            .count();
+    }
+
+    /**
+     * Creates one client per cpf, each from its own thread, all released at once.
+     */
+    private List<Future<Client>> createConcurrently(List<String> cpfs, Function<Client, Client> create)
+        throws InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(cpfs.size());
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Client>> created = new ArrayList<>();
+        for (String cpf : cpfs) {
+            created.add(executor.submit(() -> {
+                start.await();
+                return create.apply(client(cpf));
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+        return created;
+    }
+
+    @Nested
+    class create {
+
+        @Test
+        public void shouldWriteConcurrentCreatesWithOneInsert() throws Exception {
+            final List<String> cpfs = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                cpfs.add(String.format("%011d", 1000 + i));
+            }
+
+            final List<Future<Client>> created = createConcurrently(cpfs, clientsService::create);
+
+            for (Future<Client> client : created) {
+                assertThat(client.get().getId(), is(notNullValue()));
+                assertThat(client.get().getVersion(), is(0L));
+            }
+            assertThat(clientsService.findAll(), hasSize(CALLERS));
+            assertThat(inserts(), is(1L));
+        }
+
+        @Test
+        public void shouldFailOnlyTheDuplicate() throws Exception {
+            final List<String> cpfs = new ArrayList<>();
+            cpfs.add("72868754422");
+            cpfs.add("72868754422");
+            cpfs.add("83168587702");
+
+            final List<Future<Client>> created = createConcurrently(cpfs, clientsService::create);
+
+            int failed = 0;
+            for (Future<Client> client : created) {
+                try {
+                    client.get();
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause(), is(instanceOf(DuplicateKeyException.class)));
+                    failed++;
+                }
+            }
+            assertThat(failed, is(1));
+            assertThat(clientsService.findAll(), hasSize(2));
+        }
+
+        @Test
+        public void shouldReturnCpfAlreadyExists() throws Exception {
+            clientsService.create(client("72868754422"));
+
+            final String params = "{" +
+                "\"name\": \"Manuel Vinicius da Mota\"," +
+                "\"cpf\": \"728.687.544-22\"," +
+                "\"city\": \"Uruguaiana\"," +
+                "\"uf\": \"RS\"" +
+            "}";
+
+            mockMvc.perform(post("/api/clients").contentType(MediaType.APPLICATION_JSON).content(params))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$[0].codes", hasItem("cpf_already_exists")));
+        }
+
+        @Test
+        public void shouldRetryPolicyWithNumberTaken() {
+            final Client client = clientsService.create(client("72868754422"));
+            final Policy taken = policiesService.create(policy(client, policiesService.generateNumber()));
+
+            final Policy created = policiesService.create(policy(client, taken.getNumber()));
+
+            assertThat(created.getNumber(), is(not(taken.getNumber())));
+            assertThat(policiesService.findAll(), hasSize(2));
+        }
+
+        private Policy policy(Client client, Integer number) {
+            return new Policy()
+                .setNumber(number)
+                .setVehiclePlate("ABC-1234")
+                .setEffectiveDateStartAt(LocalDateTime.of(2021, 1, 1, 0, 0))
+                .setEffectiveDateEndAt(LocalDateTime.of(2022, 1, 1, 0, 0))
+                .setClient(client);
+        }
+
+    }
+
+    @Nested
+    class submit {
+
+        @Test
+        public void shouldWriteAsSoonAsTheBatchIsFull() throws Exception {
+            try (InsertCoalescer<Client> inserts = new InsertCoalescer<>(Client.class, mongoTemplate, event -> { },
+                true, 2, TimeUnit.SECONDS.toMicros(30), 5000, new SimpleMeterRegistry())) {
+                final CompletableFuture<Client> first = inserts.submit(client("72868754422"));
+                final CompletableFuture<Client> second = inserts.submit(client("83168587702"));
+
+                assertThat(first.get(5, TimeUnit.SECONDS).getCpf(), is("72868754422"));
+                assertThat(second.get(5, TimeUnit.SECONDS).getCpf(), is("83168587702"));
+                assertThat(inserts(), is(1L));
+            }
+        }
+
+        @Test
+        public void shouldRefuseWhenDisabled() {
+            try (InsertCoalescer<Client> inserts = new InsertCoalescer<>(Client.class, mongoTemplate, event -> { },
+                false, 100, 1000, 5000, new SimpleMeterRegistry())) {
+                assertThat(inserts.isEnabled(), is(false));
+                assertThrows(IllegalStateException.class, () -> inserts.submit(client("72868754422")));
+            }
+        }
+
+        @Test
+        public void shouldRefuseOnceClosed() {
+            final InsertCoalescer<Client> inserts = new InsertCoalescer<>(Client.class, mongoTemplate, event -> { },
+                true, 100, 1000, 5000, new SimpleMeterRegistry());
+            inserts.close();
+
+            assertThrows(IllegalStateException.class, () -> inserts.submit(client("72868754422")));
+        }
+
+        @Test
+        public void shouldPublishAfterSaveForTheInsertsThatWentThrough() throws Exception {
+            clientsService.create(client("72868754422"));
+            final List<Object> saved = Collections.synchronizedList(new ArrayList<>());
+            try (InsertCoalescer<Client> inserts = new InsertCoalescer<>(Client.class, mongoTemplate, event -> {
+                if (event instanceof AfterSaveEvent) {
+                    saved.add(((AfterSaveEvent<?>) event).getSource());
+                }
+            }, true, 2, TimeUnit.SECONDS.toMicros(30), 5000, new SimpleMeterRegistry())) {
+                final CompletableFuture<Client> duplicate = inserts.submit(client("72868754422"));
+                final CompletableFuture<Client> created = inserts.submit(client("83168587702"));
+
+                final ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> duplicate.get(5, TimeUnit.SECONDS));
+                assertThat(error.getCause(), is(instanceOf(DuplicateKeyException.class)));
+                assertThat(saved, contains(created.get(5, TimeUnit.SECONDS)));
+            }
+        }
+
+        @Test
+        public void shouldTimeOutWhenTheBatchIsNotWrittenInTime() {
+            try (InsertCoalescer<Client> inserts = new InsertCoalescer<>(Client.class, mongoTemplate, event -> { },
+                true, 100, TimeUnit.SECONDS.toMicros(30), 50, new SimpleMeterRegistry())) {
+                assertThrows(QueryTimeoutException.class, () -> inserts.insert(client("72868754422")));
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,58 @@
+package br.com.asap.api.support;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Records the commands sent to Mongo, for tests asserting how many round trips an operation costs.
+ * Use with {@code @Import(MongoCommandRecorder.class)}.
+ */
+@TestConfiguration
+public class MongoCommandRecorder implements CommandListener {
+
+    private final List<BsonDocument> commands = new CopyOnWriteArrayList<>();
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer recordMongoCommands() {
+        return settings -> settings.addCommandListener(this);
+    }
+
+    public void clear() {
+        commands.clear();
+    }
+
+    /**
+     * Commands recorded since the last {@link #clear()} that target the collection.
+     */
+    public List<BsonDocument> on(String collection) {
+        return commands.stream()
+            .filter(command -> {
+                final String name = command.getFirstKey();
+                return command.get(name).isString() && command.getString(name).getValue().equals(collection);
+            })
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        commands.add(event.getCommand().clone());
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+    }
+}